@@ -0,0 +1,100 @@
+package org.acme;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import org.acme.benchmarks.Stubs;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * {@link RateLimitingFilter#filter(ContainerRequestContext)} com 8 threads. Com
+ * {@code clients=shared} todas disputam o mesmo bucket (CAS no mesmo TAT); com
+ * {@code perThread} cada thread é um cliente, com uma chave de API conhecida. {@code limit=open} mede o caminho aceito e
+ * {@code tight} o de recusa com 429.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class RateLimitingFilterBenchmark {
+
+    @Param({"shared", "perThread"})
+    public String clients;
+
+    @Param({"open", "tight"})
+    public String limit;
+
+    private static final Set<String> KEYS = IntStream.rangeClosed(0, 1024)
+            .mapToObj(i -> i == 0 ? "cliente" : "cliente-" + i)
+            .collect(Collectors.toUnmodifiableSet());
+
+    RateLimitingFilter filter;
+
+    @Setup
+    public void setup() {
+        boolean open = "open".equals(limit);
+        RateLimitConfig.Limit selected = Stubs.of(RateLimitConfig.Limit.class, (method, args) -> switch (method) {
+            case "capacity" -> open ? 1_000_000 : 20;
+            case "refillPerSecond" -> open ? 1e9 : 10d;
+            default -> Stubs.DEFAULT;
+        });
+        filter = new RateLimitingFilter();
+        filter.config = Stubs.of(RateLimitConfig.class, (method, args) -> switch (method) {
+            case "enabled" -> true;
+            case "defaults" -> selected;
+            case "routes" -> Map.of();
+            case "apiKeyHeader" -> "X-API-Key";
+            case "apiKeys" -> Optional.of(KEYS);
+            case "trustForwardedFor" -> false;
+            case "idleEviction" -> Duration.ofMinutes(10);
+            case "maxClients" -> 1_000_000L;
+            default -> Stubs.DEFAULT;
+        });
+        filter.registry = new SimpleMeterRegistry();
+        filter.init();
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+        ContainerRequestContext context;
+        Response aborted;
+
+        @Setup
+        public void setup(RateLimitingFilterBenchmark benchmark) {
+            String apiKey = "shared".equals(benchmark.clients) ? "cliente" : "cliente-" + SEQUENCE.incrementAndGet();
+            UriInfo uriInfo = Stubs.of(UriInfo.class, (method, args) -> "getPath".equals(method) ? "/api/v1/acessorios" : Stubs.DEFAULT);
+            context = Stubs.of(ContainerRequestContext.class, (method, args) -> switch (method) {
+                case "getUriInfo" -> uriInfo;
+                case "getHeaderString" -> "X-API-Key".equals(args[0]) ? apiKey : null;
+                case "abortWith" -> {
+                    aborted = (Response) args[0];
+                    yield null;
+                }
+                default -> Stubs.DEFAULT;
+            });
+        }
+    }
+
+    @Benchmark
+    public void filter(Client client, Blackhole blackhole) throws Exception {
+        client.aborted = null;
+        filter.filter(client.context);
+        blackhole.consume(client.aborted);
+    }
+}
@@ -0,0 +1,25 @@
+package org.acme.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ponto de entrada do jar de benchmarks. Repassa os argumentos ao JMH e, se nenhum
+ * formato for pedido, grava o resultado em JSON em {@code target/jmh-result.json} para
+ * comparar versões.
+ */
+public final class Benchmarks {
+
+    static final String RESULT_FILE = "target/jmh-result.json";
+
+    private Benchmarks() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(List.of(args));
+        if (!options.contains("-rf")) {
+            options.addAll(List.of("-rf", "json"));
+            if (!options.contains("-rff")) options.addAll(List.of("-rff", RESULT_FILE));
+        }
+        org.openjdk.jmh.Main.main(options.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,100 @@
+package org.acme.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.FichaTecnica;
+import org.acme.JacksonConfig;
+import org.acme.SearchAcessorioResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON, CBOR e Smile para uma página de {@link SearchAcessorioResponse}: tempo de
+ * codificação e de decodificação. O tamanho de cada corpo sai como o contador secundário
+ * {@code bytes}, ao lado do tempo, na tabela do JMH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    ObjectMapper mapper;
+    SearchAcessorioResponse response;
+    byte[] encoded;
+
+    @Setup
+    public void setup() throws Exception {
+        ObjectMapper json = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        new JacksonConfig().customize(json);
+        mapper = switch (format) {
+            case "cbor" -> json.copyWith(new CBORFactory());
+            case "smile" -> json.copyWith(new SmileFactory());
+            default -> json;
+        };
+
+        List<Acessorio> items = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Carro carro = new Carro((long) i, "Modelo " + i, "Versão completa do modelo " + i,
+                    LocalDate.of(2015 + i % 10, 1 + i % 12, 1 + i % 28), i % 2 == 0 ? "Brasil" : "Alemanha",
+                    new FichaTecnica("Motor 2.0L turbo, 4 cilindros em linha, 220 cavalos.", "Flex", "Teto solar, rodas aro 19."));
+            carro.fichaTecnica.id = (long) i;
+
+            Acessorio acessorio = new Acessorio((long) i, "Acessório " + i,
+                    "Descrição do acessório " + i + " com instalação simples e garantia de fábrica.",
+                    2018 + i % 7, 100 + i * 3.5, 15 + i % 120);
+            acessorio.carro = carro;
+            items.add(acessorio);
+        }
+        response = new SearchAcessorioResponse();
+        response.Acessorios = items;
+        response.TotalAcessorios = size;
+        response.TotalPages = 1;
+        response.NextPage = "";
+
+        encoded = mapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] encode(Body body) throws Exception {
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public SearchAcessorioResponse decode(Body body) throws Exception {
+        return mapper.readValue(encoded, SearchAcessorioResponse.class);
+    }
+
+    /**
+     * Tamanho do corpo codificado, repetido em cada iteração para sair como contador.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Body {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void measure(BinaryFormatBenchmark benchmark) {
+            bytes = benchmark.encoded.length;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.acme.benchmarks;
+
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.Fabricante;
+import org.acme.FichaTecnica;
+import org.acme.search.AcessorioFilter;
+import org.acme.search.CarroFilter;
+import org.acme.search.Criteria;
+import org.acme.search.Keyset;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.query.SelectionQuery;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * As pesquisas da API no H2 em memória, pelo Hibernate e sem o Quarkus. O esquema sai das
+ * próprias entidades ({@code hbm2ddl}), com as mesmas colunas e índices, e as condições são
+ * montadas pelas classes que os resources usam ({@link AcessorioFilter}, {@link CarroFilter},
+ * {@link Keyset}), no formato {@code from X where ... order by id} que o Panache gera. Cada
+ * método corresponde a um modo de {@code /search} (offset, cursor, filtros por faixa e por
+ * carro) ou à consulta de fabricante → acessórios pela associação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchQueryBenchmark {
+
+    private static final int PAGE = 20;
+    private static final int CARROS = 1_000;
+    private static final int FABRICANTES = 50;
+    private static final String[] PAISES = {"Brasil", "Alemanha", "Estados Unidos", "México", "Japão"};
+
+    private static final String COLUMNS = "id, versao, nome, descricao, anoAquisicao, valor, tempoInstalacaoMinutos, carro_id";
+    private static final String ACESSORIOS_DO_FABRICANTE = "select a.id from Acessorio a join a.fabricantes f where f.id = :id";
+
+    @Param({"10000", "100000"})
+    public int acessorios;
+
+    SessionFactory sessionFactory;
+    Session session;
+    SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        var registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:bench" + acessorios + ";DB_CLOSE_DELAY=-1")
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClasses(Acessorio.class, Carro.class, Fabricante.class, FichaTecnica.class)
+                .buildMetadata()
+                .buildSessionFactory();
+
+        session = sessionFactory.openSession();
+        Transaction tx = session.beginTransaction();
+        session.doWork(this::seed);
+        tx.commit();
+        session.setDefaultReadOnly(true);
+        random = new SplittableRandom(42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        session.close();
+        sessionFactory.close();
+    }
+
+    /**
+     * Insere direto pelo JDBC, nas tabelas criadas a partir das entidades.
+     */
+    private void seed(Connection connection) throws SQLException {
+        SplittableRandom seed = new SplittableRandom(7);
+        try (PreparedStatement carro = connection.prepareStatement(
+                "insert into Carro (id, modelo, nomeCompletoVersao, dataDeFabricacao, paisDeMontagem) values (?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= CARROS; i++) {
+                carro.setLong(1, i);
+                carro.setString(2, "Modelo " + i);
+                carro.setString(3, "Versão completa " + i);
+                carro.setDate(4, Date.valueOf(LocalDate.of(2000, 1, 1).plusDays(seed.nextInt(9000))));
+                carro.setString(5, PAISES[i % PAISES.length]);
+                carro.addBatch();
+            }
+            carro.executeBatch();
+        }
+        try (PreparedStatement fabricante = connection.prepareStatement("insert into Fabricante (id, nome, detalhes) values (?, ?, ?)")) {
+            for (int i = 1; i <= FABRICANTES; i++) {
+                fabricante.setLong(1, i);
+                fabricante.setString(2, "Fabricante " + i);
+                fabricante.setString(3, "Detalhes " + i);
+                fabricante.addBatch();
+            }
+            fabricante.executeBatch();
+        }
+        try (PreparedStatement acessorio = connection.prepareStatement(
+                "insert into Acessorio (" + COLUMNS + ") values (?, 0, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement link = connection.prepareStatement(
+                     "insert into acessorio_fabricante (acessorio_id, fabricante_id) values (?, ?)")) {
+            for (int i = 1; i <= acessorios; i++) {
+                acessorio.setLong(1, i);
+                acessorio.setString(2, "Acessório " + i);
+                acessorio.setString(3, "Descrição do acessório " + i);
+                acessorio.setInt(4, 2000 + seed.nextInt(26));
+                acessorio.setDouble(5, Math.round(seed.nextDouble(1, 100_000) * 100) / 100.0);
+                acessorio.setInt(6, seed.nextInt(600));
+                acessorio.setLong(7, 1 + seed.nextInt(CARROS));
+                acessorio.addBatch();
+
+                int first = 1 + seed.nextInt(FABRICANTES);
+                link.setLong(1, i);
+                link.setLong(2, first);
+                link.addBatch();
+                link.setLong(1, i);
+                link.setLong(2, 1 + first % FABRICANTES);
+                link.addBatch();
+
+                if (i % 1000 == 0) {
+                    acessorio.executeBatch();
+                    link.executeBatch();
+                }
+            }
+            acessorio.executeBatch();
+            link.executeBatch();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("analyze");
+        }
+    }
+
+    @Benchmark
+    public void offsetPage(Blackhole blackhole) {
+        drain(query(Acessorio.class, new Criteria())
+                .setFirstResult(random.nextInt(acessorios / PAGE) * PAGE)
+                .setMaxResults(PAGE + 1), blackhole);
+    }
+
+    @Benchmark
+    public void cursorPage(Blackhole blackhole) {
+        Criteria criteria = new Criteria();
+        Keyset.restrict(criteria, "id", false, new Keyset.Cursor(null, random.nextInt(acessorios)));
+        drain(query(Acessorio.class, criteria).setMaxResults(PAGE + 1), blackhole);
+    }
+
+    @Benchmark
+    public void valorRange(Blackhole blackhole) {
+        AcessorioFilter filter = new AcessorioFilter();
+        filter.valorMin = random.nextDouble(0, 99_000);
+        filter.valorMax = filter.valorMin + 1_000;
+        drain(query(Acessorio.class, filter.apply(new Criteria())).setMaxResults(PAGE + 1), blackhole);
+    }
+
+    @Benchmark
+    public void acessoriosDoCarro(Blackhole blackhole) {
+        AcessorioFilter filter = new AcessorioFilter();
+        filter.carroIds = List.of(1L + random.nextInt(CARROS));
+        drain(query(Acessorio.class, filter.apply(new Criteria())).setMaxResults(PAGE + 1), blackhole);
+    }
+
+    @Benchmark
+    public void acessoriosDoFabricante(Blackhole blackhole) {
+        drain(session.createSelectionQuery(ACESSORIOS_DO_FABRICANTE, Long.class)
+                .setParameter("id", 1L + random.nextInt(FABRICANTES)), blackhole);
+    }
+
+    @Benchmark
+    public void carrosPorPaisEData(Blackhole blackhole) {
+        CarroFilter filter = new CarroFilter();
+        filter.paisDeMontagem = PAISES[random.nextInt(PAISES.length)];
+        filter.fabricadoApos = LocalDate.of(2000 + random.nextInt(24), 1, 1);
+        drain(query(Carro.class, filter.apply(new Criteria())).setMaxResults(PAGE + 1), blackhole);
+    }
+
+    /**
+     * A mesma query que {@code Entidade.find(criteria.query(), Sort.by("id"), criteria.params())}
+     * monta nos resources.
+     */
+    private <T> SelectionQuery<T> query(Class<T> type, Criteria criteria) {
+        String where = criteria.isEmpty() ? "" : " where " + criteria.query();
+        SelectionQuery<T> query = session.createSelectionQuery("from " + type.getSimpleName() + where + " order by id", type);
+        criteria.params().forEach(query::setParameter);
+        return query;
+    }
+
+    /**
+     * Consome as linhas e solta as entidades da sessão, como ao fim de uma requisição.
+     */
+    private void drain(SelectionQuery<?> query, Blackhole blackhole) {
+        for (Object row : query.getResultList()) blackhole.consume(row);
+        session.clear();
+    }
+}
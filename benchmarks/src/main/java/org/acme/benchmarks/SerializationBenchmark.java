@@ -0,0 +1,83 @@
+package org.acme.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.FichaTecnica;
+import org.acme.JacksonConfig;
+import org.acme.SearchAcessorioResponse;
+import org.acme.SearchCarroResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização Jackson das respostas de pesquisa com páginas de 10, 100 e 1000
+ * entidades, com o mesmo ObjectMapper da aplicação (datas ISO e o módulo do Hibernate).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    ObjectMapper mapper;
+    SearchAcessorioResponse acessorios;
+    SearchCarroResponse carros;
+
+    @Setup
+    public void setup() {
+        mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        new JacksonConfig().customize(mapper);
+
+        List<Carro> carroItems = new ArrayList<>(size);
+        List<Acessorio> acessorioItems = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            Carro carro = new Carro((long) i, "Modelo " + i, "Versão completa do modelo " + i,
+                    LocalDate.of(2015 + i % 10, 1 + i % 12, 1 + i % 28), i % 2 == 0 ? "Brasil" : "Alemanha",
+                    new FichaTecnica("Motor 2.0L turbo, 4 cilindros em linha, 220 cavalos.", "Flex", "Teto solar, rodas aro 19."));
+            carro.fichaTecnica.id = (long) i;
+            carroItems.add(carro);
+
+            Acessorio acessorio = new Acessorio((long) i, "Acessório " + i,
+                    "Descrição do acessório " + i + " com instalação simples e garantia de fábrica.",
+                    2018 + i % 7, 100 + i * 3.5, 15 + i % 120);
+            acessorio.carro = carro;
+            acessorioItems.add(acessorio);
+        }
+
+        carros = new SearchCarroResponse();
+        carros.Carros = carroItems;
+        carros.TotalCarros = size;
+        carros.TotalPages = 1;
+        carros.NextPage = "";
+
+        acessorios = new SearchAcessorioResponse();
+        acessorios.Acessorios = acessorioItems;
+        acessorios.TotalAcessorios = size;
+        acessorios.TotalPages = 1;
+        acessorios.NextPage = "";
+    }
+
+    @Benchmark
+    public byte[] searchAcessorioResponse() throws Exception {
+        return mapper.writeValueAsBytes(acessorios);
+    }
+
+    @Benchmark
+    public byte[] searchCarroResponse() throws Exception {
+        return mapper.writeValueAsBytes(carros);
+    }
+}
@@ -0,0 +1,55 @@
+package org.acme.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Implementações mínimas das interfaces do JAX-RS para chamar filtros e mappers fora do
+ * Quarkus. Só os métodos tratados pelo {@code handler} importam; os demais devolvem
+ * null, zero ou false.
+ */
+public final class Stubs {
+
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * @return o valor da chamada, ou {@link #DEFAULT} para o valor padrão do tipo
+         */
+        Object invoke(String method, Object[] args);
+    }
+
+    public static final Object DEFAULT = new Object();
+
+    private Stubs() {}
+
+    public static <T> T of(Class<T> type, Handler handler) {
+        InvocationHandler invocation = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) return objectMethod(proxy, method, args);
+            Object result = handler.invoke(method.getName(), args);
+            return result == DEFAULT ? defaultValue(method.getReturnType()) : result;
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocation));
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> "Stub@" + Integer.toHexString(System.identityHashCode(proxy));
+        };
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive()) return null;
+        if (type == boolean.class) return false;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0d;
+        if (type == float.class) return 0f;
+        if (type == char.class) return (char) 0;
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        if (type == void.class) return null;
+        return 0;
+    }
+}
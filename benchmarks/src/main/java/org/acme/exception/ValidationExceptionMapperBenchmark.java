@@ -0,0 +1,51 @@
+package org.acme.exception;
+
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.acme.Carro;
+import org.acme.benchmarks.Stubs;
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ValidationExceptionMapper#toResponse} para um {@link Carro} com quatro violações,
+ * as mesmas que um POST inválido produz.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationExceptionMapperBenchmark {
+
+    ValidationExceptionMapper mapper;
+    ConstraintViolationException exception;
+
+    @Setup
+    public void setup() {
+        Carro invalido = new Carro(null, "", null, LocalDate.now().plusYears(1), "", null);
+        invalido.paisDeMontagem = "x".repeat(100);
+        try (ValidatorFactory factory = Validation.byDefaultProvider().configure()
+                .messageInterpolator(new ParameterMessageInterpolator())
+                .buildValidatorFactory()) {
+            exception = new ConstraintViolationException(factory.getValidator().validate(invalido));
+        }
+        mapper = new ValidationExceptionMapper();
+        mapper.headers = Stubs.of(HttpHeaders.class, (method, args) ->
+                method.equals("getAcceptableMediaTypes") ? List.of(MediaType.WILDCARD_TYPE) : Stubs.DEFAULT);
+    }
+
+    @Benchmark
+    public Response toResponse() {
+        return mapper.toResponse(exception);
+    }
+}
@@ -0,0 +1,119 @@
+package org.acme.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import org.acme.CarroResource;
+import org.acme.benchmarks.Stubs;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link IdempotencyFilter} com 8 threads, sem o journal. {@code firstRequest} passa por
+ * request e response filter com uma chave nova a cada chamada (registro da entrada
+ * pendente e snapshot da resposta); {@code replay} repete sempre a mesma chave, já
+ * concluída, e mede o caminho de devolução da resposta guardada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class IdempotencyFilterBenchmark {
+
+    private static final byte[] BODY = "{\"id\":1,\"versao\":0,\"modelo\":\"Mustang GT\"}".getBytes();
+    private static final AtomicLong KEYS = new AtomicLong();
+
+    IdempotencyFilter filter;
+
+    @Setup
+    public void setup() throws Exception {
+        Method insert = CarroResource.class.getMethod("insert", org.acme.Carro.class);
+        filter = new IdempotencyFilter();
+        filter.resourceInfo = Stubs.of(ResourceInfo.class, (method, args) -> "getResourceMethod".equals(method) ? insert : Stubs.DEFAULT);
+        filter.mapper = new ObjectMapper();
+        filter.journal = new IdempotencyJournal();
+        filter.maxBytes = 64L * 1024 * 1024;
+        filter.pendingTimeout = Duration.ofSeconds(30);
+        filter.registry = new SimpleMeterRegistry();
+        filter.init();
+
+        Request replayed = new Request("replay");
+        filter.filter(replayed.context);
+        filter.filter(replayed.context, replayed.response);
+    }
+
+    @State(Scope.Thread)
+    public static class Replay {
+        Request request;
+
+        @Setup
+        public void setup() {
+            request = new Request("replay");
+        }
+    }
+
+    @Benchmark
+    public void firstRequest(Blackhole blackhole) throws Exception {
+        Request request = new Request("chave-" + KEYS.incrementAndGet());
+        filter.filter(request.context);
+        filter.filter(request.context, request.response);
+        blackhole.consume(request.aborted);
+    }
+
+    @Benchmark
+    public void replay(Replay replay, Blackhole blackhole) throws Exception {
+        replay.request.aborted = null;
+        filter.filter(replay.request.context);
+        blackhole.consume(replay.request.aborted);
+    }
+
+    static final class Request {
+        final Map<String, Object> properties = new HashMap<>();
+        final ContainerRequestContext context;
+        final ContainerResponseContext response;
+        Response aborted;
+
+        Request(String key) {
+            UriInfo uriInfo = Stubs.of(UriInfo.class, (method, args) -> "getPath".equals(method) ? "/api/v1/carros" : Stubs.DEFAULT);
+            context = Stubs.of(ContainerRequestContext.class, (method, args) -> switch (method) {
+                case "getMethod" -> "POST";
+                case "getUriInfo" -> uriInfo;
+                case "getHeaderString" -> "X-Idempotency-Key".equals(args[0]) ? key : null;
+                case "getProperty" -> properties.get((String) args[0]);
+                case "setProperty" -> properties.put((String) args[0], args[1]);
+                case "abortWith" -> {
+                    aborted = (Response) args[0];
+                    yield null;
+                }
+                default -> Stubs.DEFAULT;
+            });
+            MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+            headers.put("Location", List.of("http://localhost:8080/api/v1/carros/1"));
+            response = Stubs.of(ContainerResponseContext.class, (method, args) -> switch (method) {
+                case "getStatus" -> 201;
+                case "getEntity" -> BODY;
+                case "getMediaType" -> MediaType.APPLICATION_JSON_TYPE;
+                case "getHeaders" -> headers;
+                case "getHeaderString" -> "Location".equals(args[0]) ? "http://localhost:8080/api/v1/carros/1" : null;
+                default -> Stubs.DEFAULT;
+            });
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.acme.loadtest;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Teste de carga em malha aberta: as requisições saem em instantes fixos, calculados a
+ * partir do RPS pedido, sem esperar as anteriores terminarem. Assim um servidor lento não
+ * reduz a carga oferecida e as filas aparecem na latência, medida desde o instante
+ * programado.
+ * <p>
+ * Sem {@code --url}, inicia o jar da aplicação numa porta livre (com o H2 em memória do
+ * perfil padrão) e o encerra no fim.
+ */
+public final class LoadTest {
+
+    private static final Path APP_LOG = Path.of("target/loadtest-app.log");
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(options.timeout())
+                .build();
+
+        Process app = null;
+        URI url = options.url();
+        try {
+            if (url == null) {
+                int port = freePort();
+                app = start(options, port);
+                url = URI.create("http://localhost:" + port);
+            }
+            awaitReady(client, url, app);
+
+            Workload workload = Workload.load(client, url, options);
+            System.out.printf("Carga de %.0f req/s em %s: aquecimento %ss, medição %ss, mix %s%n",
+                    options.rps(), url, options.warmup().toSeconds(), options.duration().toSeconds(), options.mix());
+
+            run(client, workload, options.rps(), options.warmup(), options.timeout(), null);
+            Report report = new Report();
+            long start = System.nanoTime();
+            run(client, workload, options.rps(), options.duration(), options.timeout(), report);
+            report.print(System.out, (System.nanoTime() - start) / 1e9);
+        } finally {
+            if (app != null) {
+                app.destroy();
+                if (!app.waitFor(30, TimeUnit.SECONDS)) app.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Dispara as requisições no ritmo pedido por {@code duration} e espera as pendentes.
+     *
+     * @param report onde registrar, ou null para descartar (aquecimento)
+     */
+    private static void run(HttpClient client, Workload workload, double rps, Duration duration, Duration timeout,
+                            Report report) throws InterruptedException {
+        AtomicInteger inFlight = new AtomicInteger();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double interval = 1e9 / rps;
+
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * interval);
+            if (intended >= end) break;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            Workload.Call call = workload.next();
+            inFlight.incrementAndGet();
+            client.sendAsync(call.request(), HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+                long latency = System.nanoTime() - intended;
+                if (report != null) report.record(call.endpoint(), latency, response != null ? response.statusCode() : -1);
+                if (response != null) call.onResponse().accept(response);
+                inFlight.decrementAndGet();
+            });
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) Thread.sleep(10);
+    }
+
+    private static Process start(Options options, int port) throws IOException {
+        if (!Files.exists(options.app())) {
+            throw new IOException(options.app() + " não existe. Rode ./mvnw package -DskipTests ou informe --url.");
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        // Com um único cliente, o limite por cliente devolveria 429 antes de o servidor saturar;
+        // um --app-arg -Dapi.rate-limit.enabled=true posterior volta a ligá-lo
+        command.add("-Dapi.rate-limit.enabled=false");
+        command.addAll(options.appArgs());
+        command.add("-Dquarkus.http.port=" + port);
+        command.add("-jar");
+        command.add(options.app().toString());
+
+        Files.createDirectories(APP_LOG.getParent());
+        System.out.println("Iniciando " + options.app() + " na porta " + port + " (log em " + APP_LOG + ")");
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(APP_LOG.toFile())
+                .start();
+    }
+
+    private static void awaitReady(HttpClient client, URI url, Process app) throws IOException, InterruptedException {
+        HttpRequest probe = HttpRequest.newBuilder(url.resolve("/api/v1/fabricantes")).timeout(Duration.ofSeconds(2)).GET().build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(90);
+        while (System.nanoTime() < deadline) {
+            if (app != null && !app.isAlive()) throw new IOException("A aplicação encerrou na inicialização; veja " + APP_LOG);
+            try {
+                if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) return;
+            } catch (IOException e) {
+                // Ainda subindo
+            }
+            Thread.sleep(250);
+        }
+        throw new IOException("A API em " + url + " não ficou pronta em 90s");
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
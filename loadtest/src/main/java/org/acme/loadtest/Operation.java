@@ -0,0 +1,15 @@
+package org.acme.loadtest;
+
+import java.util.Locale;
+
+enum Operation {
+    GET, SEARCH, INSERT, UPDATE, DELETE;
+
+    static Operation parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Operação desconhecida no mix: " + value + ". Use get, search, insert, update ou delete.");
+        }
+    }
+}
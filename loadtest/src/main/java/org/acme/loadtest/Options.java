@@ -0,0 +1,86 @@
+package org.acme.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opções de linha de comando, no formato {@code --nome valor}.
+ */
+record Options(URI url, Path app, List<String> appArgs, Path templates, double rps, Duration duration,
+               Duration warmup, Map<Operation, Integer> mix, int clients, Duration timeout) {
+
+    static final String USAGE = """
+            Uso: java -jar loadtest/target/loadtest.jar [opções]
+
+              --url URL          API já em execução; sem ela, a aplicação é iniciada a partir de --app
+              --app JAR          jar da aplicação (padrão target/quarkus-app/quarkus-run.jar)
+              --app-arg ARG      argumento extra da JVM da aplicação, ex. -Dapi.documents.enabled=false (repetível);
+                                 a aplicação iniciada aqui roda com -Dapi.rate-limit.enabled=false
+              --templates DIR    diretório com carro.json, acessorio.json e fabricante.json (padrão .)
+              --rps N            requisições por segundo, em malha aberta (padrão 200)
+              --duration D       duração da medição, ISO-8601 ou segundos (padrão PT60S)
+              --warmup D         carga antes da medição, descartada (padrão PT10S)
+              --mix LISTA        pesos por operação (padrão get=50,search=30,insert=8,update=8,delete=4)
+              --clients N        valores distintos de X-API-Key, loadtest-0 a loadtest-(N-1) (padrão 1); só separam
+                                 os buckets de rate limit quando listados em api.rate-limit.api-keys
+              --timeout D        tempo máximo de cada requisição (padrão PT10S)
+            """;
+
+    static Options parse(String[] args) {
+        URI url = null;
+        Path app = Path.of("target/quarkus-app/quarkus-run.jar");
+        List<String> appArgs = new ArrayList<>();
+        Path templates = Path.of(".");
+        double rps = 200;
+        Duration duration = Duration.ofSeconds(60);
+        Duration warmup = Duration.ofSeconds(10);
+        Map<Operation, Integer> mix = parseMix("get=50,search=30,insert=8,update=8,delete=4");
+        int clients = 1;
+        Duration timeout = Duration.ofSeconds(10);
+
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (name.equals("--help") || name.equals("-h")) throw new IllegalArgumentException(USAGE);
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Falta o valor de " + name + "\n\n" + USAGE);
+            String value = args[++i];
+            switch (name) {
+                case "--url" -> url = URI.create(value.endsWith("/") ? value.substring(0, value.length() - 1) : value);
+                case "--app" -> app = Path.of(value);
+                case "--app-arg" -> appArgs.add(value);
+                case "--templates" -> templates = Path.of(value);
+                case "--rps" -> rps = Double.parseDouble(value);
+                case "--duration" -> duration = duration(value);
+                case "--warmup" -> warmup = duration(value);
+                case "--mix" -> mix = parseMix(value);
+                case "--clients" -> clients = Integer.parseInt(value);
+                case "--timeout" -> timeout = duration(value);
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + name + "\n\n" + USAGE);
+            }
+        }
+        if (rps <= 0) throw new IllegalArgumentException("--rps deve ser maior que zero");
+        if (clients < 1) throw new IllegalArgumentException("--clients deve ser maior que zero");
+        return new Options(url, app, List.copyOf(appArgs), templates, rps, duration, warmup, mix, clients, timeout);
+    }
+
+    private static Duration duration(String value) {
+        return value.startsWith("P") ? Duration.parse(value) : Duration.ofMillis((long) (Double.parseDouble(value) * 1000));
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.split("=");
+            if (pair.length != 2) throw new IllegalArgumentException("Mix inválido: " + part);
+            int weight = Integer.parseInt(pair[1].strip());
+            if (weight < 0) throw new IllegalArgumentException("Peso negativo no mix: " + part);
+            if (weight > 0) mix.put(Operation.parse(pair[0].strip()), weight);
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("O mix precisa de ao menos uma operação");
+        return mix;
+    }
+}
@@ -0,0 +1,69 @@
+package org.acme.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latências por endpoint em histogramas HdrHistogram, medidas a partir do instante em que
+ * a requisição deveria ter saído (corrige a omissão coordenada), com contagem de erros e
+ * de 429.
+ */
+final class Report {
+
+    private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final Endpoint total = new Endpoint();
+
+    /**
+     * @param status código HTTP, ou -1 quando a requisição falhou sem resposta
+     */
+    void record(String endpoint, long latencyNanos, int status) {
+        endpoints.computeIfAbsent(endpoint, k -> new Endpoint()).record(latencyNanos, status);
+        total.record(latencyNanos, status);
+    }
+
+    void print(PrintStream out, double seconds) {
+        out.printf("%-38s %8s %9s %9s %9s %9s %9s %9s %7s %7s%n",
+                "endpoint", "reqs", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "erro %", "429 %");
+        for (Map.Entry<String, Endpoint> entry : new TreeMap<>(endpoints).entrySet()) {
+            entry.getValue().print(out, entry.getKey(), seconds);
+        }
+        total.print(out, "total", seconds);
+    }
+
+    private static final class Endpoint {
+        final Histogram latencies = new ConcurrentHistogram(1_000, HIGHEST_NANOS, 3);
+        final LongAdder count = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder throttled = new LongAdder();
+
+        void record(long latencyNanos, int status) {
+            latencies.recordValue(Math.max(1_000, Math.min(latencyNanos, HIGHEST_NANOS)));
+            count.increment();
+            if (status == 429) throttled.increment();
+            else if (status < 200 || status >= 400) errors.increment();
+        }
+
+        void print(PrintStream out, String name, double seconds) {
+            long requests = count.sum();
+            if (requests == 0) return;
+            out.printf("%-38s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7.2f %7.2f%n", name, requests, requests / seconds,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(90)),
+                    millis(latencies.getValueAtPercentile(99)), millis(latencies.getValueAtPercentile(99.9)),
+                    millis(latencies.getMaxValue()),
+                    100.0 * errors.sum() / requests, 100.0 * throttled.sum() / requests);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.acme.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Gera as requisições do mix a partir dos modelos JSON. Inserções levam uma chave de
+ * idempotência única e um nome único; alterações e exclusões só tocam registros criados
+ * pelo próprio teste, para não esbarrar nas regras de exclusão dos dados iniciais. Sem
+ * registros criados disponíveis, elas viram inserções.
+ */
+final class Workload {
+
+    record Call(String endpoint, HttpRequest request, Consumer<HttpResponse<String>> onResponse) {}
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final URI base;
+    private final Duration timeout;
+    private final int clients;
+    private final List<Target> targets;
+    private final Operation[] wheel;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private Workload(URI base, Options options, List<Target> targets) {
+        this.base = base;
+        this.timeout = options.timeout();
+        this.clients = options.clients();
+        this.targets = targets;
+        List<Operation> wheel = new ArrayList<>();
+        for (Map.Entry<Operation, Integer> entry : options.mix().entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) wheel.add(entry.getKey());
+        }
+        this.wheel = wheel.toArray(Operation[]::new);
+    }
+
+    /**
+     * Lê os modelos e os ids já existentes de cada recurso.
+     */
+    static Workload load(HttpClient client, URI base, Options options) throws IOException, InterruptedException {
+        List<Target> targets = List.of(
+                new Target("carros", "modelo", 100, template(options.templates().resolve("carro.json"))),
+                new Target("acessorios", "nome", 200, template(options.templates().resolve("acessorio.json"))),
+                new Target("fabricantes", "nome", 255, template(options.templates().resolve("fabricante.json"))));
+        for (Target target : targets) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/api/v1/" + target.path))
+                    .timeout(options.timeout()).GET().build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("GET /api/v1/" + target.path + " respondeu " + response.statusCode());
+            }
+            for (JsonNode item : MAPPER.readTree(response.body())) target.existing.add(item.get("id").asLong());
+            if (target.existing.isEmpty()) target.existing.add(1L);
+        }
+        return new Workload(base, options, targets);
+    }
+
+    Call next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Target target = targets.get(random.nextInt(targets.size()));
+        Operation operation = wheel[random.nextInt(wheel.length)];
+        long seq = sequence.incrementAndGet();
+        String collection = "/api/v1/" + target.path;
+
+        if (operation == Operation.UPDATE || operation == Operation.DELETE) {
+            Long id = operation == Operation.DELETE ? target.created.take(random) : target.created.peek(random);
+            if (id == null) operation = Operation.INSERT;
+            else if (operation == Operation.DELETE) {
+                return new Call("DELETE " + collection + "/{id}", request(collection + "/" + id, seq).DELETE().build(), r -> {
+                    if (r.statusCode() >= 400 && r.statusCode() != 404) target.created.add(id);
+                });
+            } else {
+                return new Call("PUT " + collection + "/{id}",
+                        request(collection + "/" + id, seq).PUT(body(target, seq)).header("Content-Type", "application/json").build(), r -> {});
+            }
+        }
+
+        return switch (operation) {
+            case GET -> new Call("GET " + collection + "/{id}",
+                    request(collection + "/" + target.existing.peek(random), seq).GET().build(), r -> {});
+            case SEARCH -> {
+                String term = target.terms.get(random.nextInt(target.terms.size()));
+                yield new Call("GET " + collection + "/search",
+                        request(collection + "/search?q=" + URLEncoder.encode(term, StandardCharsets.UTF_8), seq).GET().build(), r -> {});
+            }
+            default -> new Call("POST " + collection, request(collection, seq)
+                    .POST(body(target, seq))
+                    .header("Content-Type", "application/json")
+                    .header("X-Idempotency-Key", UUID.randomUUID().toString())
+                    .build(), r -> {
+                if (r.statusCode() == 201) {
+                    try {
+                        target.created.add(MAPPER.readTree(r.body()).get("id").asLong());
+                    } catch (IOException | NullPointerException ignored) {
+                        // Corpo sem id: o registro fica fora do pool de alterações
+                    }
+                }
+            });
+        };
+    }
+
+    private HttpRequest.Builder request(String path, long seq) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .header("X-API-Key", "loadtest-" + seq % clients);
+    }
+
+    private static HttpRequest.BodyPublisher body(Target target, long seq) {
+        ObjectNode node = target.template.deepCopy();
+        String name = node.path(target.nameField).asText("Carga") + " " + seq;
+        node.put(target.nameField, name.length() > target.nameMax ? name.substring(name.length() - target.nameMax) : name);
+        return HttpRequest.BodyPublishers.ofString(node.toString());
+    }
+
+    private static ObjectNode template(Path file) throws IOException {
+        return (ObjectNode) MAPPER.readTree(Files.readString(file));
+    }
+
+    private static final class Target {
+        final String path;
+        final String nameField;
+        final int nameMax;
+        final ObjectNode template;
+        final List<String> terms;
+        final IdPool existing = new IdPool();
+        final IdPool created = new IdPool();
+
+        Target(String path, String nameField, int nameMax, ObjectNode template) {
+            this.path = path;
+            this.nameField = nameField;
+            this.nameMax = nameMax;
+            this.template = template;
+            this.terms = terms(template);
+        }
+
+        /**
+         * Palavras dos textos do modelo, usadas como {@code q} nas pesquisas.
+         */
+        private static List<String> terms(JsonNode node) {
+            Set<String> terms = new LinkedHashSet<>();
+            for (JsonNode value : node) {
+                if (value.isObject()) terms.addAll(terms(value));
+                if (!value.isTextual()) continue;
+                for (String word : value.asText().toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                    if (word.length() >= 4) terms.add(word);
+                }
+            }
+            if (terms.isEmpty()) terms.add("a");
+            return List.copyOf(terms);
+        }
+    }
+
+    private static final class IdPool {
+        private final List<Long> ids = new ArrayList<>();
+
+        synchronized void add(long id) {
+            ids.add(id);
+        }
+
+        synchronized boolean isEmpty() {
+            return ids.isEmpty();
+        }
+
+        synchronized Long peek(ThreadLocalRandom random) {
+            return ids.isEmpty() ? null : ids.get(random.nextInt(ids.size()));
+        }
+
+        synchronized Long take(ThreadLocalRandom random) {
+            if (ids.isEmpty()) return null;
+            int index = random.nextInt(ids.size());
+            Long id = ids.get(index);
+            ids.set(index, ids.get(ids.size() - 1));
+            ids.remove(ids.size() - 1);
+            return id;
+        }
+    }
+}
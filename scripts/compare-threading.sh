@@ -0,0 +1,178 @@
+#!/usr/bin/env sh
+# Compara vazão e p99 dos resources em threads virtuais e no pool de workers.
+#
+# A diferença entre os modos só aparece quando a requisição espera pelo banco. Por isso:
+# - a base é populada antes de cada modo pelos POST .../bulk (o H2 é em memória);
+# - o modelo de leitura e os caches de pesquisa ficam desligados;
+# - cada requisição sorteia termo, tamanho e uma página dentro das linhas que casam, e
+#   todo termo sorteado está nos nomes gerados, então a pesquisa textual sempre vai ao H2.
+#
+# Com o pool de conexões saturado, a espera por conexão (acquisition-timeout) estoura
+# antes dos @Timeout; as respostas de @Fallback e as não-2xx são contadas à parte, e só
+# as 2xx de verdade entram na vazão. O p99 do wrk inclui todas.
+#
+# Uso: scripts/compare-threading.sh [conexões] [duração]
+# Requer o pacote já construído (./mvnw package -DskipTests), curl e o wrk no PATH.
+set -eu
+
+CONNECTIONS=${1:-256}
+DURATION=${2:-30s}
+THREADS=${THREADS:-4}
+PORT=${PORT:-8081}
+CARROS=${CARROS:-2000}
+FABRICANTES=${FABRICANTES:-500}
+ACESSORIOS=${ACESSORIOS:-50000}
+BATCH=1000
+BASE="http://localhost:$PORT/api/v1"
+JAR=target/quarkus-app/quarkus-run.jar
+OUT=target/threading
+SCRIPT=$OUT/uncached.lua
+mkdir -p "$OUT"
+
+[ -f "$JAR" ] || { echo "Rode ./mvnw package -DskipTests antes"; exit 1; }
+command -v wrk >/dev/null || { echo "wrk não encontrado no PATH"; exit 1; }
+
+# Mesmos termos da carga gerada em seed(), na mesma ordem
+TERMS="farol filtro spoiler central tapete led kit ar esportivo multimidia"
+
+# {q}, {page}, {size} e {id} no caminho são trocados a cada requisição; o segundo argumento
+# é quantas linhas casam com o caminho, para a página e o id caírem dentro delas
+cat > "$SCRIPT" <<'LUA'
+local terms = {"farol", "filtro", "spoiler", "central", "tapete", "led", "kit", "ar", "esportivo", "multimidia"}
+local threads = {}
+local template, rows
+ok, fallback, failed = 0, 0, 0
+
+setup = function(thread)
+    table.insert(threads, thread)
+    thread:set("seed", #threads)
+end
+
+init = function(args)
+    template = args[1]
+    rows = tonumber(args[2])
+    math.randomseed(os.time() * 100 + seed)
+end
+
+request = function()
+    local size = math.random(1, 50)
+    local pages = math.max(1, math.floor(rows / size))
+    local path = template
+        :gsub("{q}", terms[math.random(#terms)])
+        :gsub("{page}", tostring(math.random(0, pages - 1)))
+        :gsub("{size}", tostring(size))
+        :gsub("{id}", tostring(math.random(1, rows)))
+    return wrk.format("GET", path)
+end
+
+-- Os @Fallback respondem 200 com lista vazia (getAll) ou 503 "Serviço indisponível." (getById)
+response = function(status, headers, body)
+    if (status == 200 and body == "[]") or (status == 503 and body == "Serviço indisponível.") then
+        fallback = fallback + 1
+    elseif status >= 200 and status < 300 then
+        ok = ok + 1
+    else
+        failed = failed + 1
+    end
+end
+
+done = function(summary, latency, requests)
+    local totals = {ok = 0, fallback = 0, failed = 0}
+    for _, thread in ipairs(threads) do
+        for name in pairs(totals) do totals[name] = totals[name] + thread:get(name) end
+    end
+    local errors = summary.errors
+    io.write(string.format("ok %d %.2f fallback %d non2xx %d socket %d\n",
+        totals.ok, totals.ok / (summary.duration / 1e6), totals.fallback, totals.failed,
+        errors.connect + errors.read + errors.write + errors.timeout))
+end
+LUA
+
+# Lê um array JSON do stdin e grava pelo POST .../bulk; falha se algum item for recusado
+post_bulk() {
+    result=$(curl -sf -H 'Content-Type: application/json' -H "X-Idempotency-Key: seed-$1-$2-$$" \
+                  --data-binary @- "$BASE/$1/bulk") || { echo "Falha ao popular $1"; exit 1; }
+    case "$result" in *'"status":4'*) echo "Lote de $1 recusado: $result"; exit 1 ;; esac
+}
+
+# Gera $2 itens de $1 em lotes de $BATCH com o gerador awk $3 (recebe k, o índice global)
+seed_entity() {
+    i=0
+    while [ "$i" -lt "$2" ]; do
+        awk -v from="$i" -v to="$2" -v batch="$BATCH" -v terms="$TERMS" "
+            BEGIN {
+                split(terms, term, \" \")
+                last = from + batch < to ? from + batch : to
+                printf \"[\"
+                for (k = from; k < last; k++) {
+                    if (k > from) printf \",\"
+                    $3
+                }
+                printf \"]\"
+            }" | post_bulk "$1" "$i"
+        i=$((i + BATCH))
+    done
+}
+
+# Metade dos carros é do Brasil; cada acessório tem um termo da lista no nome, em rodízio,
+# então cada termo casa com ACESSORIOS/10 linhas
+seed() {
+    seed_entity carros "$CARROS" \
+        'printf "{\"modelo\":\"Carga %d\",\"paisDeMontagem\":\"%s\",\"dataDeFabricacao\":\"2020-01-01\"}", k, k % 2 ? "Alemanha" : "Brasil"'
+    seed_entity fabricantes "$FABRICANTES" \
+        'printf "{\"nome\":\"Fabricante %d\",\"detalhes\":\"Carga do comparativo\"}", k'
+    seed_entity acessorios "$ACESSORIOS" \
+        'printf "{\"nome\":\"%s %d\",\"descricao\":\"Carga do comparativo\",\"anoAquisicao\":%d,\"valor\":%d.5,\"tempoInstalacaoMinutos\":%d,\"carro\":{\"id\":%d},\"fabricantes\":[{\"id\":%d}]}", term[k % 10 + 1], k, 2000 + k % 25, k % 1000, k % 120, 1 + k % 5, 1 + k % 6'
+}
+
+run() {
+    mode=$1
+    enabled=$2
+    # O limite de requisições sairia na frente do pool: desliga para medir só o servidor
+    java -Dquarkus.http.port="$PORT" \
+         -Dquarkus.virtual-threads.enabled="$enabled" \
+         -Dquarkus.hibernate-orm.log.sql=false \
+         -Dapi.rate-limit.enabled=false \
+         -Dapi.documents.enabled=false \
+         -D'quarkus.cache.caffeine."search-acessorios".maximum-size=0' \
+         -D'quarkus.cache.caffeine."search-carros".maximum-size=0' \
+         -D'quarkus.cache.caffeine."search-fabricantes".maximum-size=0' \
+         -Djdk.tracePinnedThreads=short \
+         -jar "$JAR" > "$OUT/$mode-app.log" 2>&1 &
+    pid=$!
+    trap 'kill $pid 2>/dev/null' EXIT
+
+    until curl -sf "$BASE/carros/1" >/dev/null; do sleep 1; done
+    seed
+    # Linhas do import.sql somam-se às geradas: os limites abaixo ficam dentro das que casam
+    acessorios=$((ACESSORIOS + 5))
+    porTermo=$((ACESSORIOS / 10))
+    brasil=$((CARROS / 2))
+    fabricantes=$((FABRICANTES + 6))
+
+    # Aquecimento do JIT antes da medição
+    wrk -t"$THREADS" -c32 -d10s -s "$SCRIPT" "http://localhost:$PORT" -- "/api/v1/acessorios/search?q={q}&page={page}&size={size}" "$porTermo" >/dev/null
+
+    for entry in "acessorios/{id} $acessorios" "acessorios/search?q={q}&page={page}&size={size} $porTermo" \
+                 "carros/search?paisDeMontagem=Brasil&page={page}&size={size} $brasil" \
+                 "fabricantes/search?sort=nome&page={page}&size={size} $fabricantes"; do
+        path=${entry% *}
+        rows=${entry##* }
+        name=$(echo "$path" | tr -d '{}' | tr '/?=&' '____')
+        wrk -t"$THREADS" -c"$CONNECTIONS" -d"$DURATION" --latency -s "$SCRIPT" "http://localhost:$PORT" -- "/api/v1/$path" "$rows" > "$OUT/$mode-$name.txt"
+        printf '%-8s %-55s %10s ok/s  p99 %-9s fallback %-7s não-2xx %-7s socket %s\n' "$mode" "$path" \
+            "$(awk '$1 == "ok" {print $3}' "$OUT/$mode-$name.txt")" \
+            "$(awk '$1 == "99%" {print $2}' "$OUT/$mode-$name.txt")" \
+            "$(awk '$1 == "ok" {print $5}' "$OUT/$mode-$name.txt")" \
+            "$(awk '$1 == "ok" {print $7}' "$OUT/$mode-$name.txt")" \
+            "$(awk '$1 == "ok" {print $9}' "$OUT/$mode-$name.txt")"
+    done
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run workers false
+run virtual true
+echo "Saídas completas do wrk e logs (inclusive pinning) em $OUT"
@@ -1,13 +1,28 @@
 package org.acme;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer"})
+@Table(indexes = {
+        @Index(name = "idx_acessorio_nome_id", columnList = "nome, id"),
+        @Index(name = "idx_acessorio_descricao_id", columnList = "descricao, id"),
+        @Index(name = "idx_acessorio_ano_id", columnList = "anoAquisicao, id"),
+        @Index(name = "idx_acessorio_valor_id", columnList = "valor, id"),
+        @Index(name = "idx_acessorio_tempo_id", columnList = "tempoInstalacaoMinutos, id"),
+        @Index(name = "idx_acessorio_carro_id", columnList = "carro_id, id")
+})
 public class Acessorio extends PanacheEntityBase {
 
     @Id
@@ -15,6 +30,12 @@ public class Acessorio extends PanacheEntityBase {
     @Schema(readOnly = true, example = "1")
     public Long id;
 
+    @Version
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(readOnly = true, example = "0")
+    public long versao;
+
     @NotBlank(message = "O nome do acessório não pode ser vazio")
     @Size(min = 1, max = 200)
     public String nome;
@@ -33,16 +54,20 @@ public class Acessorio extends PanacheEntityBase {
     @Min(value = 0, message = "Tempo de instalação não pode ser negativo")
     public int tempoInstalacaoMinutos;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "carro_id")
+    @JsonSerialize(using = LazyAssociations.Reference.class)
     public Carro carro;
 
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(
             name = "acessorio_fabricante",
             joinColumns = @JoinColumn(name = "acessorio_id"),
-            inverseJoinColumns = @JoinColumn(name = "fabricante_id")
+            inverseJoinColumns = @JoinColumn(name = "fabricante_id"),
+            indexes = @Index(name = "idx_acessorio_fabricante_fabricante", columnList = "fabricante_id, acessorio_id")
     )
+    @JsonSerialize(using = LazyAssociations.Collection.class)
     public Set<Fabricante> fabricantes = new HashSet<>();
 
     public Acessorio() {}
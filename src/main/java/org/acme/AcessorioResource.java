@@ -1,20 +1,52 @@
 package org.acme;
 
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.panache.common.Sort;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriBuilder;
+import jakarta.ws.rs.core.UriInfo;
 
+import org.acme.bulk.BulkDeleteResult;
+import org.acme.bulk.BulkDeleter;
+import org.acme.bulk.BulkInserter;
+import org.acme.bulk.BulkItemResult;
+import org.acme.document.Document;
+import org.acme.document.DocumentStore;
+import org.acme.etag.EntityTags;
+import org.acme.event.EntityChanged;
+import org.acme.export.NdjsonExporter;
+import org.acme.format.BinaryFormats;
 import org.acme.idempotency.Idempotent;
+import org.acme.search.AcessorioColumns;
+import org.acme.search.AcessorioFilter;
+import org.acme.search.Criteria;
+import org.acme.search.EntityCounts;
+import org.acme.search.Expand;
+import org.acme.search.Fields;
+import org.acme.search.Keyset;
+import org.acme.search.Paging;
+import org.acme.search.SearchCache;
+import org.acme.search.SearchIndex;
+import org.acme.search.TextIndex;
+import org.acme.stats.AcessorioStats;
+import org.acme.usage.UsageCounts;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
 import org.eclipse.microprofile.faulttolerance.Fallback;
 import org.eclipse.microprofile.faulttolerance.Timeout;
-import io.smallrye.faulttolerance.api.RateLimit;
 import java.time.temporal.ChronoUnit;
 
 import org.eclipse.microprofile.openapi.annotations.Operation;
@@ -27,31 +59,146 @@ import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
+@RunOnVirtualThread
 @Path("/api/v1/acessorios")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE})
+@Consumes({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE})
 public class AcessorioResource {
 
+    private static final Set<String> FIELDS = Set.of(
+            "id", "versao", "nome", "descricao", "anoAquisicao", "valor", "tempoInstalacaoMinutos");
+
+    private static final Fields IDS = Fields.parse("id", "Acessorio", FIELDS);
+
+    private static final Set<String> EXPANDS = Set.of("carro", "carro.fichaTecnica", "fabricantes");
+    private static final Set<String> COLLECTIONS = Set.of("fabricantes");
+
+    private static final Map<String, Class<?>> SORT_FIELDS = Map.of(
+            "id", Long.class,
+            "nome", String.class,
+            "descricao", String.class,
+            "anoAquisicao", Integer.class,
+            "valor", Double.class,
+            "tempoInstalacaoMinutos", Integer.class);
+
+    @Context
+    UriInfo uriInfo;
+
+    @Context
+    Request request;
+
+    @Context
+    HttpHeaders headers;
+
+    @Inject
+    EntityTags tags;
+
+    @Inject
+    DocumentStore documents;
+
+    @Inject
+    SearchIndex searchIndex;
+
+    @Inject
+    SearchCache searchCache;
+
+    @Inject
+    EntityCounts counts;
+
+    @Inject
+    Event<EntityChanged> changes;
+
+    @Inject
+    NdjsonExporter exporter;
+
+    @Inject
+    BulkInserter bulkInserter;
+
+    @Inject
+    BulkDeleter bulkDeleter;
+
+    @ConfigProperty(name = "api.search.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @Inject
+    UsageCounts usage;
+
+    @Inject
+    AcessorioStats stats;
+
+    @Inject
+    AcessorioColumns columns;
+
     @GET
     @Operation(summary = "Retorna todos os acessórios", description = "Retorna uma lista de acessórios.")
     @APIResponse(responseCode = "200", description = "Sucesso", content = @Content(schema = @Schema(implementation = Acessorio.class, type = SchemaType.ARRAY)))
-    @RateLimit(value = 10, window = 10, windowUnit = ChronoUnit.SECONDS)
     @Timeout(value = 800, unit = ChronoUnit.MILLIS)
     @CircuitBreaker(requestVolumeThreshold = 5, failureRatio = 0.6, delay = 5000)
     @Fallback(fallbackMethod = "fallbackGetAll")
-    public Response getAll(){
-        return Response.ok(Acessorio.listAll()).build();
+    public Response getAll(@Parameter(description = Fields.DESCRIPTION) @QueryParam("fields") String fields,
+                           @Parameter(description = Expand.DESCRIPTION) @QueryParam("expand") String expand){
+        Fields projection;
+        Expand expansion;
+        try {
+            projection = Fields.parse(fields, "Acessorio", FIELDS);
+            expansion = Expand.parse(expand, EXPANDS, projection);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        EntityTag tag = tags.list(Acessorio.class, Carro.class, Fabricante.class);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if(notModified != null) return notModified.tag(tag).build();
+        if(projection == null && json() && expansion.isEmpty() && documents.isEnabled()) return Response.ok(documents.array(Acessorio.class)).tag(tag).build();
+        if(projection == null) return Response.ok(load(expansion, Acessorio.findAll())).tag(tag).build();
+        return Response.ok(Fields.rows(Acessorio.find(projection.query(""))).list()).tag(tag).build();
     }
 
-    public Response fallbackGetAll() {
+    public Response fallbackGetAll(String fields, String expand) {
         return Response.ok(Collections.emptyList()).build();
     }
 
+    @GET
+    @Path("/export")
+    @Produces(NdjsonExporter.APPLICATION_NDJSON)
+    @Operation(summary = "Exporta todos os acessórios em NDJSON", description = "Um acessório por linha, escrito em blocos de api.export.chunk-size depois de carregar os fabricantes de cada bloco.")
+    public Response export(){
+        return Response.ok(exporter.stream(Acessorio.class,
+                "from Acessorio a left join fetch a.carro c left join fetch c.fichaTecnica order by a.id",
+                "select distinct a from Acessorio a left join fetch a.fabricantes where a.id in :ids")).build();
+    }
+
+    @GET
+    @Path("/stats")
+    @Operation(summary = "Estatísticas de valor e tempo de instalação", description = "Contagem, soma, mínimo, máximo, média e percentis p50/p95/p99 (erro relativo de até 1%) por grupo.")
+    @APIResponse(responseCode = "200", description = "Sucesso", content = @Content(schema = @Schema(implementation = AcessorioStats.Group.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "400", description = "groupBy inválido")
+    public Response stats(
+            @Parameter(description = "carro, fabricante ou anoAquisicao. Sem groupBy, um único grupo com todos os acessórios.")
+            @QueryParam("groupBy") String groupBy
+    ){
+        AcessorioStats.GroupBy grouping;
+        try {
+            grouping = AcessorioStats.GroupBy.parse(groupBy);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        EntityTag tag = tags.list(Acessorio.class, Carro.class, Fabricante.class);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if(notModified != null) return notModified.tag(tag).build();
+        return Response.ok(stats.get(grouping, tag.getValue())).tag(tag).build();
+    }
+
     @GET
     @Path("{id}")
     @Operation(summary = "Retorna um acessório por ID")
@@ -59,54 +206,205 @@ public class AcessorioResource {
     @APIResponse(responseCode = "404", description = "Não encontrado")
     @Timeout(value = 500, unit = ChronoUnit.MILLIS)
     @Fallback(fallbackMethod = "fallbackGetById")
-    public Response getById(@PathParam("id") long id){
-        Acessorio entity = Acessorio.findById(id);
+    public Response getById(@PathParam("id") long id,
+                            @Parameter(description = Fields.DESCRIPTION) @QueryParam("fields") String fields,
+                            @Parameter(description = Expand.DESCRIPTION) @QueryParam("expand") String expand){
+        Fields projection;
+        Expand expansion;
+        try {
+            projection = Fields.parse(fields, "Acessorio", FIELDS);
+            expansion = Expand.parse(expand, EXPANDS, projection);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        // O documento já traz o ETag: a resposta padrão, e o 304, saem sem consulta ao banco.
+        Document document = projection == null && expansion.isEmpty() ? documents.get(Acessorio.class, id) : null;
+        if(document != null) {
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(document.tag());
+            if(notModified != null) return notModified.tag(document.tag()).build();
+            return Response.ok(json() ? document.bytes() : document).tag(document.tag()).build();
+        }
+
+        EntityTag tag = tags.acessorio(id);
+        if(tag == null) return Response.status(Response.Status.NOT_FOUND).build();
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if(notModified != null) return notModified.tag(tag).build();
+
+        Object entity;
+        if(projection != null) entity = Fields.rows(Acessorio.find(projection.query("id = ?1"), id)).firstResult();
+        else if(expansion.isEmpty()) entity = Acessorio.findById(id);
+        else entity = load(expansion, Acessorio.find("id = ?1", id)).stream().findFirst().orElse(null);
         if(entity == null) return Response.status(Response.Status.NOT_FOUND).build();
-        return Response.ok(entity).build();
+        return Response.ok(entity).tag(tag).build();
     }
 
-    public Response fallbackGetById(long id) {
+    public Response fallbackGetById(long id, String fields, String expand) {
         return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity("Serviço indisponível.").build();
     }
 
     @GET
     @Operation(summary = "Pesquisa acessórios")
     @APIResponse(responseCode = "200", description = "Sucesso", content = @Content(schema = @Schema(implementation = SearchAcessorioResponse.class)))
+    @APIResponse(responseCode = "400", description = "Cursor inválido")
     @Path("/search")
     public Response search(
             @QueryParam("q") String q,
-            @QueryParam("sort") @DefaultValue("id") String sort,
+            @Parameter(description = "Campo de ordenação. Com q, o padrão é relevancia.")
+            @QueryParam("sort") String sort,
             @QueryParam("direction") @DefaultValue("asc") String direction,
             @QueryParam("page") @DefaultValue("0") int page,
-            @QueryParam("size") @DefaultValue("4") int size
+            @QueryParam("size") @DefaultValue("4") int size,
+            @Parameter(description = "Cursor da página anterior (veja NextPage). Vazio inicia a paginação por cursor, sem totais.")
+            @QueryParam("after") String after,
+            @Parameter(description = "Total da resposta: exact, estimate (só contadores em memória ou o índice, sem COUNT) ou none.")
+            @QueryParam("count") @DefaultValue("exact") String count,
+            @Parameter(description = Fields.DESCRIPTION)
+            @QueryParam("fields") String fields,
+            @Parameter(description = Expand.DESCRIPTION)
+            @QueryParam("expand") String expand,
+            @BeanParam AcessorioFilter filter
     ){
-        Set<String> allowed = Set.of("id", "nome", "descricao", "anoAquisicao", "valor", "tempoInstalacaoMinutos");
-        if(!allowed.contains(sort)) sort = "id";
+        EntityTag tag = tags.list(Acessorio.class, Carro.class, Fabricante.class);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if(notModified != null) return notModified.tag(tag).build();
+
+        String query = q != null && !q.isBlank() ? q.strip().toLowerCase(Locale.ROOT) : null;
+        boolean textual = query != null && !isNumber(query);
+        if(sort == null) sort = textual ? Paging.RELEVANCE : "id";
+        String field = SORT_FIELDS.containsKey(sort) || (textual && Paging.RELEVANCE.equals(sort)) ? sort : "id";
+        boolean desc = "desc".equalsIgnoreCase(direction);
+        String cursor = Paging.after(after, uriInfo);
+
+        Paging.Count counting;
+        Fields projection;
+        Expand expansion;
+        try {
+            Paging.validate(page, size);
+            Paging.validate(cursor, field, Paging.RELEVANCE.equals(field) ? Double.class : SORT_FIELDS.get(field));
+            counting = Paging.Count.parse(count);
+            projection = Fields.parse(fields, "Acessorio", FIELDS);
+            expansion = Expand.parse(expand, EXPANDS, projection);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        MediaType format = BinaryFormats.negotiate(headers.getAcceptableMediaTypes());
+        String key = SearchCache.key(tag.getValue(), query, field, desc, page, size, cursor, counting, projection, expansion) + '|' + filter;
+        byte[] body = searchCache.get(SearchCache.ACESSORIOS, key, format, () -> executeSearch(query, field, desc, page, size, cursor, counting, projection, expansion, filter));
+        return Response.ok(body, format).tag(tag).build();
+    }
+
+    /**
+     * Os documentos prontos só servem quando a resposta negociada é JSON.
+     */
+    private boolean json() {
+        return !BinaryFormats.isBinary(BinaryFormats.negotiate(headers.getAcceptableMediaTypes()));
+    }
+
+    private SearchAcessorioResponse executeSearch(String q, String sort, boolean desc, int page, int size, String after, Paging.Count count,
+                                                   Fields fields, Expand expand, AcessorioFilter filter) {
+        Criteria criteria = new Criteria();
+        List<TextIndex.Hit> hits = null;
+        if (q != null && isNumber(q)) {
+            criteria.and("anoAquisicao = :numero or tempoInstalacaoMinutos = :numero").param("numero", Integer.parseInt(q));
+        } else if (q != null) {
+            hits = searchIndex.acessorios().search(q);
+        }
+        // Sem texto, o motor colunar devolve os ids em ordem crescente: a ordem padrão já sai pronta.
+        boolean idOrder = hits == null && criteria.isEmpty() && "id".equals(sort) && !desc;
+        boolean ranked = hits != null && Paging.RELEVANCE.equals(sort);
+        long filtered = -1;
+        if (!filter.isEmpty()) {
+            // Os ids do motor colunar só são usados quando já estão na ordem da página; em
+            // qualquer outra ordem o banco filtra e pagina, e os bitmaps só dão o total.
+            if (columns.isEnabled() && (idOrder || ranked)) {
+                hits = columns.restrict(hits, filter);
+            } else if (!columns.isEnabled() && ranked) {
+                hits = Paging.restrict(hits, filter.apply(new Criteria()), chunkSize, AcessorioResource::ids);
+            } else {
+                if (columns.isEnabled() && hits == null && criteria.isEmpty()) filtered = columns.count(filter);
+                filter.apply(criteria);
+            }
+        }
+        idOrder &= hits != null;
+        long known = !criteria.isEmpty() ? filtered : hits != null ? hits.size() : counts.get(Acessorio.class);
+        String nextPage = uriInfo.getRequestUriBuilder().replaceQueryParam("page", page + 1).replaceQueryParam("size", size).build().toString();
+        // Na forma padrão o banco só devolve os ids da página; o JSON vem do modelo de leitura.
+        boolean rendered = fields == null && expand.isEmpty() && documents.isEnabled();
+        Fields selected = rendered ? IDS : fields;
 
-        Sort sortObj = Sort.by(sort, "desc".equalsIgnoreCase(direction) ? Sort.Direction.Descending : Sort.Direction.Ascending);
-        PanacheQuery<Acessorio> query;
+        Function<List<Long>, List<Object>> loader =
+                ids -> rendered ? documents.get(Acessorio.class, ids) : expanded(expand, Acessorio.find(Fields.select(fields, "id in ?1"), ids)).list();
 
-        if (q == null || q.isBlank()) {
-            query = Acessorio.findAll(sortObj);
+        Paging.Page<Object> result;
+        if (hits != null && (hits.isEmpty() || idOrder || Paging.RELEVANCE.equals(sort))) {
+            result = Paging.relevance(hits, page, size, after, uriInfo, nextPage, count, loader);
+        } else if (hits != null) {
+            // Com texto e outra ordem, os resultados são ordenados em memória, lidos em blocos
+            List<Paging.Keyed> sorted = Paging.sort(hits, criteria, desc, chunkSize, c -> keyed(sort, c));
+            result = Paging.sorted(sorted, sort, SORT_FIELDS.get(sort), desc, page, size, after, uriInfo, nextPage, count, loader);
         } else {
-            try {
-                int numero = Integer.parseInt(q);
-                query = Acessorio.find("anoAquisicao = ?1 or tempoInstalacaoMinutos = ?1", sortObj, numero);
-            } catch (NumberFormatException e) {
-                query = Acessorio.find("lower(nome) like ?1", sortObj, "%" + q.toLowerCase() + "%");
+            Sort sortObj = Keyset.sort(sort, desc);
+            if (after != null) {
+                Fields keyed = selected != null ? selected.with(sort) : null;
+                result = Paging.cursor(criteria, sort, desc, SORT_FIELDS.get(sort), after, size, uriInfo,
+                        c -> expanded(expand, Acessorio.find(Fields.select(keyed, c.query()), sortObj, c.params())));
+            } else {
+                result = Paging.offset(expanded(expand, Acessorio.find(Fields.select(selected, criteria.query()), sortObj, criteria.params())),
+                        page, size, nextPage, count, known);
             }
         }
 
-        List<Acessorio> acessorios = query.page(page, size).list();
+        fetchFabricantes(expand, result.items());
+
         var response = new SearchAcessorioResponse();
-        response.Acessorios = acessorios;
-        response.TotalAcessorios = (int) query.count();
-        response.TotalPages = query.pageCount();
-        response.HasMore = page < query.pageCount() - 1;
+        response.Acessorios = rendered ? documents.get(Acessorio.class, result.items()) : result.items();
+        response.TotalAcessorios = result.total();
+        response.TotalPages = result.totalPages();
+        response.HasMore = result.hasMore();
+        response.NextPage = result.nextPage();
+        return response;
+    }
+
+    /**
+     * Linhas {@code [id, valor]} do campo de ordenação, já validado contra SORT_FIELDS.
+     */
+    private static List<?> keyed(String sort, Criteria criteria) {
+        return Fields.rows(Acessorio.find("select id, " + sort + " from Acessorio where " + criteria.query(), criteria.params())).list();
+    }
+
+    private static List<?> ids(Criteria criteria) {
+        return Fields.rows(Acessorio.find("select id from Acessorio where " + criteria.query(), criteria.params())).list();
+    }
+
+    private static PanacheQuery<Object> expanded(Expand expand, PanacheQuery<Acessorio> query) {
+        return Fields.rows(expand.apply(query, Acessorio.getEntityManager(), Acessorio.class, COLLECTIONS));
+    }
 
-        response.NextPage = response.HasMore ? "http://localhost:8080/api/v1/acessorios/search?q="+(q != null ? q : "")+"&page="+(page + 1) + "&size="+size : "";
+    /**
+     * Carrega as associações de {@code expand}: as to-one no JOIN da própria query e os
+     * fabricantes de todos os itens numa segunda query.
+     */
+    private static List<Object> load(Expand expand, PanacheQuery<Acessorio> query) {
+        List<Object> items = expanded(expand, query).list();
+        fetchFabricantes(expand, items);
+        return items;
+    }
 
-        return Response.ok(response).build();
+    private static void fetchFabricantes(Expand expand, List<?> items) {
+        if (!expand.has("fabricantes") || items.isEmpty()) return;
+        List<Long> ids = new ArrayList<>(items.size());
+        for (Object item : items) ids.add(((Acessorio) item).id);
+        Acessorio.find("select distinct a from Acessorio a left join fetch a.fabricantes where a.id in ?1", ids).list();
+    }
+
+    private static boolean isNumber(String q) {
+        try {
+            Integer.parseInt(q);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
     }
 
     @POST
@@ -143,19 +441,52 @@ public class AcessorioResource {
         }
 
         Acessorio.persist(acessorio);
+        usage.added(acessorio.carro != null ? acessorio.carro.id : null, UsageCounts.ids(acessorio.fabricantes));
+        changes.fire(EntityChanged.created(Acessorio.class, acessorio.id, acessorio));
         URI location = UriBuilder.fromResource(AcessorioResource.class).path("{id}").build(acessorio.id);
         return Response.created(location).entity(acessorio).build();
     }
 
+    @POST
+    @Path("/bulk")
+    @Operation(summary = "Cria acessórios em lote", description = "Itens inválidos são recusados individualmente; os demais são gravados na mesma transação.")
+    @Parameter(name = "X-Idempotency-Key", in = ParameterIn.HEADER, required = true, description = "Chave de idempotência")
+    @RequestBody(required = true, content = @Content(schema = @Schema(implementation = Acessorio.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "200", description = "Resultado por item", content = @Content(schema = @Schema(implementation = BulkItemResult.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "400", description = "Lista vazia")
+    @Transactional
+    @Idempotent
+    public Response insertBulk(List<Acessorio> acessorios){
+        if(acessorios == null || acessorios.isEmpty()) return Response.status(Response.Status.BAD_REQUEST).entity("A lista não pode ser vazia").build();
+        return Response.ok(bulkInserter.acessorios(acessorios)).build();
+    }
+
+    @DELETE
+    @Path("/bulk")
+    @Operation(summary = "Remove acessórios em lote", description = "Os ids no corpo ou todos os acessórios de um carro (carroId). Vínculos com fabricantes e acessórios saem em poucos comandos por conjunto.")
+    @RequestBody(content = @Content(schema = @Schema(implementation = Long.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "200", description = "Ids removidos e não encontrados", content = @Content(schema = @Schema(implementation = BulkDeleteResult.class)))
+    @APIResponse(responseCode = "400", description = "Nem ids nem carroId, ou os dois")
+    @Transactional
+    public Response deleteBulk(@QueryParam("carroId") Long carroId, List<Long> ids){
+        boolean porIds = ids != null && !ids.isEmpty();
+        if(porIds == (carroId != null)) return Response.status(Response.Status.BAD_REQUEST).entity("Informe a lista de ids ou carroId").build();
+        return Response.ok(porIds ? bulkDeleter.acessorios(ids) : bulkDeleter.acessoriosDoCarro(carroId)).build();
+    }
+
     @DELETE
     @Path("{id}")
     @Transactional
     public Response delete(@PathParam("id") long id){
         Acessorio entity = Acessorio.findById(id);
         if(entity == null) return Response.status(Response.Status.NOT_FOUND).build();
+        Response.ResponseBuilder failed = request.evaluatePreconditions(tags.acessorio(id));
+        if(failed != null) return failed.build();
+        usage.removed(entity.carro != null ? entity.carro.id : null, UsageCounts.ids(entity.fabricantes));
         entity.fabricantes.clear();
         entity.persist();
         Acessorio.deleteById(id);
+        changes.fire(EntityChanged.deleted(Acessorio.class, id));
         return Response.noContent().build();
     }
 
@@ -165,6 +496,10 @@ public class AcessorioResource {
     public Response update(@PathParam("id") long id, @Valid Acessorio newAcessorio){
         Acessorio entity = Acessorio.findById(id);
         if(entity == null) return Response.status(Response.Status.NOT_FOUND).build();
+        Response.ResponseBuilder failed = request.evaluatePreconditions(tags.acessorio(id));
+        if(failed != null) return failed.build();
+        Long carroAntes = entity.carro != null ? entity.carro.id : null;
+        Set<Long> fabricantesAntes = UsageCounts.ids(entity.fabricantes);
 
         entity.nome = newAcessorio.nome;
         entity.descricao = newAcessorio.descricao;
@@ -174,7 +509,7 @@ public class AcessorioResource {
 
         if(newAcessorio.carro != null && newAcessorio.carro.id != null){
             Carro a = Carro.findById(newAcessorio.carro.id);
-            if(a == null) return Response.status(Response.Status.BAD_REQUEST).build();
+            if(a == null) return rollback(Response.status(Response.Status.BAD_REQUEST).build());
             entity.carro = a;
         } else {
             entity.carro = null;
@@ -186,12 +521,25 @@ public class AcessorioResource {
                 if(g == null || g.id == null || g.id.longValue() == 0) continue;
 
                 Fabricante fetched = Fabricante.findById(g.id);
-                if(fetched == null) return Response.status(Response.Status.BAD_REQUEST).build();
+                if(fetched == null) return rollback(Response.status(Response.Status.BAD_REQUEST).build());
                 resolved.add(fetched);
             }
             entity.fabricantes = resolved;
         }
 
-        return Response.ok(entity).build();
+        usage.moved(carroAntes, fabricantesAntes, entity.carro != null ? entity.carro.id : null, UsageCounts.ids(entity.fabricantes));
+        changes.fire(EntityChanged.updated(Acessorio.class, entity.id, entity));
+
+        Acessorio.flush();
+        return Response.ok(entity).tag(tags.acessorio(id)).build();
+    }
+
+    /**
+     * A atualização já alterou a entidade quando uma referência se mostra inválida: desfaz
+     * tudo para que nada, nem os contadores de uso, fique pela metade.
+     */
+    private static Response rollback(Response response) {
+        QuarkusTransaction.setRollbackOnly();
+        return response;
     }
-}
\ No newline at end of file
+}
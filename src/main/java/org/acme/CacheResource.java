@@ -0,0 +1,64 @@
+package org.acme;
+
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.acme.search.SearchCache;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@Path("/api/v1/cache")
+@Produces(MediaType.APPLICATION_JSON)
+public class CacheResource {
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    @Inject
+    SearchCache searchCache;
+
+    @GET
+    @Path("/entidades")
+    @Operation(summary = "Estatísticas do cache de segundo nível", description = "Acertos, falhas e itens em memória por região (entidade, coleção ou resultados de consulta).")
+    public Response entidades(){
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, RegionStats> regions = new TreeMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+            if (stats != null) regions.put(region, new RegionStats(stats));
+        }
+        return Response.ok(regions).build();
+    }
+
+    @GET
+    @Path("/pesquisas")
+    @Operation(summary = "Estatísticas do cache de pesquisas", description = "Acertos, falhas e entradas por cache de resultados de /search.")
+    public Response pesquisas(){
+        return Response.ok(searchCache.stats()).build();
+    }
+
+    public static class RegionStats {
+        public long hits;
+        public long misses;
+        public long puts;
+        public long elementsInMemory;
+        public double hitRatio;
+
+        public RegionStats(CacheRegionStatistics stats) {
+            this.hits = stats.getHitCount();
+            this.misses = stats.getMissCount();
+            this.puts = stats.getPutCount();
+            this.elementsInMemory = stats.getElementCountInMemory();
+            long lookups = hits + misses;
+            this.hitRatio = lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+}
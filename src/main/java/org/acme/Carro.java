@@ -1,21 +1,38 @@
 package org.acme;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import org.hibernate.annotations.ColumnDefault;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer"})
+@Cacheable
+@Table(indexes = {
+        @Index(name = "idx_carro_modelo_id", columnList = "modelo, id"),
+        @Index(name = "idx_carro_fabricacao_id", columnList = "dataDeFabricacao, id"),
+        @Index(name = "idx_carro_pais_id", columnList = "paisDeMontagem, id")
+})
 public class Carro extends PanacheEntityBase {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Schema(readOnly = true, example = "1")
     public Long id;
 
+    @Version
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(readOnly = true, example = "0")
+    public long versao;
+
     @NotBlank(message = "O modelo do carro não pode ser vazio")
     @Size(min = 2, max = 100, message = "O modelo deve ter entre 2 e 100 caracteres")
     public String modelo;
@@ -29,10 +46,20 @@ public class Carro extends PanacheEntityBase {
     @Size(max = 80)
     public String paisDeMontagem;
 
-    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToOne(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JoinColumn(name = "ficha_tecnica_id")
+    @JsonSerialize(using = LazyAssociations.Reference.class)
     public FichaTecnica fichaTecnica;
 
+    /**
+     * Acessórios deste carro. Mantido por {@link org.acme.usage.UsageCounts} direto no banco;
+     * leia por consulta, porque a entidade pode vir do cache de segundo nível.
+     */
+    @Column(insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    public long quantidadeAcessorios;
+
     @OneToMany(mappedBy = "carro", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @JsonIgnore
     public List<Acessorio> acessorios = new ArrayList<>();
@@ -2,19 +2,47 @@ package org.acme;
 
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.panache.common.Sort;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriBuilder;
+import jakarta.ws.rs.core.UriInfo;
 
+import org.acme.bulk.BulkDeleteResult;
+import org.acme.bulk.BulkDeleter;
+import org.acme.bulk.BulkInserter;
+import org.acme.bulk.BulkItemResult;
+import org.acme.document.Document;
+import org.acme.document.DocumentStore;
+import org.acme.etag.EntityTags;
+import org.acme.event.EntityChanged;
+import org.acme.export.NdjsonExporter;
+import org.acme.format.BinaryFormats;
 import org.acme.idempotency.Idempotent;
+import org.acme.search.CarroFilter;
+import org.acme.search.Criteria;
+import org.acme.search.EntityCounts;
+import org.acme.search.Expand;
+import org.acme.search.Fields;
+import org.acme.search.Keyset;
+import org.acme.search.Paging;
+import org.acme.search.SearchCache;
+import org.acme.search.SearchIndex;
+import org.acme.search.TextIndex;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
 import org.eclipse.microprofile.faulttolerance.Fallback;
 import org.eclipse.microprofile.faulttolerance.Timeout;
-import io.smallrye.faulttolerance.api.RateLimit;
 import java.time.temporal.ChronoUnit;
 
 import org.eclipse.microprofile.openapi.annotations.Operation;
@@ -27,30 +55,110 @@ import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 
 import java.net.URI;
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
+@RunOnVirtualThread
 @Path("/api/v1/carros")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE})
+@Consumes({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE})
 public class CarroResource {
 
+    private static final Set<String> FIELDS = Set.of(
+            "id", "versao", "modelo", "nomeCompletoVersao", "dataDeFabricacao", "paisDeMontagem");
+
+    private static final Fields IDS = Fields.parse("id", "Carro", FIELDS);
+
+    private static final Set<String> EXPANDS = Set.of("fichaTecnica");
+    private static final Set<String> COLLECTIONS = Set.of();
+
+    private static final Map<String, Class<?>> SORT_FIELDS = Map.of(
+            "id", Long.class,
+            "modelo", String.class,
+            "dataDeFabricacao", LocalDate.class,
+            "paisDeMontagem", String.class);
+
+    @Context
+    UriInfo uriInfo;
+
+    @Context
+    Request request;
+
+    @Context
+    HttpHeaders headers;
+
+    @Inject
+    EntityTags tags;
+
+    @Inject
+    DocumentStore documents;
+
+    @Inject
+    SearchIndex searchIndex;
+
+    @Inject
+    SearchCache searchCache;
+
+    @Inject
+    EntityCounts counts;
+
+    @Inject
+    Event<EntityChanged> changes;
+
+    @Inject
+    NdjsonExporter exporter;
+
+    @Inject
+    BulkInserter bulkInserter;
+
+    @Inject
+    BulkDeleter bulkDeleter;
+
+    @ConfigProperty(name = "api.search.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
     @GET
     @Operation(summary = "Retorna todos os carros")
     @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Carro.class, type = SchemaType.ARRAY)))
-    @RateLimit(value = 10, window = 10, windowUnit = ChronoUnit.SECONDS)
     @Timeout(value = 800, unit = ChronoUnit.MILLIS)
     @CircuitBreaker(requestVolumeThreshold = 5, failureRatio = 0.6, delay = 5000)
     @Fallback(fallbackMethod = "fallbackGetAll")
-    public Response getAll(){
-        return Response.ok(Carro.listAll()).build();
+    public Response getAll(@Parameter(description = Fields.DESCRIPTION) @QueryParam("fields") String fields,
+                           @Parameter(description = Expand.DESCRIPTION) @QueryParam("expand") String expand){
+        Fields projection;
+        Expand expansion;
+        try {
+            projection = Fields.parse(fields, "Carro", FIELDS);
+            expansion = Expand.parse(expand, EXPANDS, projection);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        EntityTag tag = tags.list(Carro.class);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if(notModified != null) return notModified.tag(tag).build();
+        if(projection == null && json() && expansion.isEmpty() && documents.isEnabled()) return Response.ok(documents.array(Carro.class)).tag(tag).build();
+        if(projection == null) return Response.ok(load(expansion, Carro.findAll())).tag(tag).build();
+        return Response.ok(Fields.rows(Carro.find(projection.query(""))).list()).tag(tag).build();
     }
 
-    public Response fallbackGetAll() {
+    public Response fallbackGetAll(String fields, String expand) {
         return Response.ok(Collections.emptyList()).build();
     }
 
+    @GET
+    @Path("/export")
+    @Produces(NdjsonExporter.APPLICATION_NDJSON)
+    @Operation(summary = "Exporta todos os carros em NDJSON", description = "Um carro por linha, escrito enquanto é lido do banco.")
+    public Response export(){
+        return Response.ok(exporter.stream(Carro.class, "from Carro c left join fetch c.fichaTecnica order by c.id")).build();
+    }
+
     @GET
     @Path("{id}")
     @Operation(summary = "Retorna um carro por ID")
@@ -58,48 +166,159 @@ public class CarroResource {
     @APIResponse(responseCode = "404", description = "Não encontrado")
     @Timeout(value = 500, unit = ChronoUnit.MILLIS)
     @Fallback(fallbackMethod = "fallbackGetById")
-    public Response getById(@PathParam("id") long id){
-        Carro entity = Carro.findById(id);
+    public Response getById(@PathParam("id") long id,
+                            @Parameter(description = Fields.DESCRIPTION) @QueryParam("fields") String fields,
+                            @Parameter(description = Expand.DESCRIPTION) @QueryParam("expand") String expand){
+        Fields projection;
+        Expand expansion;
+        try {
+            projection = Fields.parse(fields, "Carro", FIELDS);
+            expansion = Expand.parse(expand, EXPANDS, projection);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        Document document = projection == null && expansion.isEmpty() ? documents.get(Carro.class, id) : null;
+        if(document != null) {
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(document.tag());
+            if(notModified != null) return notModified.tag(document.tag()).build();
+            return Response.ok(json() ? document.bytes() : document).tag(document.tag()).build();
+        }
+
+        EntityTag tag = tags.carro(id);
+        if(tag == null) return Response.status(Response.Status.NOT_FOUND).build();
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if(notModified != null) return notModified.tag(tag).build();
+
+        Object entity;
+        if(projection != null) entity = Fields.rows(Carro.find(projection.query("id = ?1"), id)).firstResult();
+        else if(expansion.isEmpty()) entity = Carro.findById(id);
+        else entity = load(expansion, Carro.find("id = ?1", id)).stream().findFirst().orElse(null);
         if(entity == null) return Response.status(Response.Status.NOT_FOUND).build();
-        return Response.ok(entity).build();
+        return Response.ok(entity).tag(tag).build();
     }
 
-    public Response fallbackGetById(long id) {
+    public Response fallbackGetById(long id, String fields, String expand) {
         return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity("Serviço indisponível.").build();
     }
 
     @GET
     @Path("/search")
+    @APIResponse(responseCode = "400", description = "Cursor inválido")
     public Response search(
             @QueryParam("q") String q,
-            @QueryParam("sort") @DefaultValue("id") String sort,
+            @Parameter(description = "Campo de ordenação. Com q, o padrão é relevancia.")
+            @QueryParam("sort") String sort,
             @QueryParam("direction") @DefaultValue("asc") String direction,
             @QueryParam("page") @DefaultValue("0") int page,
-            @QueryParam("size") @DefaultValue("4") int size
+            @QueryParam("size") @DefaultValue("4") int size,
+            @Parameter(description = "Cursor da página anterior (veja NextPage). Vazio inicia a paginação por cursor, sem totais.")
+            @QueryParam("after") String after,
+            @Parameter(description = "Total da resposta: exact, estimate (só contadores em memória ou o índice, sem COUNT) ou none.")
+            @QueryParam("count") @DefaultValue("exact") String count,
+            @Parameter(description = Fields.DESCRIPTION)
+            @QueryParam("fields") String fields,
+            @Parameter(description = Expand.DESCRIPTION)
+            @QueryParam("expand") String expand,
+            @BeanParam CarroFilter filter
     ){
-        Set<String> allowed = Set.of("id", "modelo", "dataDeFabricacao", "paisDeMontagem");
-        if(!allowed.contains(sort)) sort = "id";
+        EntityTag tag = tags.list(Carro.class);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if(notModified != null) return notModified.tag(tag).build();
 
-        Sort sortObj = Sort.by(sort, "desc".equalsIgnoreCase(direction) ? Sort.Direction.Descending : Sort.Direction.Ascending);
-        PanacheQuery<Carro> query;
+        String query = q != null && !q.isBlank() ? q.strip().toLowerCase(Locale.ROOT) : null;
+        boolean textual = query != null;
+        if(sort == null) sort = textual ? Paging.RELEVANCE : "id";
+        String field = SORT_FIELDS.containsKey(sort) || (textual && Paging.RELEVANCE.equals(sort)) ? sort : "id";
+        boolean desc = "desc".equalsIgnoreCase(direction);
+        String cursor = Paging.after(after, uriInfo);
 
-        if (q == null || q.isBlank()) {
-            query = Carro.findAll(sortObj);
+        Paging.Count counting;
+        Fields projection;
+        Expand expansion;
+        try {
+            Paging.validate(page, size);
+            Paging.validate(cursor, field, Paging.RELEVANCE.equals(field) ? Double.class : SORT_FIELDS.get(field));
+            counting = Paging.Count.parse(count);
+            projection = Fields.parse(fields, "Carro", FIELDS);
+            expansion = Expand.parse(expand, EXPANDS, projection);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        MediaType format = BinaryFormats.negotiate(headers.getAcceptableMediaTypes());
+        String key = SearchCache.key(tag.getValue(), query, field, desc, page, size, cursor, counting, projection, expansion) + '|' + filter;
+        byte[] body = searchCache.get(SearchCache.CARROS, key, format, () -> executeSearch(query, field, desc, page, size, cursor, counting, projection, expansion, filter));
+        return Response.ok(body, format).tag(tag).build();
+    }
+
+    /**
+     * Os documentos prontos só servem quando a resposta negociada é JSON.
+     */
+    private boolean json() {
+        return !BinaryFormats.isBinary(BinaryFormats.negotiate(headers.getAcceptableMediaTypes()));
+    }
+
+    private SearchCarroResponse executeSearch(String q, String sort, boolean desc, int page, int size, String after, Paging.Count count,
+                                                   Fields fields, Expand expand, CarroFilter filter) {
+        Criteria criteria = new Criteria();
+        List<TextIndex.Hit> hits = q != null ? searchIndex.carros().search(q) : null;
+        if (!filter.isEmpty()) {
+            if (hits != null) hits = Paging.restrict(hits, filter.apply(new Criteria()), chunkSize, CarroResource::ids);
+            else filter.apply(criteria);
+        }
+        long known = hits != null ? hits.size() : criteria.isEmpty() ? counts.get(Carro.class) : -1;
+        String nextPage = uriInfo.getRequestUriBuilder().replaceQueryParam("page", page + 1).replaceQueryParam("size", size).build().toString();
+        boolean rendered = fields == null && expand.isEmpty() && documents.isEnabled();
+        Fields selected = rendered ? IDS : fields;
+
+        Function<List<Long>, List<Object>> loader =
+                ids -> rendered ? documents.get(Carro.class, ids) : expanded(expand, Carro.find(Fields.select(fields, "id in ?1"), ids)).list();
+
+        Paging.Page<Object> result;
+        if (hits != null && (hits.isEmpty() || Paging.RELEVANCE.equals(sort))) {
+            result = Paging.relevance(hits, page, size, after, uriInfo, nextPage, count, loader);
+        } else if (hits != null) {
+            // Com texto e outra ordem, os resultados são ordenados em memória, lidos em blocos
+            List<Paging.Keyed> sorted = Paging.sort(hits, criteria, desc, chunkSize, c -> keyed(sort, c));
+            result = Paging.sorted(sorted, sort, SORT_FIELDS.get(sort), desc, page, size, after, uriInfo, nextPage, count, loader);
         } else {
-            query = Carro.find("lower(modelo) like ?1 or lower(paisDeMontagem) like ?1", sortObj, "%" + q.toLowerCase() + "%");
+            Sort sortObj = Keyset.sort(sort, desc);
+            if (after != null) {
+                Fields keyed = selected != null ? selected.with(sort) : null;
+                result = Paging.cursor(criteria, sort, desc, SORT_FIELDS.get(sort), after, size, uriInfo,
+                        c -> expanded(expand, Carro.find(Fields.select(keyed, c.query()), sortObj, c.params())));
+            } else {
+                result = Paging.offset(expanded(expand, Carro.find(Fields.select(selected, criteria.query()), sortObj, criteria.params())),
+                        page, size, nextPage, count, known);
+            }
         }
 
-        List<Carro> carros = query.page(page, size).list();
         var response = new SearchCarroResponse();
-        response.Carros = carros;
-        response.TotalCarros = (int) query.count();
-        response.TotalPages = query.pageCount();
-        response.HasMore = page < query.pageCount() - 1;
+        response.Carros = rendered ? documents.get(Carro.class, result.items()) : result.items();
+        response.TotalCarros = result.total();
+        response.TotalPages = result.totalPages();
+        response.HasMore = result.hasMore();
+        response.NextPage = result.nextPage();
+        return response;
+    }
+
+    /**
+     * Linhas {@code [id, valor]} do campo de ordenação, já validado contra SORT_FIELDS.
+     */
+    private static List<?> keyed(String sort, Criteria criteria) {
+        return Fields.rows(Carro.find("select id, " + sort + " from Carro where " + criteria.query(), criteria.params())).list();
+    }
 
-        URI nextUri = URI.create("http://localhost:8080/api/v1/carros/search?q=" + (q != null ? q : "") + "&page=" + (page + 1) + "&size=" + size);
-        response.NextPage = response.HasMore ? nextUri.toString() : "";
+    private static List<?> ids(Criteria criteria) {
+        return Fields.rows(Carro.find("select id from Carro where " + criteria.query(), criteria.params())).list();
+    }
+
+    private static PanacheQuery<Object> expanded(Expand expand, PanacheQuery<Carro> query) {
+        return Fields.rows(expand.apply(query, Carro.getEntityManager(), Carro.class, COLLECTIONS));
+    }
 
-        return Response.ok(response).build();
+    private static List<Object> load(Expand expand, PanacheQuery<Carro> query) {
+        return expanded(expand, query).list();
     }
 
     @POST
@@ -112,25 +331,55 @@ public class CarroResource {
     public Response insert(@Valid Carro carro){
 
         Carro.persist(carro);
+        changes.fire(EntityChanged.created(Carro.class, carro.id, carro));
         URI location = UriBuilder.fromResource(CarroResource.class).path("{id}").build(carro.id);
         return Response.created(location).entity(carro).build();
     }
 
+    @POST
+    @Path("/bulk")
+    @Operation(summary = "Cria carros em lote", description = "Itens inválidos são recusados individualmente; os demais são gravados na mesma transação.")
+    @Parameter(name = "X-Idempotency-Key", in = ParameterIn.HEADER, required = true, description = "Chave de idempotência")
+    @RequestBody(required = true, content = @Content(schema = @Schema(implementation = Carro.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "200", description = "Resultado por item", content = @Content(schema = @Schema(implementation = BulkItemResult.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "400", description = "Lista vazia")
+    @Transactional
+    @Idempotent
+    public Response insertBulk(List<Carro> carros){
+        if(carros == null || carros.isEmpty()) return Response.status(Response.Status.BAD_REQUEST).entity("A lista não pode ser vazia").build();
+        return Response.ok(bulkInserter.carros(carros)).build();
+    }
+
+    @DELETE
+    @Path("/bulk")
+    @Operation(summary = "Remove carros em lote", description = "Carros com acessórios vinculados não são removidos e voltam em blocked.")
+    @RequestBody(required = true, content = @Content(schema = @Schema(implementation = Long.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "200", description = "Ids removidos, bloqueados e não encontrados", content = @Content(schema = @Schema(implementation = BulkDeleteResult.class)))
+    @APIResponse(responseCode = "400", description = "Lista vazia")
+    @Transactional
+    public Response deleteBulk(List<Long> ids){
+        if(ids == null || ids.isEmpty()) return Response.status(Response.Status.BAD_REQUEST).entity("A lista não pode ser vazia").build();
+        return Response.ok(bulkDeleter.carros(ids)).build();
+    }
+
     @DELETE
     @Path("{id}")
     @Transactional
     public Response delete(@PathParam("id") long id){
-        Carro entity = Carro.findById(id);
-        if(entity == null) return Response.status(Response.Status.NOT_FOUND).build();
+        EntityTag tag = tags.carro(id);
+        if(tag == null) return Response.status(Response.Status.NOT_FOUND).build();
+        Response.ResponseBuilder failed = request.evaluatePreconditions(tag);
+        if(failed != null) return failed.build();
 
-        long acessoriosVinculados = Acessorio.count("carro.id = ?1", id);
-        if(acessoriosVinculados > 0){
+        // Mesma regra da exclusão em lote: o contador de uso, lido com a linha travada, decide
+        BulkDeleteResult result = bulkDeleter.carros(List.of(id));
+        Long acessoriosVinculados = result.blocked.get(id);
+        if(acessoriosVinculados != null){
             return Response.status(Response.Status.CONFLICT)
                     .entity("Não é possível deletar. Existem " + acessoriosVinculados + " acessório(s) vinculado(s).")
                     .build();
         }
-
-        Carro.deleteById(id);
+        if(result.deleted.isEmpty()) return Response.status(Response.Status.NOT_FOUND).build();
         return Response.noContent().build();
     }
 
@@ -140,6 +389,8 @@ public class CarroResource {
     public Response update(@PathParam("id") long id, @Valid Carro newCarro){
         Carro entity = Carro.findById(id);
         if(entity == null) return Response.status(Response.Status.NOT_FOUND).build();
+        Response.ResponseBuilder failed = request.evaluatePreconditions(tags.carro(id));
+        if(failed != null) return failed.build();
 
         entity.modelo = newCarro.modelo;
         entity.nomeCompletoVersao = newCarro.nomeCompletoVersao;
@@ -157,6 +408,9 @@ public class CarroResource {
             entity.fichaTecnica = null;
         }
 
-        return Response.ok(entity).build();
+        changes.fire(EntityChanged.updated(Carro.class, entity.id, entity));
+
+        Carro.flush();
+        return Response.ok(entity).tag(tags.carro(id)).build();
     }
 }
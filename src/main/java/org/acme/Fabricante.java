@@ -1,14 +1,24 @@
 package org.acme;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer"})
+@Cacheable
+@Table(indexes = {
+        @Index(name = "idx_fabricante_nome_id", columnList = "nome, id"),
+        @Index(name = "idx_fabricante_detalhes_id", columnList = "detalhes, id"),
+        @Index(name = "idx_fabricante_uso_id", columnList = "quantidadeAcessorios, id")
+})
 public class Fabricante extends PanacheEntityBase {
 
     @Id
@@ -16,6 +26,12 @@ public class Fabricante extends PanacheEntityBase {
     @Schema(readOnly = true, example = "1")
     public Long id;
 
+    @Version
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(readOnly = true, example = "0")
+    public long versao;
+
     @NotBlank(message = "O nome da fabricante não pode ser vazio")
     @Size(min = 2, max = 50, message = "Nome da fabricante deve ter entre 2 e 50 caracteres")
     public String nome;
@@ -23,6 +39,15 @@ public class Fabricante extends PanacheEntityBase {
     @Size(max = 200, message = "Os detalhes da fabricante não podem ultrapassar 200 caracteres")
     public String detalhes;
 
+    /**
+     * Acessórios vinculados. Mantido por {@link org.acme.usage.UsageCounts} direto no banco;
+     * leia por consulta, porque a entidade pode vir do cache de segundo nível.
+     */
+    @Column(insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @JsonIgnore
+    public long quantidadeAcessorios;
+
     @ManyToMany(mappedBy = "fabricantes", fetch = FetchType.LAZY)
     @JsonIgnore
     public Set<Acessorio> acessorios = new HashSet<>();
@@ -1,20 +1,47 @@
 package org.acme;
 
-import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.panache.common.Sort;
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.UriBuilder;
+import jakarta.ws.rs.core.UriInfo;
 
+import org.acme.bulk.BulkDeleteResult;
+import org.acme.bulk.BulkDeleter;
+import org.acme.bulk.BulkInserter;
+import org.acme.bulk.BulkItemResult;
+import org.acme.document.Document;
+import org.acme.document.DocumentStore;
+import org.acme.etag.EntityTags;
+import org.acme.event.EntityChanged;
+import org.acme.export.NdjsonExporter;
+import org.acme.format.BinaryFormats;
 import org.acme.idempotency.Idempotent;
+import org.acme.search.Criteria;
+import org.acme.search.EntityCounts;
+import org.acme.search.Expand;
+import org.acme.search.Fields;
+import org.acme.search.Keyset;
+import org.acme.search.Paging;
+import org.acme.search.SearchCache;
+import org.acme.search.SearchIndex;
+import org.acme.search.TextIndex;
+import org.acme.usage.UsageCounts;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
 import org.eclipse.microprofile.faulttolerance.Fallback;
 import org.eclipse.microprofile.faulttolerance.Timeout;
-import io.smallrye.faulttolerance.api.RateLimit;
 import java.time.temporal.ChronoUnit;
 
 import org.eclipse.microprofile.openapi.annotations.Operation;
@@ -29,28 +56,117 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import java.net.URI;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 
+@RunOnVirtualThread
 @Path("/api/v1/fabricantes")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
+@Produces({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE})
+@Consumes({MediaType.APPLICATION_JSON, BinaryFormats.CBOR, BinaryFormats.SMILE})
 public class FabricanteResource {
 
+    private static final Set<String> FIELDS = Set.of(
+            "id", "versao", "nome", "detalhes");
+
+    private static final Fields IDS = Fields.parse("id", "Fabricante", FIELDS);
+
+    private static final Map<String, Class<?>> SORT_FIELDS = Map.of(
+            "id", Long.class,
+            "nome", String.class,
+            "detalhes", String.class);
+
+    @Context
+    UriInfo uriInfo;
+
+    @Context
+    Request request;
+
+    @Context
+    HttpHeaders headers;
+
+    @Inject
+    EntityTags tags;
+
+    @Inject
+    DocumentStore documents;
+
+    @Inject
+    SearchIndex searchIndex;
+
+    @Inject
+    SearchCache searchCache;
+
+    @Inject
+    EntityCounts counts;
+
+    @Inject
+    Event<EntityChanged> changes;
+
+    @Inject
+    NdjsonExporter exporter;
+
+    @Inject
+    BulkInserter bulkInserter;
+
+    @Inject
+    BulkDeleter bulkDeleter;
+
+    @ConfigProperty(name = "api.search.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @Inject
+    UsageCounts usage;
+
     @GET
     @Operation(summary = "Retorna todos os fabricantes")
     @APIResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Fabricante.class, type = SchemaType.ARRAY)))
-    @RateLimit(value = 10, window = 10, windowUnit = ChronoUnit.SECONDS)
     @Timeout(value = 800, unit = ChronoUnit.MILLIS)
     @CircuitBreaker(requestVolumeThreshold = 5, failureRatio = 0.6, delay = 5000)
     @Fallback(fallbackMethod = "fallbackGetAll")
-    public Response getAll(){
-        return Response.ok(Fabricante.listAll()).build();
+    public Response getAll(@Parameter(description = Fields.DESCRIPTION) @QueryParam("fields") String fields){
+        Fields projection;
+        try {
+            projection = Fields.parse(fields, "Fabricante", FIELDS);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        EntityTag tag = tags.list(Fabricante.class);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if(notModified != null) return notModified.tag(tag).build();
+        if(projection == null && json() && documents.isEnabled()) return Response.ok(documents.array(Fabricante.class)).tag(tag).build();
+        if(projection == null) return Response.ok(Fabricante.listAll()).tag(tag).build();
+        return Response.ok(Fields.rows(Fabricante.find(projection.query(""))).list()).tag(tag).build();
     }
 
-    public Response fallbackGetAll() {
+    public Response fallbackGetAll(String fields) {
         return Response.ok(Collections.emptyList()).build();
     }
 
+    @GET
+    @Path("/export")
+    @Produces(NdjsonExporter.APPLICATION_NDJSON)
+    @Operation(summary = "Exporta todos os fabricantes em NDJSON", description = "Um fabricante por linha, escrito enquanto é lido do banco.")
+    public Response export(){
+        return Response.ok(exporter.stream(Fabricante.class, "from Fabricante f order by f.id")).build();
+    }
+
+    @GET
+    @Path("/mais-usados")
+    @Operation(summary = "Fabricantes com mais acessórios", description = "Ordenados por quantidadeAcessorios, um contador mantido a cada escrita de acessório.")
+    @APIResponse(responseCode = "200", description = "id, nome e quantidadeAcessorios de cada fabricante")
+    @APIResponse(responseCode = "400", description = "limit fora de 1..100")
+    public Response maisUsados(@QueryParam("limit") @DefaultValue("10") int limit){
+        if(limit < 1 || limit > 100) return Response.status(Response.Status.BAD_REQUEST).entity("limit deve estar entre 1 e 100").build();
+
+        EntityTag tag = tags.list(Acessorio.class, Fabricante.class);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if(notModified != null) return notModified.tag(tag).build();
+        return Response.ok(usage.maisUsados(limit)).tag(tag).build();
+    }
+
     @GET
     @Path("{id}")
     @Operation(summary = "Retorna um fabricante por ID")
@@ -58,48 +174,130 @@ public class FabricanteResource {
     @APIResponse(responseCode = "404", description = "Não encontrado")
     @Timeout(value = 500, unit = ChronoUnit.MILLIS)
     @Fallback(fallbackMethod = "fallbackGetById")
-    public Response getById(@PathParam("id") long id){
-        Fabricante entity = Fabricante.findById(id);
+    public Response getById(@PathParam("id") long id, @Parameter(description = Fields.DESCRIPTION) @QueryParam("fields") String fields){
+        Fields projection;
+        try {
+            projection = Fields.parse(fields, "Fabricante", FIELDS);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+
+        Document document = projection == null ? documents.get(Fabricante.class, id) : null;
+        if(document != null) {
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(document.tag());
+            if(notModified != null) return notModified.tag(document.tag()).build();
+            return Response.ok(json() ? document.bytes() : document).tag(document.tag()).build();
+        }
+
+        EntityTag tag = tags.fabricante(id);
+        if(tag == null) return Response.status(Response.Status.NOT_FOUND).build();
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if(notModified != null) return notModified.tag(tag).build();
+
+        Object entity = projection == null ? Fabricante.findById(id) : Fields.rows(Fabricante.find(projection.query("id = ?1"), id)).firstResult();
         if(entity == null) return Response.status(Response.Status.NOT_FOUND).build();
-        return Response.ok(entity).build();
+        return Response.ok(entity).tag(tag).build();
     }
 
-    public Response fallbackGetById(long id) {
+    public Response fallbackGetById(long id, String fields) {
         return Response.status(Response.Status.SERVICE_UNAVAILABLE).entity("Serviço indisponível.").build();
     }
 
     @GET
     @Path("/search")
+    @APIResponse(responseCode = "400", description = "Cursor inválido")
     public Response search(
             @QueryParam("q") String q,
-            @QueryParam("sort") @DefaultValue("id") String sort,
+            @Parameter(description = "Campo de ordenação. Com q, o padrão é relevancia.")
+            @QueryParam("sort") String sort,
             @QueryParam("direction") @DefaultValue("asc") String direction,
             @QueryParam("page") @DefaultValue("0") int page,
-            @QueryParam("size") @DefaultValue("4") int size
+            @QueryParam("size") @DefaultValue("4") int size,
+            @Parameter(description = "Cursor da página anterior (veja NextPage). Vazio inicia a paginação por cursor, sem totais.")
+            @QueryParam("after") String after,
+            @Parameter(description = "Total da resposta: exact, estimate (só contadores em memória ou o índice, sem COUNT) ou none.")
+            @QueryParam("count") @DefaultValue("exact") String count,
+            @Parameter(description = Fields.DESCRIPTION)
+            @QueryParam("fields") String fields
     ){
-        Set<String> allowed = Set.of("id", "nome", "detalhes");
-        if(!allowed.contains(sort)) sort = "id";
+        EntityTag tag = tags.list(Fabricante.class);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if(notModified != null) return notModified.tag(tag).build();
+
+        String query = q != null && !q.isBlank() ? q.strip().toLowerCase(Locale.ROOT) : null;
+        boolean textual = query != null;
+        if(sort == null) sort = textual ? Paging.RELEVANCE : "id";
+        String field = SORT_FIELDS.containsKey(sort) || (textual && Paging.RELEVANCE.equals(sort)) ? sort : "id";
+        boolean desc = "desc".equalsIgnoreCase(direction);
+        String cursor = Paging.after(after, uriInfo);
+
+        Paging.Count counting;
+        Fields projection;
+        try {
+            Paging.validate(page, size);
+            Paging.validate(cursor, field, Paging.RELEVANCE.equals(field) ? Double.class : SORT_FIELDS.get(field));
+            counting = Paging.Count.parse(count);
+            projection = Fields.parse(fields, "Fabricante", FIELDS);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        MediaType format = BinaryFormats.negotiate(headers.getAcceptableMediaTypes());
+        String key = SearchCache.key(tag.getValue(), query, field, desc, page, size, cursor, counting, projection, Expand.NONE);
+        byte[] body = searchCache.get(SearchCache.FABRICANTES, key, format, () -> executeSearch(query, field, desc, page, size, cursor, counting, projection));
+        return Response.ok(body, format).tag(tag).build();
+    }
+
+    /**
+     * Os documentos prontos só servem quando a resposta negociada é JSON.
+     */
+    private boolean json() {
+        return !BinaryFormats.isBinary(BinaryFormats.negotiate(headers.getAcceptableMediaTypes()));
+    }
+
+    private SearchFabricanteResponse executeSearch(String q, String sort, boolean desc, int page, int size, String after, Paging.Count count,
+                                                   Fields fields) {
+        List<TextIndex.Hit> hits = q != null ? searchIndex.fabricantes().search(q) : null;
+        long known = hits != null ? hits.size() : counts.get(Fabricante.class);
+        String nextPage = uriInfo.getRequestUriBuilder().replaceQueryParam("page", page + 1).replaceQueryParam("size", size).build().toString();
+        boolean rendered = fields == null && documents.isEnabled();
+        Fields selected = rendered ? IDS : fields;
 
-        Sort sortObj = Sort.by(sort, "desc".equalsIgnoreCase(direction) ? Sort.Direction.Descending : Sort.Direction.Ascending);
-        PanacheQuery<Fabricante> query;
+        Function<List<Long>, List<Object>> loader =
+                ids -> rendered ? documents.get(Fabricante.class, ids) : Fields.rows(Fabricante.find(Fields.select(fields, "id in ?1"), ids)).list();
 
-        if (q == null || q.isBlank()) {
-            query = Fabricante.findAll(sortObj);
+        Paging.Page<Object> result;
+        if (hits != null && (hits.isEmpty() || Paging.RELEVANCE.equals(sort))) {
+            result = Paging.relevance(hits, page, size, after, uriInfo, nextPage, count, loader);
+        } else if (hits != null) {
+            // Com texto e outra ordem, os resultados são ordenados em memória, lidos em blocos
+            List<Paging.Keyed> sorted = Paging.sort(hits, new Criteria(), desc, chunkSize, c -> keyed(sort, c));
+            result = Paging.sorted(sorted, sort, SORT_FIELDS.get(sort), desc, page, size, after, uriInfo, nextPage, count, loader);
         } else {
-            query = Fabricante.find("lower(nome) like ?1 or lower(detalhes) like ?1", sortObj, "%" + q.toLowerCase() + "%");
+            Sort sortObj = Keyset.sort(sort, desc);
+            if (after != null) {
+                Fields keyed = selected != null ? selected.with(sort) : null;
+                result = Paging.cursor(new Criteria(), sort, desc, SORT_FIELDS.get(sort), after, size, uriInfo,
+                        c -> Fields.rows(Fabricante.find(Fields.select(keyed, c.query()), sortObj, c.params())));
+            } else {
+                result = Paging.offset(Fields.rows(Fabricante.find(Fields.select(selected, ""), sortObj)),
+                        page, size, nextPage, count, known);
+            }
         }
 
-        List<Fabricante> fabricantes = query.page(page, size).list();
         var response = new SearchFabricanteResponse();
-        response.Fabricantes = fabricantes;
-        response.TotalFabricantes = (int) query.count();
-        response.TotalPages = query.pageCount();
-        response.HasMore = page < query.pageCount() - 1;
-
-        URI nextUri = URI.create("http://localhost:8080/api/v1/fabricantes/search?q=" + (q != null ? q : "") + "&page=" + (page + 1) + "&size=" + size);
-        response.NextPage = response.HasMore ? nextUri.toString() : "";
+        response.Fabricantes = rendered ? documents.get(Fabricante.class, result.items()) : result.items();
+        response.TotalFabricantes = result.total();
+        response.TotalPages = result.totalPages();
+        response.HasMore = result.hasMore();
+        response.NextPage = result.nextPage();
+        return response;
+    }
 
-        return Response.ok(response).build();
+    /**
+     * Linhas {@code [id, valor]} do campo de ordenação, já validado contra SORT_FIELDS.
+     */
+    private static List<?> keyed(String sort, Criteria criteria) {
+        return Fields.rows(Fabricante.find("select id, " + sort + " from Fabricante where " + criteria.query(), criteria.params())).list();
     }
 
     @POST
@@ -111,25 +309,55 @@ public class FabricanteResource {
     @Idempotent
     public Response insert(@Valid Fabricante fabricante){
         Fabricante.persist(fabricante);
+        changes.fire(EntityChanged.created(Fabricante.class, fabricante.id, fabricante));
         URI location = UriBuilder.fromResource(FabricanteResource.class).path("{id}").build(fabricante.id);
         return Response.created(location).entity(fabricante).build();
     }
 
+    @POST
+    @Path("/bulk")
+    @Operation(summary = "Cria fabricantes em lote", description = "Itens inválidos são recusados individualmente; os demais são gravados na mesma transação.")
+    @Parameter(name = "X-Idempotency-Key", in = ParameterIn.HEADER, required = true, description = "Chave de idempotência")
+    @RequestBody(required = true, content = @Content(schema = @Schema(implementation = Fabricante.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "200", description = "Resultado por item", content = @Content(schema = @Schema(implementation = BulkItemResult.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "400", description = "Lista vazia")
+    @Transactional
+    @Idempotent
+    public Response insertBulk(List<Fabricante> fabricantes){
+        if(fabricantes == null || fabricantes.isEmpty()) return Response.status(Response.Status.BAD_REQUEST).entity("A lista não pode ser vazia").build();
+        return Response.ok(bulkInserter.fabricantes(fabricantes)).build();
+    }
+
+    @DELETE
+    @Path("/bulk")
+    @Operation(summary = "Remove fabricantes em lote", description = "Fabricantes com acessórios vinculados não são removidos e voltam em blocked.")
+    @RequestBody(required = true, content = @Content(schema = @Schema(implementation = Long.class, type = SchemaType.ARRAY)))
+    @APIResponse(responseCode = "200", description = "Ids removidos, bloqueados e não encontrados", content = @Content(schema = @Schema(implementation = BulkDeleteResult.class)))
+    @APIResponse(responseCode = "400", description = "Lista vazia")
+    @Transactional
+    public Response deleteBulk(List<Long> ids){
+        if(ids == null || ids.isEmpty()) return Response.status(Response.Status.BAD_REQUEST).entity("A lista não pode ser vazia").build();
+        return Response.ok(bulkDeleter.fabricantes(ids)).build();
+    }
+
     @DELETE
     @Path("{id}")
     @Transactional
     public Response delete(@PathParam("id") long id){
-        Fabricante entity = Fabricante.findById(id);
-        if(entity == null) return Response.status(Response.Status.NOT_FOUND).build();
+        EntityTag tag = tags.fabricante(id);
+        if(tag == null) return Response.status(Response.Status.NOT_FOUND).build();
+        Response.ResponseBuilder failed = request.evaluatePreconditions(tag);
+        if(failed != null) return failed.build();
 
-        long musicasVinculadas = Acessorio.count("?1 MEMBER OF fabricantes", entity);
-        if(musicasVinculadas > 0){
+        // Mesma regra da exclusão em lote: o contador de uso, lido com a linha travada, decide
+        BulkDeleteResult result = bulkDeleter.fabricantes(List.of(id));
+        Long acessoriosVinculados = result.blocked.get(id);
+        if(acessoriosVinculados != null){
             return Response.status(Response.Status.CONFLICT)
-                    .entity("Não é possível deletar. Existem " + musicasVinculadas + " acessório(s) vinculado(s).")
+                    .entity("Não é possível deletar. Existem " + acessoriosVinculados + " acessório(s) vinculado(s).")
                     .build();
         }
-
-        Fabricante.deleteById(id);
+        if(result.deleted.isEmpty()) return Response.status(Response.Status.NOT_FOUND).build();
         return Response.noContent().build();
     }
 
@@ -139,8 +367,14 @@ public class FabricanteResource {
     public Response update(@PathParam("id") long id, @Valid Fabricante newFabricante){
         Fabricante entity = Fabricante.findById(id);
         if(entity == null) return Response.status(Response.Status.NOT_FOUND).build();
+        Response.ResponseBuilder failed = request.evaluatePreconditions(tags.fabricante(id));
+        if(failed != null) return failed.build();
+
         entity.nome = newFabricante.nome;
         entity.detalhes = newFabricante.detalhes;
-        return Response.status(Response.Status.OK).entity(entity).build();
+        changes.fire(EntityChanged.updated(Fabricante.class, entity.id, entity));
+
+        Fabricante.flush();
+        return Response.status(Response.Status.OK).entity(entity).tag(tags.fabricante(id)).build();
     }
 }
\ No newline at end of file
@@ -1,18 +1,29 @@
 package org.acme;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.ColumnDefault;
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 @Entity
+@JsonIgnoreProperties({"hibernateLazyInitializer"})
+@Cacheable
 public class FichaTecnica extends PanacheEntityBase {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Schema(readOnly = true, example = "1")
     public Long id;
 
+    @Version
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(readOnly = true, example = "0")
+    public long versao;
+
     @Size(max = 2000, message = "Os detalhes do motor não podem ultrapassar 2000 caracteres")
     @Column(length = 2000)
     public String detalhesDoMotor;
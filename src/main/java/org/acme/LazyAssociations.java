@@ -0,0 +1,79 @@
+package org.acme;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.hibernate.Hibernate;
+import org.hibernate.bytecode.enhance.spi.interceptor.EnhancementAsProxyLazinessInterceptor;
+import org.hibernate.engine.spi.PersistentAttributeInterceptable;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+
+import java.io.IOException;
+
+/**
+ * Serializadores das associações LAZY: o que não foi carregado não dispara SELECT na
+ * serialização. Um to-one não carregado vira só {@code {"id": ...}} e uma coleção não
+ * carregada vira null; o que o cliente pede em {@code expand=} já chega carregado e sai
+ * inteiro.
+ */
+public final class LazyAssociations {
+
+    private LazyAssociations() {}
+
+    public static final class Reference extends StdSerializer<Object> {
+
+        public Reference() {
+            super(Object.class);
+        }
+
+        @Override
+        public void serialize(Object value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            Object id = uninitializedId(value);
+            if (id != null) {
+                gen.writeStartObject();
+                provider.defaultSerializeField("id", id, gen);
+                gen.writeEndObject();
+                return;
+            }
+            Object entity = Hibernate.unproxy(value);
+            provider.findValueSerializer(entity.getClass()).serialize(entity, gen, provider);
+        }
+
+        /**
+         * Id da referência ainda não carregada, seja um proxy ou, com o bytecode
+         * enriquecido, a própria entidade vazia; null se já estiver carregada.
+         */
+        private static Object uninitializedId(Object value) {
+            if (value instanceof HibernateProxy proxy) {
+                LazyInitializer lazy = proxy.getHibernateLazyInitializer();
+                return lazy.isUninitialized() ? lazy.getInternalIdentifier() : null;
+            }
+            if (value instanceof PersistentAttributeInterceptable entity
+                    && entity.$$_hibernate_getInterceptor() instanceof EnhancementAsProxyLazinessInterceptor lazy
+                    && !lazy.isInitialized()) {
+                return lazy.getIdentifier();
+            }
+            return null;
+        }
+    }
+
+    public static final class Collection extends StdSerializer<java.util.Collection<?>> {
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Collection() {
+            super((Class) java.util.Collection.class);
+        }
+
+        @Override
+        public void serialize(java.util.Collection<?> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (!Hibernate.isInitialized(value)) {
+                gen.writeNull();
+                return;
+            }
+            gen.writeStartArray(value, value.size());
+            for (Object element : value) provider.defaultSerializeValue(element, gen);
+            gen.writeEndArray();
+        }
+    }
+}
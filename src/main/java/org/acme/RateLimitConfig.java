@@ -0,0 +1,70 @@
+package org.acme;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+import jakarta.validation.constraints.Positive;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@ConfigMapping(prefix = "api.rate-limit")
+public interface RateLimitConfig {
+
+    @WithDefault("true")
+    boolean enabled();
+
+    /**
+     * Limite aplicado quando nenhuma rota de {@link #routes()} casa com o caminho.
+     */
+    Limit defaults();
+
+    /**
+     * Limites por prefixo de caminho (ex.: "/api/v1/acessorios/bulk"); vence o prefixo mais longo.
+     */
+    Map<String, Limit> routes();
+
+    /**
+     * Cabeçalho com a chave de API do cliente; identifica o cliente só quando a chave está
+     * em {@link #apiKeys()}.
+     */
+    @WithDefault("X-API-Key")
+    String apiKeyHeader();
+
+    /**
+     * Chaves de API conhecidas. Qualquer outro valor do cabeçalho é ignorado e o cliente é
+     * identificado pelo endereço, senão bastaria trocar de chave a cada requisição.
+     */
+    Optional<Set<String>> apiKeys();
+
+    /**
+     * Usar o primeiro endereço de X-Forwarded-For. Só ative atrás de um proxy confiável.
+     */
+    @WithDefault("false")
+    boolean trustForwardedFor();
+
+    /**
+     * Tempo sem requisições depois do qual o bucket de um cliente é descartado.
+     */
+    @WithDefault("PT10M")
+    Duration idleEviction();
+
+    @WithDefault("1000000")
+    @Positive
+    long maxClients();
+
+    /**
+     * Validado na inicialização: um valor zero ou negativo derruba o boot em vez de recusar
+     * ou liberar tudo em silêncio.
+     */
+    interface Limit {
+        @WithDefault("20")
+        @Positive
+        int capacity();
+
+        @WithDefault("10")
+        @Positive
+        double refillPerSecond();
+    }
+}
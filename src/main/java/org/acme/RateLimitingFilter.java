@@ -2,53 +2,124 @@ package org.acme;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.quarkus.runtime.Startup;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.net.SocketAddress;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Priority;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.Priorities;
 import jakarta.ws.rs.container.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.Provider;
 import java.io.IOException;
-import java.time.Duration;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Provider
 @ApplicationScoped
+@Startup
 @Priority(Priorities.HEADER_DECORATOR)
 public class RateLimitingFilter implements ContainerRequestFilter, ContainerResponseFilter {
 
-    private static final int MAX_REQUESTS = 10;
-    private static final int WINDOW_SECONDS = 60;
+    private static final String REMAINING_PROPERTY = "rate-limit-remaining";
+    private static final String LIMIT_PROPERTY = "rate-limit-limit";
 
-    private final Cache<String, AtomicInteger> requestCounts = Caffeine.newBuilder()
-            .expireAfterWrite(Duration.ofSeconds(WINDOW_SECONDS))
-            .build();
+    private List<Map.Entry<String, RateLimitConfig.Limit>> routes;
+    private Cache<String, TokenBucket> buckets;
+    private Set<String> apiKeys;
+
+    @Inject
+    RateLimitConfig config;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Context
+    HttpServerRequest request;
+
+    /**
+     * Roda na inicialização ({@code @Startup}): um limite que o {@link TokenBucket} recusa
+     * derruba o boot, não a primeira requisição da rota.
+     */
+    @PostConstruct
+    void init() {
+        new TokenBucket(config.defaults().capacity(), config.defaults().refillPerSecond(), 0);
+        config.routes().values().forEach(limit -> new TokenBucket(limit.capacity(), limit.refillPerSecond(), 0));
+        this.routes = config.routes().entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, RateLimitConfig.Limit> e) -> e.getKey().length()).reversed())
+                .toList();
+        this.apiKeys = config.apiKeys().orElse(Set.of());
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(config.idleEviction())
+                .maximumSize(config.maxClients())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, buckets, "rate-limit-buckets");
+    }
 
     @Override
     public void filter(ContainerRequestContext ctx) throws IOException {
-        if (!ctx.getUriInfo().getPath().startsWith("/api/v1")) return;
+        if (!config.enabled()) return;
+        String path = ctx.getUriInfo().getPath();
+        if (!path.startsWith("/api/v1")) return;
 
-        String ip = "127.0.0.1";
+        String route = "";
+        RateLimitConfig.Limit limit = config.defaults();
+        for (Map.Entry<String, RateLimitConfig.Limit> entry : routes) {
+            if (path.startsWith(entry.getKey())) {
+                route = entry.getKey();
+                limit = entry.getValue();
+                break;
+            }
+        }
 
-        AtomicInteger count = requestCounts.get(ip, k -> new AtomicInteger(0));
-        int current = count.incrementAndGet();
+        long now = System.nanoTime();
+        RateLimitConfig.Limit selected = limit;
+        TokenBucket bucket = buckets.get(route + "|" + clientId(ctx),
+                k -> new TokenBucket(selected.capacity(), selected.refillPerSecond(), now));
+        long result = bucket.tryAcquire(now);
 
-        ctx.setProperty("rate-limit-remaining", Math.max(0, MAX_REQUESTS - current));
+        ctx.setProperty(LIMIT_PROPERTY, bucket.capacity());
+        ctx.setProperty(REMAINING_PROPERTY, Math.max(0, result));
 
-        if (current > MAX_REQUESTS) {
+        if (result < 0) {
+            long retryAfterSeconds = Math.max(1, (-result + 999_999_999L) / 1_000_000_000L);
             ctx.abortWith(Response.status(429)
                     .entity("Limite de requisições excedido. Aguarde um momento.")
-                    .header("Retry-After", WINDOW_SECONDS)
+                    .header("Retry-After", retryAfterSeconds)
                     .build());
         }
     }
 
     @Override
     public void filter(ContainerRequestContext req, ContainerResponseContext res) {
-        Object remaining = req.getProperty("rate-limit-remaining");
+        Object remaining = req.getProperty(REMAINING_PROPERTY);
         if (remaining != null) {
-            res.getHeaders().add("X-RateLimit-Limit", MAX_REQUESTS);
+            res.getHeaders().add("X-RateLimit-Limit", req.getProperty(LIMIT_PROPERTY));
             res.getHeaders().add("X-RateLimit-Remaining", remaining);
         }
     }
-}
\ No newline at end of file
+
+    private String clientId(ContainerRequestContext ctx) {
+        String apiKey = ctx.getHeaderString(config.apiKeyHeader());
+        if (apiKey != null && apiKeys.contains(apiKey)) return "key:" + apiKey;
+
+        if (config.trustForwardedFor()) {
+            String forwarded = ctx.getHeaderString("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return "ip:" + (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+
+        SocketAddress address = request != null ? request.remoteAddress() : null;
+        return "ip:" + (address != null ? address.hostAddress() : "desconhecido");
+    }
+}
@@ -1,10 +1,14 @@
 package org.acme;
 
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
 import java.util.ArrayList;
 import java.util.List;
 
 public class SearchAcessorioResponse {
-    public List<Acessorio> Acessorios = new ArrayList<>();
+    @Schema(implementation = Acessorio.class, type = SchemaType.ARRAY, description = "Entidades completas ou, com fields, só os campos pedidos")
+    public List<?> Acessorios = new ArrayList<>();
 
     public long TotalAcessorios;
     public int TotalPages;
@@ -1,10 +1,14 @@
 package org.acme;
 
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
 import java.util.ArrayList;
 import java.util.List;
 
 public class SearchCarroResponse {
-    public List<Carro> Carros = new ArrayList<>();
+    @Schema(implementation = Carro.class, type = SchemaType.ARRAY, description = "Entidades completas ou, com fields, só os campos pedidos")
+    public List<?> Carros = new ArrayList<>();
 
     public long TotalCarros;
     public int TotalPages;
@@ -1,10 +1,14 @@
 package org.acme;
 
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
 import java.util.ArrayList;
 import java.util.List;
 
 public class SearchFabricanteResponse {
-    public List<Fabricante> Fabricantes = new ArrayList<>();
+    @Schema(implementation = Fabricante.class, type = SchemaType.ARRAY, description = "Entidades completas ou, com fields, só os campos pedidos")
+    public List<?> Fabricantes = new ArrayList<>();
 
     public long TotalFabricantes;
     public int TotalPages;
@@ -0,0 +1,62 @@
+package org.acme;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sem lock, implementado como GCRA: o estado inteiro é um único instante
+ * teórico de chegada (TAT), atualizado por CAS. Cada requisição empurra o TAT um
+ * intervalo à frente; ela é aceita enquanto o TAT não passar de {@code capacity}
+ * intervalos à frente do relógio, o que permite rajadas de até {@code capacity}
+ * requisições e reabastece a {@code refillPerSecond}.
+ */
+final class TokenBucket {
+
+    private final int capacity;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * Rajada mais longa aceita (cerca de 73 anos), com folga para somar ao relógio sem estouro.
+     */
+    private static final long MAX_BURST_NANOS = Long.MAX_VALUE / 4;
+
+    /**
+     * @throws IllegalArgumentException se a capacidade ou o reabastecimento não forem
+     * positivos, ou se {@code capacity / refillPerSecond} passar de {@link #MAX_BURST_NANOS}
+     */
+    TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        if (capacity < 1 || !(refillPerSecond > 0)) {
+            throw new IllegalArgumentException("capacity e refill-per-second devem ser positivos");
+        }
+        if (!(capacity * 1e9 / refillPerSecond <= MAX_BURST_NANOS)) {
+            throw new IllegalArgumentException("capacity / refill-per-second passa do intervalo suportado");
+        }
+        this.capacity = capacity;
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = intervalNanos * capacity;
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return tokens restantes quando a requisição é aceita; quando recusada, um valor
+     * negativo cujo módulo é o tempo em nanossegundos até o próximo token
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long newTat = Math.max(tat, nowNanos) + intervalNanos;
+            long ahead = newTat - nowNanos;
+            if (ahead > burstNanos) {
+                return -Math.max(1, ahead - burstNanos);
+            }
+            if (theoreticalArrival.compareAndSet(tat, newTat)) {
+                return (burstNanos - ahead) / intervalNanos;
+            }
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
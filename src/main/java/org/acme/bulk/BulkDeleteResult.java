@@ -0,0 +1,13 @@
+package org.acme.bulk;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BulkDeleteResult {
+    public List<Long> deleted = new ArrayList<>();
+    public List<Long> notFound = new ArrayList<>();
+    /** id que não pôde ser removido → quantidade de acessórios vinculados a ele */
+    public Map<Long, Long> blocked = new LinkedHashMap<>();
+}
@@ -0,0 +1,197 @@
+package org.acme.bulk;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.Fabricante;
+import org.acme.FichaTecnica;
+import org.acme.event.EntityChanged;
+import org.acme.usage.UsageCounts;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Exclusão em lote com comandos por conjunto, por JDBC como no {@link BulkInserter}: as
+ * linhas da tabela de junção e depois as entidades, com um IN de até
+ * {@code api.bulk.chunk-size} ids por comando. Um delete HQL esvaziaria as regiões
+ * inteiras do cache de segundo nível; assim só os ids removidos saem dele. Carros e fabricantes com acessórios
+ * vinculados ficam de fora; a checagem lê os contadores de uso dos ids pedidos numa
+ * única consulta {@code for update}, que trava as linhas como os incrementos de
+ * {@link UsageCounts}, e a remoção de acessórios desconta esses contadores das linhas
+ * também travadas.
+ * <p>
+ * Deve ser chamado dentro de uma transação. Cada id removido dispara
+ * {@link EntityChanged}, como nas exclusões individuais.
+ */
+@ApplicationScoped
+public class BulkDeleter {
+
+    private static final String FABRICANTES_ROLE = Acessorio.class.getName() + ".fabricantes";
+
+    @ConfigProperty(name = "api.bulk.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @Inject
+    Session session;
+
+    @Inject
+    Event<EntityChanged> changes;
+
+    @Inject
+    UsageCounts usage;
+
+    public BulkDeleteResult acessorios(Collection<Long> ids) {
+        BulkDeleteResult result = new BulkDeleteResult();
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        for (List<Long> chunk : chunks(requested)) {
+            // As linhas ficam travadas até o commit: um PUT concorrente não troca o carro ou
+            // os fabricantes entre o desconto dos contadores e a exclusão
+            List<Long> found = session.createSelectionQuery("select a.id from Acessorio a where a.id in :ids", Long.class)
+                    .setParameter("ids", chunk)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+            if (found.isEmpty()) continue;
+            usage.removing("a.id in :ids", "ids", found);
+            deleteIn("acessorio_fabricante", "acessorio_id", found);
+            deleteIn("Acessorio", "id", found);
+            evict(cache -> found.forEach(id -> cache.evictCollectionData(FABRICANTES_ROLE, id)));
+            result.deleted.addAll(found);
+        }
+        return finish(Acessorio.class, requested, result);
+    }
+
+    /**
+     * Os acessórios de um carro, pelos ids lidos e travados aqui e pelo mesmo caminho em
+     * blocos de {@link #acessorios}: um acessório que chegue ao carro no meio não é removido
+     * sem evento, nenhum sai dele antes da exclusão, e contadores, vínculos e eventos cobrem
+     * exatamente as mesmas linhas.
+     */
+    public BulkDeleteResult acessoriosDoCarro(long carroId) {
+        return acessorios(session.createSelectionQuery("select a.id from Acessorio a where a.carro.id = :carroId order by a.id", Long.class)
+                .setParameter("carroId", carroId)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList());
+    }
+
+    public BulkDeleteResult carros(Collection<Long> ids) {
+        BulkDeleteResult result = new BulkDeleteResult();
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        for (List<Long> chunk : chunks(requested)) {
+            // id, ficha técnica e acessórios vinculados de cada carro existente, numa consulta.
+            // As linhas ficam travadas até o commit: nenhum acessório chega ao carro entre a
+            // leitura do contador e a exclusão
+            List<Object[]> rows = session.createSelectionQuery(
+                            "select c.id, c.fichaTecnica.id, c.quantidadeAcessorios from Carro c where c.id in :ids order by c.id", Object[].class)
+                    .setParameter("ids", chunk)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+            List<Long> free = new ArrayList<>();
+            List<Long> fichas = new ArrayList<>();
+            for (Object[] row : rows) {
+                long vinculados = (Long) row[2];
+                if (vinculados > 0) {
+                    result.blocked.put((Long) row[0], vinculados);
+                } else {
+                    free.add((Long) row[0]);
+                    if (row[1] != null) fichas.add((Long) row[1]);
+                }
+            }
+            if (free.isEmpty()) continue;
+            deleteIn("Carro", "id", free);
+            if (!fichas.isEmpty()) deleteIn("FichaTecnica", "id", fichas);
+            evict(cache -> {
+                free.forEach(id -> cache.evictEntityData(Carro.class, id));
+                fichas.forEach(id -> cache.evictEntityData(FichaTecnica.class, id));
+            });
+            result.deleted.addAll(free);
+        }
+        return finish(Carro.class, requested, result);
+    }
+
+    public BulkDeleteResult fabricantes(Collection<Long> ids) {
+        BulkDeleteResult result = new BulkDeleteResult();
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        for (List<Long> chunk : chunks(requested)) {
+            List<Object[]> rows = session.createSelectionQuery(
+                            "select f.id, f.quantidadeAcessorios from Fabricante f where f.id in :ids order by f.id", Object[].class)
+                    .setParameter("ids", chunk)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+            List<Long> free = new ArrayList<>();
+            for (Object[] row : rows) {
+                long vinculados = (Long) row[1];
+                if (vinculados > 0) result.blocked.put((Long) row[0], vinculados);
+                else free.add((Long) row[0]);
+            }
+            if (free.isEmpty()) continue;
+            // Sem passar pelo HQL, que apagaria antes as linhas de acessorio_fabricante e
+            // desvincularia em silêncio um acessório que o contador não viu: a chave
+            // estrangeira barra a exclusão
+            deleteIn("Fabricante", "id", free);
+            evict(cache -> free.forEach(id -> cache.evictEntityData(Fabricante.class, id)));
+            result.deleted.addAll(free);
+        }
+        return finish(Fabricante.class, requested, result);
+    }
+
+    private void deleteIn(String table, String column, List<Long> ids) {
+        String sql = "delete from " + table + " where " + column + " in (" + "?,".repeat(ids.size() - 1) + "?)";
+        session.doWork(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement(sql)) {
+                for (int i = 0; i < ids.size(); i++) delete.setLong(i + 1, ids.get(i));
+                delete.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Tira os ids removidos do cache de segundo nível agora e de novo depois do commit: até
+     * lá outra transação ainda lê a linha confirmada e pode devolvê-la ao cache.
+     */
+    private void evict(Consumer<Cache> eviction) {
+        Cache cache = session.getSessionFactory().getCache();
+        eviction.accept(cache);
+        session.unwrap(SessionImplementor.class).getActionQueue()
+                .registerProcess((success, s) -> eviction.accept(cache));
+    }
+
+    /**
+     * Ids pedidos que não foram removidos nem bloqueados não existem. Os comandos em lote
+     * não passam pelo contexto de persistência, que é limpo aqui.
+     */
+    private BulkDeleteResult finish(Class<?> type, Collection<Long> requested, BulkDeleteResult result) {
+        Set<Long> deleted = new HashSet<>(result.deleted);
+        for (Long id : requested) {
+            if (!deleted.contains(id) && !result.blocked.containsKey(id)) result.notFound.add(id);
+        }
+        session.clear();
+        for (Long id : result.deleted) changes.fire(EntityChanged.deleted(type, id));
+        return result;
+    }
+
+    private List<List<Long>> chunks(Set<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += chunkSize) {
+            chunks.add(all.subList(from, Math.min(from + chunkSize, all.size())));
+        }
+        return chunks;
+    }
+}
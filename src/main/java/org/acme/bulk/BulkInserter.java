@@ -0,0 +1,278 @@
+package org.acme.bulk;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.Fabricante;
+import org.acme.FichaTecnica;
+import org.acme.event.EntityChanged;
+import org.acme.usage.UsageCounts;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Inserção em lote. As referências de todos os itens são resolvidas com uma consulta IN
+ * por tipo e as linhas são gravadas por JDBC em batches de {@code api.bulk.chunk-size}.
+ * O Hibernate não agrupa inserts com {@code GenerationType.IDENTITY}, por isso os ids
+ * gerados são lidos de volta com {@code getGeneratedKeys()}.
+ * <p>
+ * Deve ser chamado dentro de uma transação; itens inválidos são recusados
+ * individualmente sem impedir a gravação dos demais.
+ */
+@ApplicationScoped
+public class BulkInserter {
+
+    private static final String INSERT_ACESSORIO =
+            "insert into Acessorio (nome, descricao, anoAquisicao, valor, tempoInstalacaoMinutos, carro_id) values (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ACESSORIO_FABRICANTE =
+            "insert into acessorio_fabricante (acessorio_id, fabricante_id) values (?, ?)";
+    private static final String INSERT_FICHA_TECNICA =
+            "insert into FichaTecnica (detalhesDoMotor, tipoDeCombustivel, opcionaisDeFabrica) values (?, ?, ?)";
+    private static final String INSERT_CARRO =
+            "insert into Carro (modelo, nomeCompletoVersao, dataDeFabricacao, paisDeMontagem, ficha_tecnica_id) values (?, ?, ?, ?, ?)";
+    private static final String INSERT_FABRICANTE =
+            "insert into Fabricante (nome, detalhes) values (?, ?)";
+
+    @ConfigProperty(name = "api.bulk.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @Inject
+    Session session;
+
+    @Inject
+    Validator validator;
+
+    @Inject
+    Event<EntityChanged> changes;
+
+    @Inject
+    UsageCounts usage;
+
+    public List<BulkItemResult> acessorios(List<Acessorio> items) {
+        BulkItemResult[] results = new BulkItemResult[items.size()];
+        List<Integer> valid = validate(items, results);
+
+        Set<Long> carroIds = new HashSet<>();
+        Set<Long> fabricanteIds = new HashSet<>();
+        for (int i : valid) {
+            Acessorio a = items.get(i);
+            if (a.carro != null && a.carro.id != null) carroIds.add(a.carro.id);
+            fabricanteIds.addAll(fabricanteIds(a));
+        }
+        Set<Long> carros = existing(Carro.class, carroIds);
+        Set<Long> fabricantes = existing(Fabricante.class, fabricanteIds);
+
+        List<Integer> accepted = new ArrayList<>(valid.size());
+        for (int i : valid) {
+            Acessorio a = items.get(i);
+            if (a.carro != null && a.carro.id != null && !carros.contains(a.carro.id)) {
+                results[i] = BulkItemResult.rejected(i, "Carro não existe");
+            } else if (!fabricantes.containsAll(fabricanteIds(a))) {
+                results[i] = BulkItemResult.rejected(i, "Fabricante não existe");
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        session.doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_ACESSORIO, Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement link = connection.prepareStatement(INSERT_ACESSORIO_FABRICANTE)) {
+                for (List<Integer> chunk : chunks(accepted)) {
+                    for (int i : chunk) {
+                        Acessorio a = items.get(i);
+                        insert.setString(1, a.nome);
+                        insert.setString(2, a.descricao);
+                        insert.setInt(3, a.anoAquisicao);
+                        insert.setDouble(4, a.valor);
+                        insert.setInt(5, a.tempoInstalacaoMinutos);
+                        setId(insert, 6, a.carro != null ? a.carro.id : null);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    long[] keys = generatedKeys(insert, chunk.size());
+
+                    for (int k = 0; k < keys.length; k++) {
+                        Acessorio a = items.get(chunk.get(k));
+                        a.id = keys[k];
+                        for (Long fabricanteId : fabricanteIds(a)) {
+                            link.setLong(1, a.id);
+                            link.setLong(2, fabricanteId);
+                            link.addBatch();
+                        }
+                    }
+                    link.executeBatch();
+                }
+            }
+        });
+
+        UsageCounts.Deltas deltas = new UsageCounts.Deltas();
+        for (int i : accepted) {
+            Acessorio a = items.get(i);
+            deltas.add(a.carro != null ? a.carro.id : null, fabricanteIds(a), 1);
+        }
+        usage.apply(deltas);
+
+        for (int i : accepted) {
+            Acessorio a = items.get(i);
+            results[i] = BulkItemResult.created(i, a.id);
+            changes.fire(EntityChanged.created(Acessorio.class, a.id, a));
+        }
+        return Arrays.asList(results);
+    }
+
+    public List<BulkItemResult> carros(List<Carro> items) {
+        BulkItemResult[] results = new BulkItemResult[items.size()];
+        List<Integer> accepted = validate(items, results);
+
+        session.doWork(connection -> {
+            try (PreparedStatement ficha = connection.prepareStatement(INSERT_FICHA_TECNICA, Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement insert = connection.prepareStatement(INSERT_CARRO, Statement.RETURN_GENERATED_KEYS)) {
+                for (List<Integer> chunk : chunks(accepted)) {
+                    List<FichaTecnica> fichas = new ArrayList<>();
+                    for (int i : chunk) {
+                        FichaTecnica f = items.get(i).fichaTecnica;
+                        if (f == null) continue;
+                        ficha.setString(1, f.detalhesDoMotor);
+                        ficha.setString(2, f.tipoDeCombustivel);
+                        ficha.setString(3, f.opcionaisDeFabrica);
+                        ficha.addBatch();
+                        fichas.add(f);
+                    }
+                    if (!fichas.isEmpty()) {
+                        ficha.executeBatch();
+                        long[] keys = generatedKeys(ficha, fichas.size());
+                        for (int k = 0; k < keys.length; k++) fichas.get(k).id = keys[k];
+                    }
+
+                    for (int i : chunk) {
+                        Carro c = items.get(i);
+                        insert.setString(1, c.modelo);
+                        insert.setString(2, c.nomeCompletoVersao);
+                        if (c.dataDeFabricacao != null) insert.setDate(3, Date.valueOf(c.dataDeFabricacao));
+                        else insert.setNull(3, Types.DATE);
+                        insert.setString(4, c.paisDeMontagem);
+                        setId(insert, 5, c.fichaTecnica != null ? c.fichaTecnica.id : null);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    long[] keys = generatedKeys(insert, chunk.size());
+                    for (int k = 0; k < keys.length; k++) items.get(chunk.get(k)).id = keys[k];
+                }
+            }
+        });
+
+        for (int i : accepted) {
+            Carro c = items.get(i);
+            results[i] = BulkItemResult.created(i, c.id);
+            changes.fire(EntityChanged.created(Carro.class, c.id, c));
+        }
+        return Arrays.asList(results);
+    }
+
+    public List<BulkItemResult> fabricantes(List<Fabricante> items) {
+        BulkItemResult[] results = new BulkItemResult[items.size()];
+        List<Integer> accepted = validate(items, results);
+
+        session.doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_FABRICANTE, Statement.RETURN_GENERATED_KEYS)) {
+                for (List<Integer> chunk : chunks(accepted)) {
+                    for (int i : chunk) {
+                        Fabricante f = items.get(i);
+                        insert.setString(1, f.nome);
+                        insert.setString(2, f.detalhes);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    long[] keys = generatedKeys(insert, chunk.size());
+                    for (int k = 0; k < keys.length; k++) items.get(chunk.get(k)).id = keys[k];
+                }
+            }
+        });
+
+        for (int i : accepted) {
+            Fabricante f = items.get(i);
+            results[i] = BulkItemResult.created(i, f.id);
+            changes.fire(EntityChanged.created(Fabricante.class, f.id, f));
+        }
+        return Arrays.asList(results);
+    }
+
+    private <T> List<Integer> validate(List<T> items, BulkItemResult[] results) {
+        List<Integer> valid = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            if (item == null) {
+                results[i] = BulkItemResult.rejected(i, "Item vazio");
+                continue;
+            }
+            Set<ConstraintViolation<T>> violations = validator.validate(item);
+            if (violations.isEmpty()) {
+                valid.add(i);
+                continue;
+            }
+            List<String> erros = new ArrayList<>();
+            for (ConstraintViolation<T> violation : violations) {
+                erros.add(violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+            results[i] = BulkItemResult.rejected(i, erros);
+        }
+        return valid;
+    }
+
+    private Set<Long> existing(Class<?> type, Collection<Long> ids) {
+        if (ids.isEmpty()) return Set.of();
+        return new HashSet<>(session.createSelectionQuery("select e.id from " + type.getSimpleName() + " e where e.id in :ids", Long.class)
+                .setParameter("ids", ids)
+                .getResultList());
+    }
+
+    private static Set<Long> fabricanteIds(Acessorio a) {
+        Set<Long> ids = new HashSet<>();
+        if (a.fabricantes == null) return ids;
+        for (Fabricante f : a.fabricantes) {
+            if (f == null || f.id == null || f.id.longValue() == 0) continue;
+            ids.add(f.id);
+        }
+        return ids;
+    }
+
+    private List<List<Integer>> chunks(List<Integer> indexes) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < indexes.size(); from += chunkSize) {
+            chunks.add(indexes.subList(from, Math.min(from + chunkSize, indexes.size())));
+        }
+        return chunks;
+    }
+
+    private static void setId(PreparedStatement statement, int index, Long id) throws SQLException {
+        if (id != null) statement.setLong(index, id);
+        else statement.setNull(index, Types.BIGINT);
+    }
+
+    private static long[] generatedKeys(PreparedStatement statement, int expected) throws SQLException {
+        long[] keys = new long[expected];
+        int k = 0;
+        try (ResultSet rs = statement.getGeneratedKeys()) {
+            while (rs.next() && k < expected) keys[k++] = rs.getLong(1);
+        }
+        if (k != expected) throw new SQLException("Esperadas " + expected + " chaves geradas, recebidas " + k);
+        return keys;
+    }
+}
@@ -0,0 +1,31 @@
+package org.acme.bulk;
+
+import java.util.List;
+
+public class BulkItemResult {
+    public int index;
+    public int status;
+    public Long id;
+    public List<String> errors = List.of();
+
+    public BulkItemResult() {}
+
+    public BulkItemResult(int index, int status, Long id, List<String> errors) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public static BulkItemResult created(int index, Long id) {
+        return new BulkItemResult(index, 201, id, List.of());
+    }
+
+    public static BulkItemResult rejected(int index, List<String> errors) {
+        return new BulkItemResult(index, 400, null, errors);
+    }
+
+    public static BulkItemResult rejected(int index, String error) {
+        return rejected(index, List.of(error));
+    }
+}
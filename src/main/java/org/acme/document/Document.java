@@ -0,0 +1,77 @@
+package org.acme.document;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import jakarta.ws.rs.core.EntityTag;
+
+import java.io.IOException;
+
+/**
+ * JSON já renderizado de uma entidade, com o ETag calculado na mesma leitura. Dentro de
+ * outra resposta JSON ele é copiado como está, sem nova serialização; em CBOR ou Smile
+ * é convertido token a token.
+ */
+@JsonSerialize(using = Document.Serializer.class)
+public final class Document {
+
+    public final long id;
+    private final SerializedString json;
+    private final EntityTag tag;
+    final Long owner;
+    final long versao;
+    final long read;
+
+    Document(long id, String json, EntityTag tag, Long owner, long versao, long read) {
+        this.id = id;
+        this.json = new SerializedString(json);
+        this.json.asUnquotedUTF8();
+        this.tag = tag;
+        this.owner = owner;
+        this.versao = versao;
+        this.read = read;
+    }
+
+    /**
+     * A versão maior vence; na mesma versão, vence a leitura iniciada depois, que já vê as
+     * dependências (carro, fabricantes) mais novas.
+     */
+    boolean newerThan(Document other) {
+        return versao != other.versao ? versao > other.versao : read > other.read;
+    }
+
+    /**
+     * Bytes UTF-8 do JSON; compartilhados, não devem ser alterados.
+     */
+    public byte[] bytes() {
+        return json.asUnquotedUTF8();
+    }
+
+    public EntityTag tag() {
+        return tag;
+    }
+
+    public static final class Serializer extends StdSerializer<Document> {
+        private static final JsonFactory JSON = new JsonFactory();
+
+        public Serializer() {
+            super(Document.class);
+        }
+
+        @Override
+        public void serialize(Document document, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (!gen.canWriteBinaryNatively()) {
+                gen.writeRawValue(document.json);
+                return;
+            }
+            try (JsonParser parser = JSON.createParser(document.bytes())) {
+                parser.nextToken();
+                gen.copyCurrentStructure(parser);
+            }
+        }
+    }
+}
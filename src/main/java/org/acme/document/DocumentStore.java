@@ -0,0 +1,349 @@
+package org.acme.document;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.Fabricante;
+import org.acme.etag.EntityTags;
+import org.acme.event.EntityChanged;
+import org.acme.search.Keyset;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modelo de leitura com o JSON de cada carro, acessório e fabricante já renderizado, na
+ * forma padrão das respostas (sem {@code fields} nem {@code expand}). Listas e páginas
+ * são montadas copiando os bytes de cada documento para a saída.
+ * <p>
+ * É montado na inicialização e, a cada transação confirmada, renderiza de novo os
+ * documentos alterados e os que dependem deles: os acessórios de um carro ou de um
+ * fabricante, cujo ETag inclui as versões deles. As alterações de uma transação são
+ * juntadas e lidas em blocos de {@code chunk-size}, sem buscar associações: o JSON tem a
+ * mesma forma da resposta sem o modelo, e os ETags saem das projeções de
+ * {@link EntityTags} para o bloco inteiro. Como cada lote é aplicado depois do commit, um
+ * documento só substitui o guardado quando é mais novo ({@link Document#newerThan}).
+ * Ligado por {@code api.documents.enabled}.
+ */
+@ApplicationScoped
+public class DocumentStore {
+
+    private static final byte[] OPEN = {'['};
+    private static final byte[] COMMA = {','};
+    private static final byte[] CLOSE = {']'};
+
+    @ConfigProperty(name = "api.documents.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "api.documents.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    ObjectMapper mapper;
+
+    @Inject
+    EntityTags tags;
+
+    @Inject
+    TransactionSynchronizationRegistry registry;
+
+    private final Map<Class<?>, ConcurrentSkipListMap<Long, Document>> documents = Map.of(
+            Acessorio.class, new ConcurrentSkipListMap<>(),
+            Carro.class, new ConcurrentSkipListMap<>(),
+            Fabricante.class, new ConcurrentSkipListMap<>());
+
+    /**
+     * Lote de cada evento ainda não entregue depois do commit; por identidade, já que dois
+     * eventos iguais podem vir de transações diferentes.
+     */
+    private final Map<EntityChanged, Batch> pending = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * Ordem de início das leituras; desempata documentos da mesma versão.
+     */
+    private final AtomicLong reads = new AtomicLong();
+
+    @Transactional
+    void onStart(@Observes StartupEvent ev) {
+        if (enabled) rebuild();
+    }
+
+    /**
+     * Renderiza tudo de novo, em blocos de {@code chunk-size} entidades.
+     */
+    @Transactional
+    public void rebuild() {
+        for (Map.Entry<Class<?>, ConcurrentSkipListMap<Long, Document>> entry : documents.entrySet()) {
+            Class<?> type = entry.getKey();
+            entry.getValue().clear();
+            long after = Long.MIN_VALUE;
+            while (true) {
+                List<Long> ids = em.createQuery("select e.id from " + type.getSimpleName() + " e where e.id > :after order by e.id", Long.class)
+                        .setParameter("after", after)
+                        .setMaxResults(chunkSize)
+                        .getResultList();
+                if (ids.isEmpty()) break;
+                load(type, ids);
+                after = ids.get(ids.size() - 1);
+                if (ids.size() < chunkSize) break;
+            }
+        }
+    }
+
+    /**
+     * Junta o evento ao lote da transação em curso.
+     */
+    void collect(@Observes EntityChanged change) {
+        if (!enabled || !documents.containsKey(change.type()) || registry.getTransactionKey() == null) return;
+        Batch batch = (Batch) registry.getResource(Batch.class);
+        if (batch == null) registry.putResource(Batch.class, batch = new Batch());
+        batch.add(change);
+        pending.put(change, batch);
+    }
+
+    /**
+     * O primeiro evento entregue depois do commit aplica o lote inteiro da transação, antes
+     * dos observadores de {@link EntityChanged#VERSIONS}; os demais só saem da fila. Um
+     * evento disparado fora de transação é um lote sozinho.
+     */
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(EntityChanged.READ_MODEL) EntityChanged change) {
+        if (!enabled || !documents.containsKey(change.type())) return;
+        Batch batch = pending.remove(change);
+        if (batch == null) {
+            batch = new Batch();
+            batch.add(change);
+        }
+        if (batch.claim()) apply(batch);
+    }
+
+    void discard(@Observes(during = TransactionPhase.AFTER_FAILURE) EntityChanged change) {
+        pending.remove(change);
+    }
+
+    /**
+     * Roda depois do commit, numa transação nova, para ler o estado já confirmado. Chamado
+     * de {@link #onChange} no próprio bean, então a transação é aberta aqui, não por
+     * interceptador.
+     */
+    void apply(Batch batch) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            Set<Long> carros = batch.changed.get(Carro.class);
+            Set<Long> fabricantes = batch.changed.get(Fabricante.class);
+            Set<Long> acessorios = batch.changed.get(Acessorio.class);
+
+            batch.deleted.forEach((type, ids) -> ids.forEach(documents.get(type)::remove));
+            Set<Long> carrosExcluidos = batch.deleted.get(Carro.class);
+            if (!carrosExcluidos.isEmpty()) {
+                documents.get(Acessorio.class).values().removeIf(document -> document.owner != null && carrosExcluidos.contains(document.owner));
+            }
+
+            if (!carros.isEmpty()) {
+                acessorios.addAll(dependents("select a.id from Acessorio a where a.carro.id in :ids", carros));
+            }
+            if (!fabricantes.isEmpty()) {
+                acessorios.addAll(dependents("select a.id from Acessorio a join a.fabricantes f where f.id in :ids", fabricantes));
+            }
+            batch.changed.forEach(this::refresh);
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return null quando o documento não existe ou o modelo está desligado
+     */
+    public Document get(Class<?> type, long id) {
+        return enabled ? documents.get(type).get(id) : null;
+    }
+
+    /**
+     * Documentos das linhas de uma página (entidades, ids ou projeções com {@code id}), na
+     * mesma ordem. As linhas confirmadas cujo documento ainda não chegou são renderizadas
+     * na hora, juntas, pela mesma leitura dos lotes.
+     */
+    public List<Object> get(Class<?> type, List<?> rows) {
+        ConcurrentSkipListMap<Long, Document> target = documents.get(type);
+        Map<Long, Document> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Object row : rows) {
+            if (row instanceof Document) continue;
+            long id = id(row);
+            Document document = target.get(id);
+            if (document != null) found.put(id, document);
+            else missing.add(id);
+        }
+        if (!missing.isEmpty()) {
+            for (Document document : render(type, missing)) found.put(document.id, document);
+        }
+
+        List<Object> page = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            if (row instanceof Document) {
+                page.add(row);
+                continue;
+            }
+            Document document = found.get(id(row));
+            if (document != null) page.add(document);
+        }
+        return page;
+    }
+
+    private static long id(Object row) {
+        return row instanceof Number number ? number.longValue() : ((Number) Keyset.valueOf(row, "id")).longValue();
+    }
+
+    /**
+     * Array JSON com todos os documentos do tipo, em ordem de id, escrito direto na saída.
+     */
+    public StreamingOutput array(Class<?> type) {
+        ConcurrentSkipListMap<Long, Document> target = documents.get(type);
+        return out -> {
+            out.write(OPEN);
+            boolean first = true;
+            for (Document document : target.values()) {
+                if (!first) out.write(COMMA);
+                out.write(document.bytes());
+                first = false;
+            }
+            out.write(CLOSE);
+        };
+    }
+
+    private List<Long> dependents(String query, Set<Long> ids) {
+        List<Long> dependents = new ArrayList<>();
+        for (List<Long> chunk : chunks(ids)) {
+            dependents.addAll(em.createQuery(query, Long.class).setParameter("ids", chunk).getResultList());
+        }
+        return dependents;
+    }
+
+    /**
+     * Renderiza de novo os documentos dos ids; os que não existem mais saem do modelo.
+     */
+    private void refresh(Class<?> type, Set<Long> ids) {
+        if (ids.isEmpty()) return;
+        for (List<Long> chunk : chunks(ids)) {
+            Set<Long> found = load(type, chunk);
+            for (Long id : chunk) {
+                if (!found.contains(id)) documents.get(type).remove(id);
+            }
+        }
+    }
+
+    /**
+     * @return ids encontrados
+     */
+    private Set<Long> load(Class<?> type, List<Long> ids) {
+        Set<Long> found = new HashSet<>();
+        for (Document document : render(type, ids)) {
+            keep(type, document);
+            found.add(document.id);
+        }
+        em.clear();
+        return found;
+    }
+
+    /**
+     * Guarda o documento, a menos que o já guardado seja mais novo: dois lotes com o mesmo
+     * id podem terminar fora de ordem.
+     */
+    void keep(Class<?> type, Document document) {
+        documents.get(type).merge(document.id, document, (stored, rendered) -> rendered.newerThan(stored) ? rendered : stored);
+    }
+
+    private List<List<Long>> chunks(Set<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += chunkSize) {
+            chunks.add(all.subList(from, Math.min(all.size(), from + chunkSize)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Carrega as entidades como {@code findById}, sem buscar associações, e serializa cada
+     * uma antes de qualquer outra leitura: um carro ou fabricante não carregado sai só com
+     * o id, igual à resposta sem o modelo. Os ETags vêm depois, por projeção.
+     */
+    private List<Document> render(Class<?> type, List<Long> ids) {
+        long read = reads.incrementAndGet();
+        List<?> entities = em.createQuery("select e from " + type.getSimpleName() + " e where e.id in :ids", type)
+                .setParameter("ids", ids)
+                .getResultList();
+        Map<Object, String> json = new IdentityHashMap<>();
+        try {
+            for (Object entity : entities) json.put(entity, mapper.writeValueAsString(entity));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível renderizar o documento", e);
+        }
+
+        Map<Long, EntityTag> tagged = type == Acessorio.class ? tags.acessorios(ids)
+                : type == Carro.class ? tags.carros(ids)
+                : tags.fabricantes(ids);
+        List<Document> rendered = new ArrayList<>(entities.size());
+        for (Object entity : entities) {
+            rendered.add(switch (entity) {
+                case Acessorio a -> new Document(a.id, json.get(a), tagged.get(a.id), a.carro != null ? a.carro.id : null, a.versao, read);
+                case Carro c -> new Document(c.id, json.get(c), tagged.get(c.id), null, c.versao, read);
+                case Fabricante f -> new Document(f.id, json.get(f), tagged.get(f.id), null, f.versao, read);
+                default -> throw new IllegalArgumentException("Tipo sem documento: " + entity.getClass());
+            });
+        }
+        return rendered;
+    }
+
+    /**
+     * Ids alterados e excluídos numa transação; um id excluído depois de alterado fica só
+     * entre os excluídos, e vice-versa.
+     */
+    static final class Batch {
+        final Map<Class<?>, Set<Long>> changed = Map.of(
+                Acessorio.class, new LinkedHashSet<>(), Carro.class, new LinkedHashSet<>(), Fabricante.class, new LinkedHashSet<>());
+        final Map<Class<?>, Set<Long>> deleted = Map.of(
+                Acessorio.class, new HashSet<>(), Carro.class, new HashSet<>(), Fabricante.class, new HashSet<>());
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        synchronized void add(EntityChanged change) {
+            if (change.kind() == EntityChanged.Kind.DELETED) {
+                changed.get(change.type()).remove(change.id());
+                deleted.get(change.type()).add(change.id());
+            } else {
+                deleted.get(change.type()).remove(change.id());
+                changed.get(change.type()).add(change.id());
+            }
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+}
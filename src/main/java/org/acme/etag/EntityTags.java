@@ -0,0 +1,142 @@
+package org.acme.etag;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.core.EntityTag;
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.Fabricante;
+import org.acme.event.EntityChanged;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ETags fortes calculados sem serializar o corpo.
+ * <p>
+ * Para um item, o ETag combina o {@code versao} da entidade com o das entidades que
+ * aparecem no seu JSON, lidos por uma projeção sem carregar o grafo (em lote, para o
+ * modelo de leitura). Para listas e pesquisas, combina a época desta instância com um
+ * contador de escritas confirmadas por tipo: qualquer escrita no tipo ou em um tipo
+ * embutido muda o ETag.
+ */
+@ApplicationScoped
+public class EntityTags {
+
+    private static final Object[] NO_FABRICANTES = {0L, 0L, 0L};
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Class<?>, AtomicLong> generations = Map.of(
+            Acessorio.class, new AtomicLong(),
+            Carro.class, new AtomicLong(),
+            Fabricante.class, new AtomicLong());
+
+    @Inject
+    EntityManager em;
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(EntityChanged.VERSIONS) EntityChanged change) {
+        AtomicLong generation = generations.get(change.type());
+        if (generation != null) generation.incrementAndGet();
+    }
+
+    public EntityTag list(Class<?>... dependsOn) {
+        StringBuilder value = new StringBuilder("l").append(epoch);
+        for (Class<?> type : dependsOn) value.append('.').append(generations.get(type).get());
+        return new EntityTag(value.toString());
+    }
+
+    /**
+     * @return null quando o acessório não existe
+     */
+    public EntityTag acessorio(long id) {
+        List<Object[]> rows = em.createQuery(
+                        "select a.versao, c.id, c.versao, ft.id, ft.versao from Acessorio a " +
+                                "left join a.carro c left join c.fichaTecnica ft where a.id = :id", Object[].class)
+                .setParameter("id", id)
+                .getResultList();
+        if (rows.isEmpty()) return null;
+        Object[] fabricantes = em.createQuery(
+                        "select count(f), coalesce(sum(f.id), 0), coalesce(sum(f.versao), 0) from Acessorio a " +
+                                "join a.fabricantes f where a.id = :id", Object[].class)
+                .setParameter("id", id)
+                .getSingleResult();
+        return tag("a", id, rows.get(0), fabricantes);
+    }
+
+    public EntityTag carro(long id) {
+        List<Object[]> rows = em.createQuery(
+                        "select c.versao, ft.id, ft.versao from Carro c left join c.fichaTecnica ft where c.id = :id", Object[].class)
+                .setParameter("id", id)
+                .getResultList();
+        return rows.isEmpty() ? null : tag("c", id, rows.get(0));
+    }
+
+    public EntityTag fabricante(long id) {
+        List<Long> rows = em.createQuery("select f.versao from Fabricante f where f.id = :id", Long.class)
+                .setParameter("id", id)
+                .getResultList();
+        return rows.isEmpty() ? null : tag("f", id, new Object[]{rows.get(0)});
+    }
+
+    /**
+     * Os ETags de {@link #acessorio(long)} para vários ids, com as mesmas projeções; os ids
+     * que não existem ficam de fora.
+     */
+    public Map<Long, EntityTag> acessorios(Collection<Long> ids) {
+        Map<Long, Object[]> fabricantes = new HashMap<>();
+        for (Object[] row : em.createQuery(
+                        "select a.id, count(f), coalesce(sum(f.id), 0), coalesce(sum(f.versao), 0) from Acessorio a " +
+                                "join a.fabricantes f where a.id in :ids group by a.id", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList()) {
+            fabricantes.put((Long) row[0], Arrays.copyOfRange(row, 1, row.length));
+        }
+        Map<Long, EntityTag> tags = new HashMap<>();
+        for (Object[] row : em.createQuery(
+                        "select a.id, a.versao, c.id, c.versao, ft.id, ft.versao from Acessorio a " +
+                                "left join a.carro c left join c.fichaTecnica ft where a.id in :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList()) {
+            long id = (Long) row[0];
+            tags.put(id, tag("a", id, Arrays.copyOfRange(row, 1, row.length), fabricantes.getOrDefault(id, NO_FABRICANTES)));
+        }
+        return tags;
+    }
+
+    public Map<Long, EntityTag> carros(Collection<Long> ids) {
+        return tags("c", "select c.id, c.versao, ft.id, ft.versao from Carro c left join c.fichaTecnica ft where c.id in :ids", ids);
+    }
+
+    public Map<Long, EntityTag> fabricantes(Collection<Long> ids) {
+        return tags("f", "select f.id, f.versao from Fabricante f where f.id in :ids", ids);
+    }
+
+    private Map<Long, EntityTag> tags(String prefix, String query, Collection<Long> ids) {
+        Map<Long, EntityTag> tags = new HashMap<>();
+        for (Object[] row : em.createQuery(query, Object[].class).setParameter("ids", ids).getResultList()) {
+            long id = (Long) row[0];
+            tags.put(id, tag(prefix, id, Arrays.copyOfRange(row, 1, row.length)));
+        }
+        return tags;
+    }
+
+    private static EntityTag tag(String prefix, long id, Object[]... parts) {
+        StringBuilder value = new StringBuilder(prefix).append(id);
+        for (Object[] part : parts) {
+            value.append('-');
+            for (int i = 0; i < part.length; i++) {
+                if (i > 0) value.append('.');
+                value.append(part[i] == null ? "n" : part[i]);
+            }
+        }
+        return new EntityTag(value.toString());
+    }
+}
@@ -0,0 +1,38 @@
+package org.acme.event;
+
+import jakarta.interceptor.Interceptor;
+
+/**
+ * Disparado pelos resources a cada escrita confirmada. Observadores que mantêm
+ * estruturas em memória (índices, caches, contadores) devem usar
+ * {@code @Observes(during = TransactionPhase.AFTER_SUCCESS)} para só enxergar
+ * alterações que chegaram ao banco.
+ * <p>
+ * A ordem importa: quem atualiza índices e modelos de leitura usa {@link #READ_MODEL} e
+ * roda antes de quem muda ETags e esvazia caches ({@link #VERSIONS}). Assim, uma pesquisa
+ * que já vê o ETag novo também vê a escrita, e nada é guardado no cache com a chave nova
+ * a partir de um índice antigo.
+ */
+public record EntityChanged(Kind kind, Class<?> type, Long id, Object entity) {
+
+    public static final int READ_MODEL = Interceptor.Priority.APPLICATION;
+    public static final int VERSIONS = Interceptor.Priority.APPLICATION + 1000;
+
+    public enum Kind { CREATED, UPDATED, DELETED }
+
+    public static EntityChanged created(Class<?> type, Long id, Object entity) {
+        return new EntityChanged(Kind.CREATED, type, id, entity);
+    }
+
+    public static EntityChanged updated(Class<?> type, Long id, Object entity) {
+        return new EntityChanged(Kind.UPDATED, type, id, entity);
+    }
+
+    public static EntityChanged deleted(Class<?> type, Long id) {
+        return new EntityChanged(Kind.DELETED, type, id, null);
+    }
+
+    public boolean is(Class<?> other) {
+        return type == other;
+    }
+}
@@ -0,0 +1,31 @@
+package org.acme.exception;
+
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import org.acme.format.BinaryFormats;
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.util.List;
+
+/**
+ * Uma restrição do banco barrou a escrita, como a chave estrangeira de um acessório
+ * vinculado depois da checagem dos contadores de uso: o estado mudou, então é 409, não 500.
+ */
+@Provider
+public class ConstraintConflictMapper implements ExceptionMapper<ConstraintViolationException> {
+
+    @Context
+    HttpHeaders headers;
+
+    @Override
+    public Response toResponse(ConstraintViolationException exception) {
+        return Response.status(Response.Status.CONFLICT)
+                .entity(new ValidationExceptionMapper.ErrorBody(409, "Conflito",
+                        List.of("A operação viola uma restrição de integridade; o registro pode ter vínculos novos.")))
+                .type(BinaryFormats.negotiate(headers.getAcceptableMediaTypes()))
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package org.acme.exception;
+
+import jakarta.persistence.OptimisticLockException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.ExceptionMapper;
+import jakarta.ws.rs.ext.Provider;
+import org.acme.format.BinaryFormats;
+import org.hibernate.StaleObjectStateException;
+
+import java.util.List;
+
+/**
+ * Outra escrita confirmou uma nova {@code versao} entre a leitura e o flush. Com
+ * {@code If-Match} a pré-condição deixou de valer: 412, como quando o ETag já chega
+ * desatualizado. Sem ele é um conflito comum: 409.
+ */
+@Provider
+public class OptimisticLockMapper implements ExceptionMapper<OptimisticLockException> {
+
+    @Context
+    HttpHeaders headers;
+
+    @Override
+    public Response toResponse(OptimisticLockException exception) {
+        return response(headers);
+    }
+
+    static Response response(HttpHeaders headers) {
+        boolean conditional = headers.getHeaderString(HttpHeaders.IF_MATCH) != null;
+        Response.Status status = conditional ? Response.Status.PRECONDITION_FAILED : Response.Status.CONFLICT;
+        return Response.status(status)
+                .entity(new ValidationExceptionMapper.ErrorBody(status.getStatusCode(),
+                        conditional ? "Pré-condição falhou" : "Conflito",
+                        List.of("O registro foi alterado por outra requisição; leia-o de novo antes de editar.")))
+                .type(BinaryFormats.negotiate(headers.getAcceptableMediaTypes()))
+                .build();
+    }
+
+    /**
+     * A mesma falha quando chega sem a conversão para a exceção do JPA.
+     */
+    @Provider
+    public static class Stale implements ExceptionMapper<StaleObjectStateException> {
+
+        @Context
+        HttpHeaders headers;
+
+        @Override
+        public Response toResponse(StaleObjectStateException exception) {
+            return response(headers);
+        }
+    }
+}
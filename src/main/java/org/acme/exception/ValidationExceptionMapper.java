@@ -2,15 +2,21 @@ package org.acme.exception;
 
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
+import org.acme.format.BinaryFormats;
 import java.util.ArrayList;
 import java.util.List;
 
 @Provider
 public class ValidationExceptionMapper implements ExceptionMapper<ConstraintViolationException> {
 
+    @Context
+    HttpHeaders headers;
+
     @Override
     public Response toResponse(ConstraintViolationException exception) {
         List<String> erros = new ArrayList<>();
@@ -30,6 +36,7 @@ public class ValidationExceptionMapper implements ExceptionMapper<ConstraintViol
 
         return Response.status(400)
                 .entity(new ErrorBody(400, "Erro de Validação", erros))
+                .type(BinaryFormats.negotiate(headers.getAcceptableMediaTypes()))
                 .build();
     }
 
@@ -0,0 +1,116 @@
+package org.acme.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportação em NDJSON (um objeto JSON por linha). As linhas são lidas com um cursor
+ * somente-leitura e, sem consulta de {@code fetch}, escritas na resposta assim que chegam;
+ * a cada {@code api.export.chunk-size} linhas a sessão é limpa e a saída descarregada.
+ * Com {@code fetch}, cada bloco é acumulado, tem as coleções carregadas numa consulta só e
+ * só então é escrito, então a primeira linha sai depois do primeiro bloco. Nos dois casos
+ * a memória não cresce com o tamanho da tabela.
+ */
+@ApplicationScoped
+public class NdjsonExporter {
+
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    @ConfigProperty(name = "api.export.chunk-size", defaultValue = "500")
+    int chunkSize;
+
+    /**
+     * Prazo da transação que segura o cursor. O padrão do gerenciador (60 s) cortaria uma
+     * exportação longa no meio, depois do 200 já enviado.
+     */
+    @ConfigProperty(name = "api.export.transaction-timeout", defaultValue = "PT1H")
+    Duration transactionTimeout;
+
+    @Inject
+    Session session;
+
+    @Inject
+    ObjectMapper mapper;
+
+    /**
+     * @param hql consulta ordenada; associações to-one serializadas devem vir com join fetch
+     */
+    public <T> StreamingOutput stream(Class<T> type, String hql) {
+        return stream(type, hql, null);
+    }
+
+    /**
+     * @param fetch consulta com o parâmetro {@code :ids} que carrega por join fetch as
+     *              coleções serializadas; roda uma vez por bloco, ou null quando não há e
+     *              as linhas podem sair uma a uma
+     */
+    public <T> StreamingOutput stream(Class<T> type, String hql, String fetch) {
+        return output -> QuarkusTransaction.requiringNew()
+                .timeout((int) transactionTimeout.toSeconds())
+                .run(() -> write(type, hql, fetch, output));
+    }
+
+    private <T> void write(Class<T> type, String hql, String fetch, OutputStream output) {
+        ObjectWriter writer = mapper.writerFor(type);
+        try (ScrollableResults<T> rows = session.createSelectionQuery(hql, type)
+                .setReadOnly(true)
+                .setFetchSize(chunkSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            if (fetch == null) {
+                int inChunk = 0;
+                while (rows.next()) {
+                    write(rows.get(), writer, output);
+                    if (++inChunk == chunkSize) {
+                        inChunk = 0;
+                        session.clear();
+                        output.flush();
+                    }
+                }
+                output.flush();
+                return;
+            }
+            List<T> chunk = new ArrayList<>(chunkSize);
+            while (rows.next()) {
+                chunk.add(rows.get());
+                if (chunk.size() == chunkSize) write(type, fetch, chunk, writer, output);
+            }
+            if (!chunk.isEmpty()) write(type, fetch, chunk, writer, output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Escreve e descarta o bloco: as coleções chegam nas mesmas instâncias da sessão, depois
+     * a sessão é limpa e a saída descarregada.
+     */
+    private <T> void write(Class<T> type, String fetch, List<T> chunk, ObjectWriter writer, OutputStream output) throws IOException {
+        List<Object> ids = new ArrayList<>(chunk.size());
+        for (T row : chunk) ids.add(session.getIdentifier(row));
+        session.createSelectionQuery(fetch, type).setParameter("ids", ids).setReadOnly(true).getResultList();
+        for (T row : chunk) write(row, writer, output);
+        chunk.clear();
+        session.clear();
+        output.flush();
+    }
+
+    private static void write(Object row, ObjectWriter writer, OutputStream output) throws IOException {
+        output.write(writer.writeValueAsBytes(row));
+        output.write('\n');
+    }
+}
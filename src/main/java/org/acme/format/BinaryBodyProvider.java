@@ -0,0 +1,54 @@
+package org.acme.format;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Lê e escreve corpos em CBOR e Smile com o mesmo mapeamento do JSON. Corpos já prontos
+ * ({@code byte[]} e {@code StreamingOutput}) passam pelos providers padrão.
+ */
+@Provider
+@Produces({BinaryFormats.CBOR, BinaryFormats.SMILE})
+@Consumes({BinaryFormats.CBOR, BinaryFormats.SMILE})
+public class BinaryBodyProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    @Inject
+    BinaryFormats formats;
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return BinaryFormats.isBinary(mediaType) && type != byte[].class && !InputStream.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                           MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        ObjectMapper mapper = formats.mapper(mediaType);
+        return mapper.readerFor(mapper.constructType(genericType)).readValue(entityStream);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return BinaryFormats.isBinary(mediaType) && type != byte[].class && !StreamingOutput.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+                        MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+        formats.mapper(mediaType).writeValue(entityStream, entity);
+    }
+}
@@ -0,0 +1,72 @@
+package org.acme.format;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.List;
+
+/**
+ * Formatos binários aceitos ao lado do JSON: CBOR e Smile. Os mappers são cópias do
+ * ObjectMapper da aplicação, com os mesmos módulos e configurações, trocando só o formato.
+ */
+@ApplicationScoped
+public class BinaryFormats {
+
+    public static final String CBOR = "application/cbor";
+    public static final String SMILE = "application/x-jackson-smile";
+    public static final MediaType CBOR_TYPE = MediaType.valueOf(CBOR);
+    public static final MediaType SMILE_TYPE = MediaType.valueOf(SMILE);
+
+    @Inject
+    ObjectMapper json;
+
+    private ObjectMapper cbor;
+    private ObjectMapper smile;
+
+    @PostConstruct
+    void init() {
+        cbor = json.copyWith(new CBORFactory())
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        smile = json.copyWith(new SmileFactory())
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+    }
+
+    /**
+     * Formato da resposta pela ordem do {@code Accept}: JSON, CBOR ou Smile. Curingas e
+     * tipos que não são nenhum dos três ficam com JSON.
+     */
+    public static MediaType negotiate(List<MediaType> acceptable) {
+        for (MediaType accepted : acceptable) {
+            if (accepted.isWildcardSubtype() || is(accepted, MediaType.APPLICATION_JSON_TYPE)) return MediaType.APPLICATION_JSON_TYPE;
+            if (is(accepted, CBOR_TYPE)) return CBOR_TYPE;
+            if (is(accepted, SMILE_TYPE)) return SMILE_TYPE;
+        }
+        return MediaType.APPLICATION_JSON_TYPE;
+    }
+
+    public static boolean isBinary(MediaType type) {
+        return is(type, CBOR_TYPE) || is(type, SMILE_TYPE);
+    }
+
+    /**
+     * Mapper do formato; JSON para qualquer tipo que não seja CBOR nem Smile.
+     */
+    public ObjectMapper mapper(MediaType type) {
+        if (is(type, CBOR_TYPE)) return cbor;
+        if (is(type, SMILE_TYPE)) return smile;
+        return json;
+    }
+
+    private static boolean is(MediaType type, MediaType format) {
+        return type != null && format.getType().equalsIgnoreCase(type.getType()) && format.getSubtype().equalsIgnoreCase(type.getSubtype());
+    }
+}
@@ -0,0 +1,67 @@
+package org.acme.format;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.ext.Provider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON, CBOR e Smile são representações diferentes do mesmo recurso, então cada uma tem
+ * o seu ETag: nas binárias o ETag ganha o sufixo do formato. Os resources continuam
+ * calculando só o ETag base; na entrada o sufixo é removido de {@code If-None-Match} e
+ * {@code If-Match}, e ETags de outra representação deixam de coincidir com o base.
+ */
+@Provider
+public class FormatTagFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String FORMAT_PROPERTY = FormatTagFilter.class.getName() + ".format";
+
+    @Override
+    public void filter(ContainerRequestContext req) {
+        if (!req.getUriInfo().getPath().startsWith("/api/v1")) return;
+        MediaType format = BinaryFormats.negotiate(req.getAcceptableMediaTypes());
+        req.setProperty(FORMAT_PROPERTY, format);
+        if (!BinaryFormats.isBinary(format)) return;
+
+        for (String header : List.of(HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MATCH)) {
+            String value = req.getHeaderString(header);
+            if (value != null) req.getHeaders().putSingle(header, untag(value, suffix(format)));
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext req, ContainerResponseContext res) {
+        if (!(req.getProperty(FORMAT_PROPERTY) instanceof MediaType format)) return;
+        res.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        EntityTag tag = res.getEntityTag();
+        if (tag != null && BinaryFormats.isBinary(format)) {
+            res.getHeaders().putSingle(HttpHeaders.ETAG, new EntityTag(tag.getValue() + suffix(format), tag.isWeak()));
+        }
+    }
+
+    private static String suffix(MediaType format) {
+        return BinaryFormats.CBOR_TYPE.getSubtype().equalsIgnoreCase(format.getSubtype()) ? "-cbor" : "-smile";
+    }
+
+    /**
+     * Tira o sufixo dos ETags deste formato; os demais recebem {@code -json}, que não
+     * coincide com nenhum ETag base.
+     */
+    private static String untag(String header, String suffix) {
+        List<String> tags = new ArrayList<>();
+        for (String tag : header.split(",")) {
+            String value = tag.strip();
+            if (value.equals("*") || !value.endsWith("\"")) tags.add(value);
+            else if (value.endsWith(suffix + "\"")) tags.add(value.substring(0, value.length() - suffix.length() - 1) + "\"");
+            else tags.add(value.substring(0, value.length() - 1) + "-json\"");
+        }
+        return String.join(", ", tags);
+    }
+}
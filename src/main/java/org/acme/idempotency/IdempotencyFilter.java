@@ -1,37 +1,103 @@
 package org.acme.idempotency;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Priority;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.Priorities;
 import jakarta.ws.rs.container.*;
 import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.Provider;
+import org.acme.format.BinaryFormats;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.time.Instant;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A primeira requisição com uma chave registra uma entrada pendente; duplicatas
+ * concorrentes esperam por ela e recebem o mesmo resultado. O resultado é guardado como
+ * bytes serializados (nunca a entidade gerenciada), com o cache limitado por tamanho em
+ * bytes e cada chave expirando conforme {@link Idempotent#expireAfter()}.
+ * <p>
+ * Com {@code api.idempotency.journal.enabled}, as respostas também vão para o
+ * {@link IdempotencyJournal} e sobrevivem a reinícios.
+ * <p>
+ * Roda depois do {@code RateLimitingFilter}, para que requisições recusadas por limite
+ * não ocupem a chave.
+ */
 @Provider
 @ApplicationScoped
-@Priority(Priorities.HEADER_DECORATOR)
+@Priority(Priorities.HEADER_DECORATOR + 10)
 public class IdempotencyFilter implements ContainerRequestFilter, ContainerResponseFilter {
 
     private static final String IDEMPOTENCY_KEY_HEADER = "X-Idempotency-Key";
     private static final String IDEMPOTENT_CONTEXT_PROPERTY = "idempotent-context";
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
 
-    private final Cache<String, IdempotencyRecord> cache;
+    private Cache<String, Entry> cache;
 
     @Context
     ResourceInfo resourceInfo;
 
-    public IdempotencyFilter() {
+    @Inject
+    ObjectMapper mapper;
+
+    @Inject
+    BinaryFormats formats;
+
+    @Inject
+    IdempotencyJournal journal;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "api.idempotency.max-bytes", defaultValue = "67108864")
+    long maxBytes;
+
+    @ConfigProperty(name = "api.idempotency.pending-timeout", defaultValue = "PT30S")
+    Duration pendingTimeout;
+
+    @PostConstruct
+    void init() {
         this.cache = Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(Duration.ofHours(1))
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> key.length() * 2 + entry.weight)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
                 .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "idempotency");
     }
 
     @Override
@@ -54,33 +120,128 @@ public class IdempotencyFilter implements ContainerRequestFilter, ContainerRespo
                 requestContext.getUriInfo().getPath() + ":" +
                 idempotencyKey;
 
-        IdempotencyRecord record = cache.getIfPresent(cacheKey);
-
-        if (record != null) {
-            requestContext.abortWith(Response.status(record.status)
-                    .entity(record.body)
-                    .build());
+        Entry pending = Entry.pending(pendingTimeout);
+        // getIfPresent conta acerto/falta nas estatísticas; putIfAbsent decide a corrida
+        Entry existing = cache.getIfPresent(cacheKey);
+        if (existing == null) existing = cache.asMap().putIfAbsent(cacheKey, pending);
+
+        if (existing == null) {
+            IdempotencyRecord journaled = journal.find(cacheKey);
+            if (journaled != null) {
+                // Só o que resta do prazo gravado: reinícios não prolongam a chave
+                cache.put(cacheKey, Entry.completed(journaled, journaled.remaining(System.currentTimeMillis())));
+                pending.result.complete(journaled);
+                requestContext.abortWith(journaled.toResponse());
+                return;
+            }
+            requestContext.setProperty(IDEMPOTENT_CONTEXT_PROPERTY,
+                    new IdempotentContext(cacheKey, annotation.expireAfter(), pending));
             return;
         }
 
-        requestContext.setProperty(IDEMPOTENT_CONTEXT_PROPERTY,
-                new IdempotentContext(cacheKey, annotation.expireAfter()));
+        try {
+            IdempotencyRecord record = existing.result.get(pendingTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            requestContext.abortWith(record.toResponse());
+        } catch (TimeoutException | ExecutionException e) {
+            requestContext.abortWith(Response.status(Response.Status.CONFLICT)
+                    .entity("Já existe uma requisição em processamento com esta chave de idempotência.")
+                    .build());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            requestContext.abortWith(Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+        }
     }
 
     @Override
     public void filter(ContainerRequestContext req, ContainerResponseContext res) {
         IdempotentContext context = (IdempotentContext) req.getProperty(IDEMPOTENT_CONTEXT_PROPERTY);
-        if (context != null) {
-            cache.put(context.cacheKey, new IdempotencyRecord(res.getStatus(), res.getEntity()));
+        if (context == null) return;
+
+        IdempotencyRecord record = snapshot(res);
+        if (record.status == 429 || record.status >= 500) {
+            cache.asMap().remove(context.cacheKey, context.pending);
+        } else {
+            Duration ttl = Duration.ofSeconds(context.expireAfter);
+            cache.put(context.cacheKey, Entry.completed(record, ttl));
+            journal.append(context.cacheKey, record, ttl);
+        }
+        context.pending.result.complete(record);
+    }
+
+    private IdempotencyRecord snapshot(ContainerResponseContext res) {
+        Object entity = res.getEntity();
+        MediaType mediaType = res.getMediaType();
+        String location = res.getHeaderString(HttpHeaders.LOCATION);
+        byte[] body;
+        if (entity == null) {
+            body = new byte[0];
+        } else if (entity instanceof byte[] bytes) {
+            body = bytes;
+        } else if (entity instanceof String text) {
+            body = text.getBytes(StandardCharsets.UTF_8);
+            if (mediaType == null) mediaType = MediaType.TEXT_PLAIN_TYPE;
+        } else {
+            boolean binary = BinaryFormats.isBinary(mediaType);
+            try {
+                body = (binary ? formats.mapper(mediaType) : mapper).writeValueAsBytes(entity);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Não foi possível guardar a resposta idempotente", e);
+            }
+            if (!binary) mediaType = MediaType.APPLICATION_JSON_TYPE;
         }
+        return new IdempotencyRecord(res.getStatus(), body, mediaType != null ? mediaType.toString() : null, location);
     }
 
-    record IdempotentContext(String cacheKey, int expireAfter) {}
+    record IdempotentContext(String cacheKey, int expireAfter, Entry pending) {}
+
+    static final class Entry {
+        final CompletableFuture<IdempotencyRecord> result;
+        final long ttlNanos;
+        final int weight;
+
+        private Entry(CompletableFuture<IdempotencyRecord> result, Duration ttl, int weight) {
+            this.result = result;
+            this.ttlNanos = ttl.toNanos();
+            this.weight = weight;
+        }
+
+        static Entry pending(Duration timeout) {
+            return new Entry(new CompletableFuture<>(), timeout, ENTRY_OVERHEAD_BYTES);
+        }
+
+        static Entry completed(IdempotencyRecord record, Duration ttl) {
+            return new Entry(CompletableFuture.completedFuture(record), ttl, ENTRY_OVERHEAD_BYTES + record.body.length);
+        }
+    }
 
     public static class IdempotencyRecord {
         public int status;
-        public Object body;
-        public IdempotencyRecord(int s, Object b) { this.status = s; this.body = b; }
+        public byte[] body;
+        public String contentType;
+        public String location;
+        /**
+         * Quando o registro lido do journal expira (epoch ms); 0 fora do journal.
+         */
+        public long expiresAt;
+
+        public IdempotencyRecord(int s, byte[] b, String c, String l) {
+            this.status = s;
+            this.body = b;
+            this.contentType = c;
+            this.location = l;
+        }
+
         public IdempotencyRecord() {}
+
+        Duration remaining(long nowMillis) {
+            return Duration.ofMillis(Math.max(0, expiresAt - nowMillis));
+        }
+
+        Response toResponse() {
+            Response.ResponseBuilder builder = Response.status(status).header("X-Idempotent-Replay", "true");
+            if (body.length > 0) builder.entity(body).type(contentType);
+            if (location != null) builder.header(HttpHeaders.LOCATION, location);
+            return builder.build();
+        }
     }
-}
\ No newline at end of file
+}
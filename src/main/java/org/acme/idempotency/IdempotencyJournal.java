@@ -0,0 +1,355 @@
+package org.acme.idempotency;
+
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.idempotency.IdempotencyFilter.IdempotencyRecord;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Registro persistente das respostas idempotentes, para que reinícios e deploys não
+ * esqueçam as chaves. É um log somente-anexo mapeado em memória:
+ * <pre>
+ * [int tamanho][int crc32][long expiraEm][int status][chave][content-type][location][int n][n bytes do corpo]
+ * </pre>
+ * onde cada texto é {@code [short n][n bytes UTF-8]} e {@code n = -1} indica nulo.
+ * Um índice chave → posição é reconstruído na inicialização; registros truncados ou com
+ * CRC inválido encerram a leitura. O {@code force()} é feito em lote a cada
+ * {@code fsync-interval} e a compactação periódica reescreve só os registros válidos.
+ * <p>
+ * Quem grava nunca compacta nem remapeia: quando o arquivo passa de 3/4 da capacidade, a
+ * compactação é agendada na thread do journal e pode dobrar o arquivo até
+ * {@code max-size}. Um registro que não cabe fica só no cache em memória.
+ */
+@ApplicationScoped
+public class IdempotencyJournal {
+
+    private static final int MAGIC = 0x49444a31;
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    @ConfigProperty(name = "api.idempotency.journal.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "api.idempotency.journal.path", defaultValue = "data/idempotency.journal")
+    Path path;
+
+    @ConfigProperty(name = "api.idempotency.journal.initial-size", defaultValue = "67108864")
+    long initialSize;
+
+    @ConfigProperty(name = "api.idempotency.journal.fsync-interval", defaultValue = "PT1S")
+    Duration fsyncInterval;
+
+    @ConfigProperty(name = "api.idempotency.journal.compaction-interval", defaultValue = "PT10M")
+    Duration compactionInterval;
+
+    @ConfigProperty(name = "api.idempotency.journal.max-size", defaultValue = "1073741824")
+    long maxSize;
+
+    private record Segment(FileChannel channel, MappedByteBuffer buffer, Map<String, Integer> index) {}
+
+    private volatile Segment segment;
+    private int writePosition;
+    private boolean dirty;
+    private boolean compactionPending;
+    private boolean full;
+    private long skipped;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void open() {
+        if (!enabled) return;
+        try {
+            if (path.getParent() != null) Files.createDirectories(path.getParent());
+            segment = map(path, Math.max(initialSize, Files.exists(path) ? Files.size(path) : 0));
+            writePosition = recover(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir o journal de idempotência em " + path, e);
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "idempotency-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sync, fsyncInterval.toMillis(), fsyncInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::compactQuietly, compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void close() {
+        if (scheduler == null) return;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sync();
+        try {
+            segment.channel().close();
+        } catch (IOException e) {
+            Log.warn("Falha ao fechar o journal de idempotência", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registro ainda válido para a chave, com o {@code expiresAt} gravado, ou null.
+     */
+    public IdempotencyRecord find(String key) {
+        Segment current = segment;
+        if (current == null) return null;
+        Integer position = current.index().get(key);
+        if (position == null) return null;
+
+        ByteBuffer buffer = current.buffer().duplicate();
+        buffer.position(position + RECORD_HEADER_BYTES);
+        long expiresAt = buffer.getLong();
+        if (expiresAt <= System.currentTimeMillis()) return null;
+        int status = buffer.getInt();
+        readString(buffer);
+        String contentType = readString(buffer);
+        String location = readString(buffer);
+        byte[] body = new byte[buffer.getInt()];
+        buffer.get(body);
+        IdempotencyRecord record = new IdempotencyRecord(status, body, contentType, location);
+        record.expiresAt = expiresAt;
+        return record;
+    }
+
+    public void append(String key, IdempotencyRecord record, Duration ttl) {
+        if (segment == null) return;
+        byte[] payload = encode(key, record, System.currentTimeMillis() + ttl.toMillis());
+        int needed = RECORD_HEADER_BYTES + payload.length;
+
+        synchronized (this) {
+            int capacity = segment.buffer().capacity();
+            if ((long) writePosition + needed + 4 > capacity) {
+                skipped++;
+                if (!full) requestCompaction();
+                return;
+            }
+            write(segment.buffer(), writePosition, payload);
+            segment.index().put(key, writePosition);
+            writePosition += needed;
+            dirty = true;
+            if (!full && writePosition > capacity - capacity / 4) requestCompaction();
+        }
+    }
+
+    void sync() {
+        Segment current;
+        synchronized (this) {
+            if (!dirty || segment == null) return;
+            current = segment;
+            dirty = false;
+        }
+        current.buffer().force();
+    }
+
+    /**
+     * Reescreve o journal só com os registros não expirados e troca o arquivo atomicamente.
+     * A cópia é feita sem bloquear quem grava; só os registros anexados durante a cópia são
+     * transferidos com o lock. O novo arquivo tem o dobro do espaço ocupado pelos registros
+     * válidos, entre {@code initial-size} e {@code max-size}.
+     */
+    void compact() throws IOException {
+        Segment current;
+        int copiedUntil;
+        Map<String, Integer> index;
+        synchronized (this) {
+            current = segment;
+            copiedUntil = writePosition;
+            index = Map.copyOf(current.index());
+        }
+
+        long now = System.currentTimeMillis();
+        ByteBuffer source = current.buffer().duplicate();
+        long live = 0;
+        for (int offset : index.values()) {
+            if (source.getLong(offset + RECORD_HEADER_BYTES) > now) live += RECORD_HEADER_BYTES + source.getInt(offset);
+        }
+        long capacity = Math.max(HEADER_BYTES + live + 4, Math.min(maxCapacity(), Math.max(initialSize, HEADER_BYTES + 2 * live + 4)));
+
+        Path target = path.resolveSibling(path.getFileName() + ".compact");
+        Files.deleteIfExists(target);
+        Segment compacted = map(target, capacity);
+        int position = HEADER_BYTES;
+        for (Map.Entry<String, Integer> entry : index.entrySet()) {
+            int offset = entry.getValue();
+            if (source.getLong(offset + RECORD_HEADER_BYTES) <= now) continue;
+            int total = RECORD_HEADER_BYTES + source.getInt(offset);
+            compacted.buffer().put(position, source, offset, total);
+            compacted.index().put(entry.getKey(), position);
+            position += total;
+        }
+        compacted.buffer().putInt(position, 0);
+        compacted.buffer().force();
+
+        long dropped;
+        synchronized (this) {
+            for (int offset = copiedUntil; offset < writePosition; ) {
+                int total = RECORD_HEADER_BYTES + source.getInt(offset);
+                if ((long) position + total + 4 <= compacted.buffer().capacity()) {
+                    compacted.buffer().put(position, source, offset, total);
+                    compacted.index().put(keyAt(source, offset), position);
+                    position += total;
+                } else {
+                    skipped++;
+                }
+                offset += total;
+            }
+            compacted.buffer().putInt(position, 0);
+
+            Files.move(target, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            current.channel().close();
+            segment = compacted;
+            dirty = writePosition > copiedUntil;
+            writePosition = position;
+            // No limite e sem espaço: só a compactação periódica tenta de novo
+            full = capacity == maxCapacity() && position > capacity - capacity / 4;
+            dropped = skipped;
+            skipped = 0;
+        }
+        if (capacity != current.buffer().capacity()) {
+            Log.infof("Journal de idempotência redimensionado de %d para %d bytes", current.buffer().capacity(), capacity);
+        }
+        if (dropped > 0) {
+            Log.warnf("%d registro(s) não couberam no journal de idempotência (max-size=%d) e ficaram só em memória", dropped, maxCapacity());
+        }
+    }
+
+    /**
+     * Chamado com o lock; no máximo uma compactação fica na fila.
+     */
+    private void requestCompaction() {
+        if (compactionPending || scheduler == null) return;
+        compactionPending = true;
+        scheduler.execute(this::compactQuietly);
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            Log.warn("Falha ao compactar o journal de idempotência", e);
+        } finally {
+            synchronized (this) {
+                compactionPending = false;
+            }
+        }
+    }
+
+    private long maxCapacity() {
+        return Math.min(maxSize, Integer.MAX_VALUE);
+    }
+
+    private static void write(MappedByteBuffer buffer, int position, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.put(position + RECORD_HEADER_BYTES, payload);
+        buffer.putInt(position + RECORD_HEADER_BYTES + payload.length, 0);
+        buffer.putInt(position, payload.length);
+    }
+
+    private static String keyAt(ByteBuffer buffer, int position) {
+        ByteBuffer record = buffer.slice(position + RECORD_HEADER_BYTES, buffer.getInt(position));
+        record.getLong();
+        record.getInt();
+        return readString(record);
+    }
+
+    private static Segment map(Path file, long size) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(size, Integer.MAX_VALUE));
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(HEADER_BYTES, 0);
+        }
+        return new Segment(channel, buffer, new ConcurrentHashMap<>());
+    }
+
+    private static int recover(Segment segment) {
+        ByteBuffer buffer = segment.buffer().duplicate();
+        long now = System.currentTimeMillis();
+        int position = HEADER_BYTES;
+        CRC32 crc = new CRC32();
+
+        while (position + RECORD_HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_BYTES + length > buffer.capacity()) break;
+
+            crc.reset();
+            crc.update(buffer.slice(position + RECORD_HEADER_BYTES, length));
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) break;
+
+            long expiresAt = buffer.getLong(position + RECORD_HEADER_BYTES);
+            String key = keyAt(buffer, position);
+            if (expiresAt > now) segment.index().put(key, position);
+            else segment.index().remove(key);
+            position += RECORD_HEADER_BYTES + length;
+        }
+        if (position + 4 <= buffer.capacity()) buffer.putInt(position, 0);
+        return position;
+    }
+
+    private static byte[] encode(String key, IdempotencyRecord record, long expiresAt) {
+        byte[] keyBytes = utf8(key);
+        byte[] contentType = utf8(record.contentType);
+        byte[] location = utf8(record.location);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 4 + 6 + length(keyBytes) + length(contentType) + length(location) + 4 + record.body.length);
+        buffer.putLong(expiresAt);
+        buffer.putInt(record.status);
+        writeString(buffer, keyBytes);
+        writeString(buffer, contentType);
+        writeString(buffer, location);
+        buffer.putInt(record.body.length);
+        buffer.put(record.body);
+        return buffer.array();
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void writeString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) (bytes == null ? -1 : bytes.length));
+        if (bytes != null) buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package org.acme.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Histogramas de latência por rota em {@code http.server.requests}: além dos buckets
+ * do Prometheus, os limites de {@code api.metrics.slo} viram buckets próprios, para que
+ * "fração das requisições abaixo de X" seja uma conta exata no painel.
+ */
+@Singleton
+public class MetricsConfig {
+
+    private static final String HTTP_SERVER_REQUESTS = "http.server.requests";
+
+    @ConfigProperty(name = "api.metrics.slo", defaultValue = "PT0.025S,PT0.05S,PT0.1S,PT0.25S,PT0.5S,PT1S")
+    List<Duration> slo;
+
+    @Produces
+    @Singleton
+    MeterFilter latencyHistograms() {
+        double[] objectives = slo.stream().mapToDouble(Duration::toNanos).toArray();
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().startsWith(HTTP_SERVER_REQUESTS)) return config;
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .serviceLevelObjectives(objectives)
+                        .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                        .maximumExpectedValue((double) Duration.ofSeconds(10).toNanos())
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+}
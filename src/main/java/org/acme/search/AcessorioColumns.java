@@ -0,0 +1,274 @@
+package org.acme.search;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.acme.Acessorio;
+import org.acme.event.EntityChanged;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Cópia colunar dos campos filtráveis de {@link Acessorio}: cada acessório ocupa uma linha
+ * nos arrays primitivos e os índices são bitmaps Roaring por valor (ano, tempo, carro) ou
+ * por faixa de 1,00 (valor). Um filtro vira AND/OR de bitmaps e só as bordas das faixas
+ * de valor são conferidas no array; o resultado são ids para carregar do banco ou só a
+ * contagem.
+ * <p>
+ * Ligado por {@code api.columnar.enabled}. É montado na inicialização e acompanha cada
+ * escrita confirmada; linhas excluídas saem dos índices e não são reaproveitadas até o
+ * próximo {@link #rebuild()}.
+ */
+@ApplicationScoped
+public class AcessorioColumns {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    @ConfigProperty(name = "api.columnar.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @Inject
+    EntityManager em;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> rows = new HashMap<>();
+    private final RoaringBitmap live = new RoaringBitmap();
+    private final RangeIndex valorIndex = new RangeIndex();
+    private final RangeIndex anoIndex = new RangeIndex();
+    private final RangeIndex tempoIndex = new RangeIndex();
+    private final RangeIndex carroIndex = new RangeIndex();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] valor = new double[INITIAL_CAPACITY];
+    private int[] ano = new int[INITIAL_CAPACITY];
+    private int[] tempo = new int[INITIAL_CAPACITY];
+    private long[] carro = new long[INITIAL_CAPACITY];
+    private int size;
+
+    @Transactional
+    void onStart(@Observes StartupEvent ev) {
+        if (enabled) rebuild();
+    }
+
+    @Transactional
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            rows.clear();
+            live.clear();
+            valorIndex.clear();
+            anoIndex.clear();
+            tempoIndex.clear();
+            carroIndex.clear();
+            size = 0;
+            try (Stream<Object[]> stream = em.createQuery(
+                    "select a.id, a.valor, a.anoAquisicao, a.tempoInstalacaoMinutos, c.id from Acessorio a left join a.carro c order by a.id",
+                    Object[].class).getResultStream()) {
+                stream.forEach(row -> put((Long) row[0], (Double) row[1], (Integer) row[2], (Integer) row[3], (Long) row[4]));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(EntityChanged.READ_MODEL) EntityChanged change) {
+        if (!enabled || !change.is(Acessorio.class)) return;
+        lock.writeLock().lock();
+        try {
+            if (change.kind() == EntityChanged.Kind.DELETED) {
+                remove(change.id());
+            } else if (change.entity() instanceof Acessorio a) {
+                put(a.id, a.valor, a.anoAquisicao, a.tempoInstalacaoMinutos, a.carro != null ? a.carro.id : null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Restringe os resultados da pesquisa textual aos que passam no filtro, mantendo a
+     * ordem. Sem pesquisa textual ({@code hits} null), devolve todos os que passam, em
+     * ordem de id e com score zero.
+     */
+    public List<TextIndex.Hit> restrict(List<TextIndex.Hit> hits, AcessorioFilter filter) {
+        long[] matches = filter(filter);
+        if (hits == null) {
+            List<TextIndex.Hit> all = new ArrayList<>(matches.length);
+            for (long id : matches) all.add(new TextIndex.Hit(id, 0));
+            return all;
+        }
+        List<TextIndex.Hit> kept = new ArrayList<>();
+        for (TextIndex.Hit hit : hits) {
+            if (Arrays.binarySearch(matches, hit.id()) >= 0) kept.add(hit);
+        }
+        return kept;
+    }
+
+    /**
+     * @return ids que atendem todos os predicados, em ordem crescente
+     */
+    public long[] filter(AcessorioFilter filter) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = matching(filter);
+            long[] matches = new long[result.getCardinality()];
+            int i = 0;
+            for (int row : result) matches[i++] = ids[row];
+            Arrays.sort(matches);
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Quantos acessórios atendem o filtro, sem montar a lista de ids.
+     */
+    public int count(AcessorioFilter filter) {
+        lock.readLock().lock();
+        try {
+            return matching(filter).getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap matching(AcessorioFilter filter) {
+        RoaringBitmap result = live.clone();
+        if (filter.valorMin != null || filter.valorMax != null) result.and(valorBetween(filter.valorMin, filter.valorMax));
+        if (filter.anoMin != null || filter.anoMax != null) result.and(anoIndex.between(filter.anoMin, filter.anoMax));
+        if (filter.tempoMin != null || filter.tempoMax != null) result.and(tempoIndex.between(filter.tempoMin, filter.tempoMax));
+        if (filter.carroIds != null && !filter.carroIds.isEmpty()) result.and(carroIndex.anyOf(new HashSet<>(filter.carroIds)));
+        return result;
+    }
+
+    private RoaringBitmap valorBetween(Double min, Double max) {
+        long from = min == null ? Long.MIN_VALUE : (long) Math.floor(min);
+        long to = max == null ? Long.MAX_VALUE : (long) Math.floor(max);
+        RoaringBitmap result = valorIndex.between(from, to);
+        double low = min == null ? Double.NEGATIVE_INFINITY : min;
+        double high = max == null ? Double.POSITIVE_INFINITY : max;
+        for (long edge : new long[]{from, to}) {
+            RoaringBitmap bucket = valorIndex.get(edge);
+            if (bucket == null) continue;
+            for (int row : bucket) {
+                if (valor[row] < low || valor[row] > high) result.remove(row);
+            }
+        }
+        return result;
+    }
+
+    private void put(long id, double v, int a, int t, Long carroId) {
+        Integer existing = rows.get(id);
+        int row;
+        if (existing != null) {
+            row = existing;
+            unindex(row);
+        } else {
+            ensureCapacity(size + 1);
+            row = size++;
+            rows.put(id, row);
+            ids[row] = id;
+        }
+        valor[row] = v;
+        ano[row] = a;
+        tempo[row] = t;
+        carro[row] = carroId != null ? carroId : 0;
+
+        live.add(row);
+        valorIndex.add((long) Math.floor(v), row);
+        anoIndex.add(a, row);
+        tempoIndex.add(t, row);
+        if (carroId != null) carroIndex.add(carroId, row);
+    }
+
+    private void remove(long id) {
+        Integer row = rows.remove(id);
+        if (row == null) return;
+        unindex(row);
+        live.remove(row);
+    }
+
+    private void unindex(int row) {
+        valorIndex.remove((long) Math.floor(valor[row]), row);
+        anoIndex.remove(ano[row], row);
+        tempoIndex.remove(tempo[row], row);
+        if (carro[row] != 0) carroIndex.remove(carro[row], row);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) return;
+        int capacity = Math.max(needed, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        valor = Arrays.copyOf(valor, capacity);
+        ano = Arrays.copyOf(ano, capacity);
+        tempo = Arrays.copyOf(tempo, capacity);
+        carro = Arrays.copyOf(carro, capacity);
+    }
+
+    /**
+     * Um bitmap de linhas por chave, com as chaves ordenadas para consultas por faixa.
+     */
+    private static final class RangeIndex {
+        private final TreeMap<Long, RoaringBitmap> buckets = new TreeMap<>();
+
+        void add(long key, int row) {
+            buckets.computeIfAbsent(key, k -> new RoaringBitmap()).add(row);
+        }
+
+        void remove(long key, int row) {
+            RoaringBitmap bucket = buckets.get(key);
+            if (bucket == null) return;
+            bucket.remove(row);
+            if (bucket.isEmpty()) buckets.remove(key);
+        }
+
+        RoaringBitmap get(long key) {
+            return buckets.get(key);
+        }
+
+        RoaringBitmap between(Integer min, Integer max) {
+            return between(min == null ? Long.MIN_VALUE : min, max == null ? Long.MAX_VALUE : max);
+        }
+
+        RoaringBitmap between(long min, long max) {
+            if (min > max) return new RoaringBitmap();
+            return FastAggregation.or(buckets.subMap(min, true, max, true).values().iterator());
+        }
+
+        RoaringBitmap anyOf(Set<Long> keys) {
+            List<RoaringBitmap> matches = new ArrayList<>(keys.size());
+            for (Long key : keys) {
+                RoaringBitmap bucket = buckets.get(key);
+                if (bucket != null) matches.add(bucket);
+            }
+            return FastAggregation.or(matches.iterator());
+        }
+
+        void clear() {
+            buckets.clear();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.acme.search;
+
+import jakarta.ws.rs.QueryParam;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filtros por faixa e igualdade da pesquisa de acessórios. Todos os informados precisam
+ * valer; vários {@code carroId} valem como OU.
+ */
+public class AcessorioFilter {
+
+    @QueryParam("valorMin")
+    @Parameter(description = "Valor mínimo, inclusive")
+    public Double valorMin;
+
+    @QueryParam("valorMax")
+    @Parameter(description = "Valor máximo, inclusive")
+    public Double valorMax;
+
+    @QueryParam("anoMin")
+    @Parameter(description = "Ano de aquisição mínimo, inclusive")
+    public Integer anoMin;
+
+    @QueryParam("anoMax")
+    @Parameter(description = "Ano de aquisição máximo, inclusive")
+    public Integer anoMax;
+
+    @QueryParam("tempoMin")
+    @Parameter(description = "Tempo de instalação mínimo em minutos, inclusive")
+    public Integer tempoMin;
+
+    @QueryParam("tempoMax")
+    @Parameter(description = "Tempo de instalação máximo em minutos, inclusive")
+    public Integer tempoMax;
+
+    @QueryParam("carroId")
+    @Parameter(description = "Carro do acessório; pode ser repetido")
+    public List<Long> carroIds = new ArrayList<>();
+
+    public boolean isEmpty() {
+        return valorMin == null && valorMax == null && anoMin == null && anoMax == null
+                && tempoMin == null && tempoMax == null && (carroIds == null || carroIds.isEmpty());
+    }
+
+    /**
+     * Os mesmos predicados como condições SQL, para quando o motor colunar está desligado.
+     */
+    public Criteria apply(Criteria criteria) {
+        if (valorMin != null) criteria.and("valor >= :valorMin").param("valorMin", valorMin);
+        if (valorMax != null) criteria.and("valor <= :valorMax").param("valorMax", valorMax);
+        if (anoMin != null) criteria.and("anoAquisicao >= :anoMin").param("anoMin", anoMin);
+        if (anoMax != null) criteria.and("anoAquisicao <= :anoMax").param("anoMax", anoMax);
+        if (tempoMin != null) criteria.and("tempoInstalacaoMinutos >= :tempoMin").param("tempoMin", tempoMin);
+        if (tempoMax != null) criteria.and("tempoInstalacaoMinutos <= :tempoMax").param("tempoMax", tempoMax);
+        if (carroIds != null && !carroIds.isEmpty()) criteria.and("carro.id in :carroIds").param("carroIds", carroIds);
+        return criteria;
+    }
+
+    @Override
+    public String toString() {
+        return valorMin + ":" + valorMax + "," + anoMin + ":" + anoMax + "," + tempoMin + ":" + tempoMax + "," + carroIds;
+    }
+}
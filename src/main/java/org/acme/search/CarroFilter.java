@@ -0,0 +1,43 @@
+package org.acme.search;
+
+import jakarta.ws.rs.QueryParam;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros da pesquisa de carros, combinados com AND na mesma query e atendidos pelos
+ * índices de {@code paisDeMontagem} e {@code dataDeFabricacao}.
+ */
+public class CarroFilter {
+
+    @QueryParam("paisDeMontagem")
+    @Parameter(description = "País de montagem, exato")
+    public String paisDeMontagem;
+
+    @QueryParam("fabricadoApos")
+    @Parameter(description = "Fabricado nesta data ou depois (AAAA-MM-DD)")
+    public LocalDate fabricadoApos;
+
+    @QueryParam("fabricadoAntes")
+    @Parameter(description = "Fabricado nesta data ou antes (AAAA-MM-DD)")
+    public LocalDate fabricadoAntes;
+
+    public boolean isEmpty() {
+        return (paisDeMontagem == null || paisDeMontagem.isBlank()) && fabricadoApos == null && fabricadoAntes == null;
+    }
+
+    public Criteria apply(Criteria criteria) {
+        if (paisDeMontagem != null && !paisDeMontagem.isBlank()) {
+            criteria.and("paisDeMontagem = :pais").param("pais", paisDeMontagem.strip());
+        }
+        if (fabricadoApos != null) criteria.and("dataDeFabricacao >= :fabricadoApos").param("fabricadoApos", fabricadoApos);
+        if (fabricadoAntes != null) criteria.and("dataDeFabricacao <= :fabricadoAntes").param("fabricadoAntes", fabricadoAntes);
+        return criteria;
+    }
+
+    @Override
+    public String toString() {
+        return (paisDeMontagem != null ? paisDeMontagem.strip() : "") + "," + fabricadoApos + ":" + fabricadoAntes;
+    }
+}
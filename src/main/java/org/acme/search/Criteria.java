@@ -0,0 +1,48 @@
+package org.acme.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acumula as condições de uma pesquisa com parâmetros nomeados, para que o filtro
+ * textual, o cursor e os demais critérios virem uma única query Panache.
+ */
+public class Criteria {
+
+    private final List<String> clauses = new ArrayList<>();
+    private final Map<String, Object> params = new HashMap<>();
+
+    public Criteria and(String clause) {
+        clauses.add("(" + clause + ")");
+        return this;
+    }
+
+    public Criteria param(String name, Object value) {
+        params.put(name, value);
+        return this;
+    }
+
+    public Criteria copy() {
+        Criteria copy = new Criteria();
+        copy.clauses.addAll(clauses);
+        copy.params.putAll(params);
+        return copy;
+    }
+
+    public boolean isEmpty() {
+        return clauses.isEmpty();
+    }
+
+    /**
+     * Condição no formato aceito pelo Panache; vazia quando não há filtro.
+     */
+    public String query() {
+        return String.join(" and ", clauses);
+    }
+
+    public Map<String, Object> params() {
+        return params;
+    }
+}
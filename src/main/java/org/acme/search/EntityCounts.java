@@ -0,0 +1,56 @@
+package org.acme.search;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.Fabricante;
+import org.acme.event.EntityChanged;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Total de linhas de cada entidade pesquisável, contado uma vez na inicialização e
+ * mantido pelas inclusões e exclusões confirmadas. Substitui o {@code count()} das
+ * pesquisas sem filtro.
+ */
+@ApplicationScoped
+public class EntityCounts {
+
+    private final Map<Class<?>, AtomicLong> counts = Map.of(
+            Acessorio.class, new AtomicLong(),
+            Carro.class, new AtomicLong(),
+            Fabricante.class, new AtomicLong());
+
+    @Inject
+    EntityManager em;
+
+    @Transactional
+    void onStart(@Observes StartupEvent ev) {
+        reload();
+    }
+
+    @Transactional
+    public void reload() {
+        counts.forEach((type, count) -> count.set(
+                em.createQuery("select count(e) from " + type.getSimpleName() + " e", Long.class).getSingleResult()));
+    }
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(EntityChanged.READ_MODEL) EntityChanged change) {
+        AtomicLong count = counts.get(change.type());
+        if (count == null) return;
+        if (change.kind() == EntityChanged.Kind.CREATED) count.incrementAndGet();
+        else if (change.kind() == EntityChanged.Kind.DELETED) count.decrementAndGet();
+    }
+
+    public long get(Class<?> type) {
+        return counts.get(type).get();
+    }
+}
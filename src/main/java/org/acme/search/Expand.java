@@ -0,0 +1,84 @@
+package org.acme.search;
+
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import jakarta.persistence.EntityGraph;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Subgraph;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Associações pedidas em {@code expand=}, como {@code carro.fichaTecnica}. As to-one
+ * entram como fetch graph na própria query da página (um JOIN, sem N+1); coleções são
+ * carregadas depois por quem chama, numa segunda query para a página inteira. Sem
+ * expand, nada além das colunas da entidade é lido.
+ */
+public final class Expand {
+
+    public static final String DESCRIPTION = "Associações a carregar, separadas por vírgula. Sem expand, só o id delas.";
+
+    private static final String FETCH_GRAPH = "jakarta.persistence.fetchgraph";
+    public static final Expand NONE = new Expand(Set.of());
+
+    private final Set<String> paths;
+
+    private Expand(Set<String> paths) {
+        this.paths = paths;
+    }
+
+    /**
+     * @param fields projeção da mesma requisição; projeções não carregam associações
+     * @throws IllegalArgumentException para caminhos fora de {@code allowed} ou junto com fields
+     */
+    public static Expand parse(String expand, Set<String> allowed, Fields fields) {
+        if (expand == null || expand.isBlank()) return NONE;
+        if (fields != null) throw new IllegalArgumentException("expand não pode ser usado junto com fields");
+        Set<String> paths = new TreeSet<>();
+        for (String path : expand.split(",")) {
+            String name = path.strip();
+            if (name.isEmpty()) continue;
+            if (!allowed.contains(name)) {
+                throw new IllegalArgumentException("Associação não permitida em expand: '" + name + "'. Use: " + String.join(", ", new TreeSet<>(allowed)));
+            }
+            paths.add(name);
+            for (int dot = name.indexOf('.'); dot > 0; dot = name.indexOf('.', dot + 1)) paths.add(name.substring(0, dot));
+        }
+        return new Expand(paths);
+    }
+
+    public boolean isEmpty() {
+        return paths.isEmpty();
+    }
+
+    public boolean has(String path) {
+        return paths.contains(path);
+    }
+
+    /**
+     * Aplica à query o fetch graph das associações to-one pedidas.
+     *
+     * @param collections caminhos que são coleções e ficam de fora do graph
+     */
+    public <T> PanacheQuery<T> apply(PanacheQuery<T> query, EntityManager em, Class<?> type, Set<String> collections) {
+        EntityGraph<?> graph = null;
+        for (String path : paths) {
+            if (collections.contains(path)) continue;
+            if (graph == null) graph = em.createEntityGraph(type);
+            String[] parts = path.split("\\.");
+            if (parts.length == 1) {
+                graph.addAttributeNodes(parts[0]);
+                continue;
+            }
+            Subgraph<?> subgraph = graph.addSubgraph(parts[0]);
+            for (int i = 1; i < parts.length - 1; i++) subgraph = subgraph.addSubgraph(parts[i]);
+            subgraph.addAttributeNodes(parts[parts.length - 1]);
+        }
+        return graph == null ? query : query.withHint(FETCH_GRAPH, graph);
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", paths);
+    }
+}
@@ -0,0 +1,89 @@
+package org.acme.search;
+
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Projeção pedida em {@code fields=}. Vira um {@code select new map(...)} só com as
+ * colunas escolhidas, então associações e textos longos não são lidos nem serializados.
+ * O {@code id} entra sempre, porque identifica a linha e alimenta os cursores.
+ */
+public final class Fields {
+
+    public static final String DESCRIPTION = "Campos separados por vírgula, ex.: id,nome. Sem fields, a entidade completa.";
+
+    private final String entity;
+    private final List<String> names;
+
+    private Fields(String entity, List<String> names) {
+        this.entity = entity;
+        this.names = names;
+    }
+
+    /**
+     * @return null quando {@code fields} está vazio, isto é, a entidade completa
+     * @throws IllegalArgumentException para campos fora de {@code allowed}
+     */
+    public static Fields parse(String fields, String entity, Set<String> allowed) {
+        if (fields == null || fields.isBlank()) return null;
+        List<String> names = new ArrayList<>();
+        names.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.strip();
+            if (name.isEmpty() || names.contains(name)) continue;
+            if (!allowed.contains(name)) {
+                throw new IllegalArgumentException("Campo não permitido em fields: '" + name + "'. Use: " + String.join(", ", new TreeSet<>(allowed)));
+            }
+            names.add(name);
+        }
+        return new Fields(entity, names);
+    }
+
+    /**
+     * Mesma projeção incluindo {@code field}, usada para o campo de ordenação do cursor.
+     */
+    public Fields with(String field) {
+        if (names.contains(field)) return this;
+        List<String> extended = new ArrayList<>(names);
+        extended.add(field);
+        return new Fields(entity, extended);
+    }
+
+    /**
+     * Query HQL da projeção com a condição {@code where}, que pode ser vazia.
+     */
+    public String query(String where) {
+        StringBuilder hql = new StringBuilder("select new map(");
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) hql.append(", ");
+            hql.append(names.get(i)).append(" as ").append(names.get(i));
+        }
+        hql.append(") from ").append(entity);
+        if (!where.isEmpty()) hql.append(" where ").append(where);
+        return hql.toString();
+    }
+
+    /**
+     * Condição {@code where} como query Panache, projetada quando há {@code fields}.
+     */
+    public static String select(Fields fields, String where) {
+        return fields != null ? fields.query(where) : where;
+    }
+
+    /**
+     * A query Panache de uma projeção devolve mapas, não entidades.
+     */
+    @SuppressWarnings("unchecked")
+    public static PanacheQuery<Object> rows(PanacheQuery<?> query) {
+        return (PanacheQuery<Object>) query;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", names);
+    }
+}
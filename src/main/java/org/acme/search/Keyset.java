@@ -0,0 +1,102 @@
+package org.acme.search;
+
+import io.quarkus.panache.common.Sort;
+import org.hibernate.Hibernate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Paginação por cursor (keyset). O cursor é opaco para o cliente e guarda o campo de
+ * ordenação, o valor desse campo no último item entregue e o id, usado como desempate.
+ * A próxima página é filtrada por esses valores em vez de usar OFFSET, então o custo
+ * não cresce com a profundidade.
+ * <p>
+ * Valores nulos são tratados como os menores: vêm primeiro em ordem ascendente e por
+ * último em ordem descendente, tanto na ordenação quanto no filtro do cursor.
+ */
+public final class Keyset {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public record Cursor(Object value, long id) {}
+
+    private Keyset() {}
+
+    public static Sort sort(String field, boolean desc) {
+        Sort.Direction direction = desc ? Sort.Direction.Descending : Sort.Direction.Ascending;
+        if ("id".equals(field)) return Sort.by("id", direction);
+        Sort.NullPrecedence nulls = desc ? Sort.NullPrecedence.NULLS_LAST : Sort.NullPrecedence.NULLS_FIRST;
+        return Sort.by(field, direction, nulls).and("id", direction);
+    }
+
+    public static String encode(String field, Object value, long id) {
+        String raw = field + "\n" + id + "\n" + (value == null ? "-" : "=" + value);
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica o cursor; retorna null para o cursor vazio (primeira página).
+     *
+     * @throws IllegalArgumentException se o cursor estiver corrompido ou tiver sido
+     *                                  gerado para outro campo de ordenação
+     */
+    public static Cursor decode(String token, String field, Class<?> type) {
+        if (token == null || token.isBlank()) return null;
+        String[] parts = new String(DECODER.decode(token), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length != 3 || !parts[0].equals(field) || parts[2].isEmpty()) {
+            throw new IllegalArgumentException("Cursor inválido para a ordenação '" + field + "'");
+        }
+        long id = Long.parseLong(parts[1]);
+        if (parts[2].charAt(0) == '-') return new Cursor(null, id);
+
+        String value = parts[2].substring(1);
+        try {
+            if (type == String.class) return new Cursor(value, id);
+            if (type == Long.class) return new Cursor(Long.valueOf(value), id);
+            if (type == Integer.class) return new Cursor(Integer.valueOf(value), id);
+            if (type == Double.class) return new Cursor(Double.valueOf(value), id);
+            if (type == LocalDate.class) return new Cursor(LocalDate.parse(value), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido para a ordenação '" + field + "'", e);
+        }
+        throw new IllegalArgumentException("Tipo de ordenação não suportado: " + type.getSimpleName());
+    }
+
+    /**
+     * Restringe a pesquisa aos itens que vêm depois do cursor na ordem de {@link #sort}.
+     */
+    public static void restrict(Criteria criteria, String field, boolean desc, Cursor cursor) {
+        String op = desc ? "<" : ">";
+        criteria.param("keysetId", cursor.id());
+
+        if ("id".equals(field)) {
+            criteria.and("id " + op + " :keysetId");
+        } else if (cursor.value() == null) {
+            criteria.and(desc
+                    ? field + " is null and id < :keysetId"
+                    : "(" + field + " is null and id > :keysetId) or " + field + " is not null");
+        } else {
+            criteria.param("keysetValue", cursor.value());
+            criteria.and(field + " " + op + " :keysetValue or (" + field + " = :keysetValue and id " + op + " :keysetId)"
+                    + (desc ? " or " + field + " is null" : ""));
+        }
+    }
+
+    /**
+     * Lê o valor do campo de ordenação de uma entidade ou linha projetada, para montar o
+     * próximo cursor.
+     */
+    public static Object valueOf(Object entity, String field) {
+        if (entity instanceof Map<?, ?> row) return row.get(field);
+        Object target = Hibernate.unproxy(entity);
+        try {
+            return target.getClass().getField(field).get(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Campo de ordenação inacessível: " + field, e);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package org.acme.search;
+
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import jakarta.ws.rs.core.UriInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Os modos de paginação das pesquisas: offset (page/size), cursor (after) e, para os
+ * resultados do {@link TextIndex}, em memória: por relevância ou por um campo lido do
+ * banco em blocos. Em todos, {@code hasMore} vem de
+ * uma linha a mais na página; o total segue o {@link Count} pedido e é -1 quando não
+ * calculado.
+ */
+public final class Paging {
+
+    public static final String RELEVANCE = "relevancia";
+
+    public record Page<T>(List<T> items, long total, int totalPages, boolean hasMore, String nextPage) {}
+
+    /**
+     * Como o total é obtido: {@code EXACT} conta no banco quando não há um total já
+     * conhecido, {@code ESTIMATE} usa só o conhecido (contadores em memória ou o número de
+     * resultados do índice) e {@code NONE} não calcula.
+     */
+    public enum Count {
+        EXACT, ESTIMATE, NONE;
+
+        public static Count parse(String value) {
+            for (Count count : values()) {
+                if (count.name().equalsIgnoreCase(value)) return count;
+            }
+            throw new IllegalArgumentException("Parâmetro count inválido. Use exact, estimate ou none.");
+        }
+    }
+
+    private Paging() {}
+
+    /**
+     * O cursor pedido. Um {@code after} vazio, que inicia a paginação por cursor, chega
+     * do JAX-RS como null; só a presença do parâmetro o distingue da ausência.
+     */
+    public static String after(String after, UriInfo uriInfo) {
+        return after == null && uriInfo.getQueryParameters().containsKey("after") ? "" : after;
+    }
+
+    /**
+     * Valida {@code page} e {@code size} antes de escolher o modo de paginação; os modos
+     * partem de valores já válidos.
+     */
+    public static void validate(int page, int size) {
+        if (size < 1) throw new IllegalArgumentException("O tamanho da página deve ser maior que zero");
+        if (page < 0) throw new IllegalArgumentException("A página não pode ser negativa");
+        if ((long) page * size + size > Integer.MAX_VALUE) throw new IllegalArgumentException("Página fora do intervalo");
+    }
+
+    /**
+     * Decodifica o cursor só para recusá-lo antes do cache e da consulta; os modos o
+     * decodificam de novo, já válido. Toda a entrada é validada antes da consulta, então
+     * uma {@link IllegalArgumentException} dela (o Hibernate usa a mesma) é um 500, não 400.
+     *
+     * @throws IllegalArgumentException como {@link Keyset#decode}
+     */
+    public static void validate(String after, String sort, Class<?> sortType) {
+        Keyset.decode(after, sort, sortType);
+    }
+
+    /**
+     * @param known total já conhecido sem consultar o banco, ou -1
+     */
+    public static <T> Page<T> offset(PanacheQuery<T> query, int page, int size, String nextPage, Count count, long known) {
+        long first = (long) page * size;
+
+        List<T> rows = query.range((int) first, (int) first + size).list();
+        boolean hasMore = rows.size() > size;
+        List<T> items = hasMore ? rows.subList(0, size) : rows;
+
+        long total = switch (count) {
+            case NONE -> -1;
+            case ESTIMATE -> known;
+            case EXACT -> known >= 0 ? known : query.count();
+        };
+        return new Page<>(items, total, totalPages(total, size), hasMore, hasMore ? nextPage : "");
+    }
+
+    /**
+     * Busca {@code size + 1} linhas depois do cursor para saber se há próxima página sem contar.
+     *
+     * @param finder recebe os critérios já restritos pelo cursor e devolve a query ordenada
+     */
+    public static <T> Page<T> cursor(Criteria criteria, String sort, boolean desc, Class<?> sortType, String after,
+                                     int size, UriInfo uriInfo, Function<Criteria, PanacheQuery<T>> finder) {
+        Keyset.Cursor cursor = Keyset.decode(after, sort, sortType);
+        Criteria restricted = criteria.copy();
+        if (cursor != null) Keyset.restrict(restricted, sort, desc, cursor);
+
+        List<T> rows = finder.apply(restricted).range(0, size).list();
+        boolean hasMore = rows.size() > size;
+        List<T> items = hasMore ? rows.subList(0, size) : rows;
+
+        String nextPage = "";
+        if (hasMore) {
+            T last = items.get(size - 1);
+            long id = ((Number) Keyset.valueOf(last, "id")).longValue();
+            nextPage = next(uriInfo, Keyset.encode(sort, Keyset.valueOf(last, sort), id));
+        }
+        return new Page<>(items, -1, -1, hasMore, nextPage);
+    }
+
+    /**
+     * Pagina a lista ranqueada em memória e só carrega do banco os ids da página.
+     *
+     * @param loader carrega as entidades de uma lista de ids, em qualquer ordem
+     */
+    public static <T> Page<T> relevance(List<TextIndex.Hit> hits, int page, int size, String after, UriInfo uriInfo,
+                                        String nextPage, Count count, Function<List<Long>, List<T>> loader) {
+        Keyset.Cursor cursor = after != null ? Keyset.decode(after, RELEVANCE, Double.class) : null;
+        TextIndex.Hit position = cursor != null ? new TextIndex.Hit(cursor.id(), (Double) cursor.value()) : null;
+        return inMemory(hits, TextIndex.RANKING, position, RELEVANCE, TextIndex.Hit::id, TextIndex.Hit::score,
+                page, size, after, uriInfo, nextPage, count, loader);
+    }
+
+    /**
+     * Um resultado do índice com o valor do campo de ordenação lido do banco.
+     */
+    public record Keyed(long id, Object value) {}
+
+    /**
+     * Ordena em memória, pelo campo pedido, os resultados do índice que também atendem
+     * {@code criteria}. Os valores são lidos em blocos de até {@code chunk} ids: um termo
+     * comum não vira um IN com todos os resultados num só comando.
+     *
+     * @param finder devolve linhas {@code [id, valor]} que atendem os critérios recebidos
+     */
+    public static List<Keyed> sort(List<TextIndex.Hit> hits, Criteria criteria, boolean desc, int chunk,
+                                   Function<Criteria, List<?>> finder) {
+        List<Keyed> keyed = new ArrayList<>(hits.size());
+        for (List<Long> ids : chunks(ids(hits), chunk)) {
+            for (Object row : finder.apply(criteria.copy().and("id in :ids").param("ids", ids))) {
+                Object[] values = (Object[]) row;
+                keyed.add(new Keyed(((Number) values[0]).longValue(), values[1]));
+            }
+        }
+        keyed.sort(order(desc));
+        return keyed;
+    }
+
+    /**
+     * Pagina a lista de {@link #sort} como a de relevância, com cursores do campo pedido.
+     */
+    public static <T> Page<T> sorted(List<Keyed> keyed, String sort, Class<?> sortType, boolean desc, int page, int size,
+                                     String after, UriInfo uriInfo, String nextPage, Count count,
+                                     Function<List<Long>, List<T>> loader) {
+        Keyset.Cursor cursor = after != null ? Keyset.decode(after, sort, sortType) : null;
+        Keyed position = cursor != null ? new Keyed(cursor.id(), cursor.value()) : null;
+        return inMemory(keyed, order(desc), position, sort, Keyed::id, Keyed::value,
+                page, size, after, uriInfo, nextPage, count, loader);
+    }
+
+    /**
+     * A mesma ordem de {@link Keyset#sort}: nulos primeiro na ascendente, id como desempate.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Keyed> order(boolean desc) {
+        Comparator<Object> values = Comparator.nullsFirst((Comparator<Object>) (Comparator) Comparator.naturalOrder());
+        Comparator<Keyed> asc = Comparator.comparing(Keyed::value, values).thenComparingLong(Keyed::id);
+        return desc ? asc.reversed() : asc;
+    }
+
+    private static <K, T> Page<T> inMemory(List<K> keys, Comparator<? super K> order, K position, String field,
+                                           ToLongFunction<K> id, Function<K, Object> value, int page, int size,
+                                           String after, UriInfo uriInfo, String nextPage, Count count,
+                                           Function<List<Long>, List<T>> loader) {
+        int from;
+        if (after != null) {
+            from = 0;
+            if (position != null) {
+                int pos = Collections.binarySearch(keys, position, order);
+                from = pos >= 0 ? pos + 1 : -pos - 1;
+            }
+        } else {
+            from = (int) Math.min((long) page * size, keys.size());
+        }
+        int to = Math.min(from + size, keys.size());
+        boolean hasMore = to < keys.size();
+
+        List<Long> ids = new ArrayList<>(to - from);
+        for (K key : keys.subList(from, to)) ids.add(id.applyAsLong(key));
+        List<T> items = ids.isEmpty() ? List.of() : inOrder(ids, loader.apply(ids));
+
+        if (after != null) {
+            K last = hasMore ? keys.get(to - 1) : null;
+            String next = last == null ? "" : next(uriInfo, Keyset.encode(field, value.apply(last), id.applyAsLong(last)));
+            return new Page<>(items, -1, -1, hasMore, next);
+        }
+        long total = count == Count.NONE ? -1 : keys.size();
+        return new Page<>(items, total, totalPages(total, size), hasMore, hasMore ? nextPage : "");
+    }
+
+    /**
+     * Mantém, na ordem do ranking, só os resultados que também atendem {@code criteria},
+     * consultados em blocos de até {@code chunk} ids.
+     *
+     * @param finder devolve os ids que atendem os critérios recebidos
+     */
+    public static List<TextIndex.Hit> restrict(List<TextIndex.Hit> hits, Criteria criteria, int chunk,
+                                               Function<Criteria, List<?>> finder) {
+        if (hits.isEmpty()) return hits;
+        Set<Long> matching = new HashSet<>();
+        for (List<Long> ids : chunks(ids(hits), chunk)) {
+            for (Object id : finder.apply(criteria.copy().and("id in :ids").param("ids", ids))) {
+                matching.add(((Number) id).longValue());
+            }
+        }
+        List<TextIndex.Hit> kept = new ArrayList<>(matching.size());
+        for (TextIndex.Hit hit : hits) {
+            if (matching.contains(hit.id())) kept.add(hit);
+        }
+        return kept;
+    }
+
+    public static List<Long> ids(List<TextIndex.Hit> hits) {
+        List<Long> ids = new ArrayList<>(hits.size());
+        for (TextIndex.Hit hit : hits) ids.add(hit.id());
+        return ids;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids, int chunk) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunk) {
+            chunks.add(ids.subList(from, Math.min(from + chunk, ids.size())));
+        }
+        return chunks;
+    }
+
+    private static <T> List<T> inOrder(List<Long> ids, List<T> entities) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T entity : entities) byId.put(((Number) Keyset.valueOf(entity, "id")).longValue(), entity);
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T entity = byId.get(id);
+            if (entity != null) ordered.add(entity);
+        }
+        return ordered;
+    }
+
+    private static int totalPages(long total, int size) {
+        return total < 0 ? -1 : (int) ((total + size - 1) / size);
+    }
+
+    private static String next(UriInfo uriInfo, String token) {
+        return uriInfo.getRequestUriBuilder().replaceQueryParam("page").replaceQueryParam("after", token).build().toString();
+    }
+}
@@ -0,0 +1,133 @@
+package org.acme.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.cache.CaffeineCache;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.MediaType;
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.Fabricante;
+import org.acme.event.EntityChanged;
+import org.acme.format.BinaryFormats;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache das respostas de pesquisa, guardadas já serializadas. A chave é o ETag da lista
+ * (que muda a cada escrita confirmada nos tipos de que a resposta depende) seguido dos
+ * parâmetros normalizados, então uma consulta que termina depois de uma escrita nunca é
+ * lida de novo. Cada escrita também esvazia os caches que dependem do tipo alterado.
+ */
+@ApplicationScoped
+public class SearchCache {
+
+    public static final String ACESSORIOS = "search-acessorios";
+    public static final String CARROS = "search-carros";
+    public static final String FABRICANTES = "search-fabricantes";
+
+    private static final Map<String, Set<Class<?>>> DEPENDS_ON = Map.of(
+            ACESSORIOS, Set.of(Acessorio.class, Carro.class, Fabricante.class),
+            CARROS, Set.of(Carro.class),
+            FABRICANTES, Set.of(Fabricante.class));
+
+    private final Map<String, Counters> counters = Map.of(
+            ACESSORIOS, new Counters(),
+            CARROS, new Counters(),
+            FABRICANTES, new Counters());
+
+    @Inject
+    @CacheName(ACESSORIOS)
+    Cache acessorios;
+
+    @Inject
+    @CacheName(CARROS)
+    Cache carros;
+
+    @Inject
+    @CacheName(FABRICANTES)
+    Cache fabricantes;
+
+    @Inject
+    BinaryFormats formats;
+
+    /**
+     * Chave com os parâmetros já validados; {@code after} vazio e ausente são distintos.
+     */
+    public static String key(String version, String q, String sort, boolean desc, int page, int size, String after,
+                             Paging.Count count, Fields fields, Expand expand) {
+        return version + '|' + (q != null ? q : "") + '|' + sort + '|' + (desc ? "desc" : "asc") + '|' +
+                page + '|' + size + '|' + count + '|' + (fields != null ? fields : "*") + '|' + expand + '|' +
+                (after != null ? "=" + after : "-");
+    }
+
+    /**
+     * Corpo da resposta no formato pedido (JSON, CBOR ou Smile), cada um com a sua entrada;
+     * exceções do {@code loader} são propagadas e nada é guardado.
+     */
+    public byte[] get(String name, String key, MediaType format, Supplier<?> loader) {
+        Counters stats = counters.get(name);
+        stats.lookups.increment();
+        return cache(name).<String, byte[]>get(key + '|' + format.getSubtype(), k -> {
+            stats.misses.increment();
+            try {
+                return formats.mapper(format).writeValueAsBytes(loader.get());
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Não foi possível serializar a resposta da pesquisa", e);
+            }
+        }).await().indefinitely();
+    }
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(EntityChanged.VERSIONS) EntityChanged change) {
+        DEPENDS_ON.forEach((name, types) -> {
+            if (types.contains(change.type())) cache(name).invalidateAll().await().indefinitely();
+        });
+    }
+
+    public Map<String, Stats> stats() {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        for (String name : List.of(ACESSORIOS, CARROS, FABRICANTES)) {
+            stats.put(name, new Stats(counters.get(name), cache(name).as(CaffeineCache.class).keySet().size()));
+        }
+        return stats;
+    }
+
+    private Cache cache(String name) {
+        return switch (name) {
+            case ACESSORIOS -> acessorios;
+            case CARROS -> carros;
+            case FABRICANTES -> fabricantes;
+            default -> throw new IllegalArgumentException("Cache desconhecido: " + name);
+        };
+    }
+
+    private static final class Counters {
+        final LongAdder lookups = new LongAdder();
+        final LongAdder misses = new LongAdder();
+    }
+
+    public static class Stats {
+        public long hits;
+        public long misses;
+        public long entries;
+        public double hitRatio;
+
+        Stats(Counters counters, long entries) {
+            long lookups = counters.lookups.sum();
+            this.misses = counters.misses.sum();
+            this.hits = Math.max(0, lookups - misses);
+            this.entries = entries;
+            this.hitRatio = lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.acme.search;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.Fabricante;
+import org.acme.event.EntityChanged;
+
+import java.util.stream.Stream;
+
+/**
+ * Índices de texto das três entidades pesquisáveis. São montados na inicialização a
+ * partir de uma projeção só com os campos de texto e acompanham cada escrita confirmada.
+ */
+@ApplicationScoped
+public class SearchIndex {
+
+    private final TextIndex acessorios = new TextIndex(1.0);
+    private final TextIndex carros = new TextIndex(2.0, 1.0);
+    private final TextIndex fabricantes = new TextIndex(2.0, 1.0);
+
+    @Inject
+    EntityManager em;
+
+    @Transactional
+    void onStart(@Observes StartupEvent ev) {
+        rebuild();
+    }
+
+    @Transactional
+    public void rebuild() {
+        load(acessorios, "select a.id, a.nome from Acessorio a");
+        load(carros, "select c.id, c.modelo, c.paisDeMontagem from Carro c");
+        load(fabricantes, "select f.id, f.nome, f.detalhes from Fabricante f");
+    }
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(EntityChanged.READ_MODEL) EntityChanged change) {
+        TextIndex index = indexFor(change.type());
+        if (index == null) return;
+
+        if (change.kind() == EntityChanged.Kind.DELETED) {
+            index.remove(change.id());
+        } else if (change.entity() instanceof Acessorio a) {
+            index.put(a.id, a.nome);
+        } else if (change.entity() instanceof Carro c) {
+            index.put(c.id, c.modelo, c.paisDeMontagem);
+        } else if (change.entity() instanceof Fabricante f) {
+            index.put(f.id, f.nome, f.detalhes);
+        }
+    }
+
+    public TextIndex acessorios() {
+        return acessorios;
+    }
+
+    public TextIndex carros() {
+        return carros;
+    }
+
+    public TextIndex fabricantes() {
+        return fabricantes;
+    }
+
+    private TextIndex indexFor(Class<?> type) {
+        if (type == Acessorio.class) return acessorios;
+        if (type == Carro.class) return carros;
+        if (type == Fabricante.class) return fabricantes;
+        return null;
+    }
+
+    private void load(TextIndex index, String jpql) {
+        index.clear();
+        try (Stream<Object[]> rows = em.createQuery(jpql, Object[].class).getResultStream()) {
+            rows.forEach(row -> {
+                String[] fields = new String[row.length - 1];
+                for (int i = 1; i < row.length; i++) fields[i - 1] = (String) row[i];
+                index.put((Long) row[0], fields);
+            });
+        }
+    }
+}
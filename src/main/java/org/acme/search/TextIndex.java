@@ -0,0 +1,125 @@
+package org.acme.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória: cada termo aponta para os ids que o contêm, com um peso
+ * que depende do campo onde apareceu. Os termos ficam ordenados para que o último
+ * termo digitado funcione como prefixo (busca enquanto o usuário digita).
+ * <p>
+ * Escritas são serializadas; leituras não bloqueiam.
+ */
+public class TextIndex {
+
+    public record Hit(long id, double score) {}
+
+    public static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+            .thenComparingLong(Hit::id);
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final double PREFIX_FACTOR = 0.5;
+
+    private final double[] fieldWeights;
+    private final ConcurrentSkipListMap<String, Map<Long, Double>> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Set<String>> documents = new ConcurrentHashMap<>();
+
+    /**
+     * @param fieldWeights peso de cada campo, na mesma ordem em que são passados a {@link #put}
+     */
+    public TextIndex(double... fieldWeights) {
+        this.fieldWeights = fieldWeights;
+    }
+
+    public synchronized void put(long id, String... fields) {
+        removeDocument(id);
+        Map<String, Double> weights = new HashMap<>();
+        for (int i = 0; i < fields.length; i++) {
+            for (String token : tokenize(fields[i])) {
+                weights.merge(token, fieldWeights[i], Double::sum);
+            }
+        }
+        weights.forEach((token, weight) -> postings.computeIfAbsent(token, t -> new ConcurrentHashMap<>()).put(id, weight));
+        documents.put(id, weights.keySet());
+    }
+
+    public synchronized void remove(long id) {
+        removeDocument(id);
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        documents.clear();
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Ids que contêm todos os termos da consulta, do mais relevante para o menos relevante.
+     * Termo exato pontua o peso do campo; termo que só casa como prefixo pontua metade.
+     */
+    public List<Hit> search(String query) {
+        Set<String> terms = tokenize(query);
+        if (terms.isEmpty()) return List.of();
+
+        List<Map<Long, Double>> perTerm = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Map<Long, Double> scores = new HashMap<>();
+            for (var entry : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                double factor = entry.getKey().equals(term) ? 1.0 : PREFIX_FACTOR;
+                entry.getValue().forEach((id, weight) -> scores.merge(id, weight * factor, Math::max));
+            }
+            if (scores.isEmpty()) return List.of();
+            perTerm.add(scores);
+        }
+        perTerm.sort(Comparator.comparingInt(Map::size));
+
+        List<Hit> hits = new ArrayList<>();
+        candidates:
+        for (var candidate : perTerm.get(0).entrySet()) {
+            double score = candidate.getValue();
+            for (int i = 1; i < perTerm.size(); i++) {
+                Double other = perTerm.get(i).get(candidate.getKey());
+                if (other == null) continue candidates;
+                score += other;
+            }
+            hits.add(new Hit(candidate.getKey(), score));
+        }
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) return tokens;
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        for (String token : SEPARATOR.split(normalized)) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private void removeDocument(long id) {
+        Set<String> tokens = documents.remove(id);
+        if (tokens == null) return;
+        for (String token : tokens) {
+            postings.computeIfPresent(token, (t, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
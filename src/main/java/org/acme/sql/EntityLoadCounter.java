@@ -0,0 +1,22 @@
+package org.acme.sql;
+
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Conta as entidades hidratadas a partir de linhas do banco na requisição atual, no lugar
+ * das linhas lidas. Projeções ({@code fields=}) e contagens não passam por aqui.
+ */
+@PersistenceUnitExtension
+@ApplicationScoped
+public class EntityLoadCounter implements Interceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        RequestQueries queries = RequestQueries.current();
+        if (queries != null) queries.loaded();
+        return false;
+    }
+}
@@ -0,0 +1,38 @@
+package org.acme.sql;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Soma o tempo de execução JDBC (comandos e batches) na requisição atual. O Hibernate
+ * cria uma instância por sessão, registrada por {@code hibernate.session.events.auto}.
+ */
+public class JdbcTimingListener implements SessionEventListener {
+
+    private long started;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        started = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        started = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record();
+    }
+
+    private void record() {
+        long elapsed = System.nanoTime() - started;
+        RequestQueries queries = RequestQueries.current();
+        if (queries != null) queries.executed(elapsed);
+    }
+}
@@ -0,0 +1,20 @@
+package org.acme.sql;
+
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Conta cada comando SQL preparado pelo Hibernate na requisição atual. Não altera o SQL.
+ */
+@PersistenceUnitExtension
+@ApplicationScoped
+public class QueryInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestQueries queries = RequestQueries.current();
+        if (queries != null) queries.statement(sql);
+        return sql;
+    }
+}
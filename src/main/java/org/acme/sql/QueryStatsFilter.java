@@ -0,0 +1,77 @@
+package org.acme.sql;
+
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.Provider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Informa ao cliente o custo em SQL de cada requisição da API ({@code X-Query-Count} e
+ * {@code Server-Timing: db}) e aponta suspeitas de N+1: o mesmo formato de SELECT
+ * repetido {@code api.sql.n-plus-one.threshold} vezes na requisição. Os avisos saem por
+ * amostragem e numa thread própria, com fila limitada que descarta quando cheia, para que
+ * o log nunca atrase a resposta.
+ * <p>
+ * O Hibernate não expõe as linhas lidas sem envolver o driver, então o
+ * {@code Server-Timing} traz as entidades hidratadas ({@link EntityLoadCounter}): linhas
+ * de projeções {@code fields=}, de contagens e entidades vindas do cache de segundo nível
+ * ficam de fora.
+ */
+@Provider
+@ApplicationScoped
+public class QueryStatsFilter implements ContainerResponseFilter {
+
+    @ConfigProperty(name = "api.sql.n-plus-one.threshold", defaultValue = "5")
+    int threshold;
+
+    @ConfigProperty(name = "api.sql.n-plus-one.sample-rate", defaultValue = "0.1")
+    double sampleRate;
+
+    private ThreadPoolExecutor logger;
+
+    @PostConstruct
+    void init() {
+        logger = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1000), r -> {
+            Thread thread = new Thread(r, "n-plus-one-log");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    void close() {
+        logger.shutdown();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext req, ContainerResponseContext res) {
+        if (!req.getUriInfo().getPath().startsWith("/api/v1")) return;
+        RequestQueries queries = RequestQueries.current();
+        if (queries == null) return;
+
+        int statements = queries.statements();
+        res.getHeaders().putSingle("X-Query-Count", statements);
+        res.getHeaders().add("Server-Timing", String.format(Locale.ROOT, "db;dur=%.2f;desc=\"%d consultas, %d entidades hidratadas\"",
+                queries.jdbcNanos() / 1_000_000.0, statements, queries.entities()));
+
+        if (statements < threshold) return;
+        Map<String, Integer> repeated = queries.repeated(threshold);
+        if (repeated.isEmpty() || ThreadLocalRandom.current().nextDouble() >= sampleRate) return;
+
+        String request = req.getMethod() + " " + req.getUriInfo().getPath();
+        logger.execute(() -> repeated.forEach((shape, count) ->
+                Log.warnf("Possível N+1 em %s: %d execuções de %s", request, count, shape)));
+    }
+}
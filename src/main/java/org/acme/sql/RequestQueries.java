@@ -0,0 +1,87 @@
+package org.acme.sql;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.arc.Unremovable;
+import jakarta.enterprise.context.RequestScoped;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Consultas SQL da requisição atual: quantas, o tempo gasto no JDBC, quantas entidades
+ * foram carregadas e quantas vezes cada formato de SELECT se repetiu. Alimentado por
+ * {@link QueryInspector}, {@link JdbcTimingListener} e {@link EntityLoadCounter}.
+ * Só é buscado por {@link #current()}, daí o {@code @Unremovable}.
+ */
+@RequestScoped
+@Unremovable
+public class RequestQueries {
+
+    private static final Pattern IN_LIST = Pattern.compile("in\\s*\\((\\s*\\?\\s*,?)+\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LITERAL = Pattern.compile("'(?:[^']|'')*'|\\b\\d+\\b");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private int statements;
+    private long jdbcNanos;
+    private int entities;
+    private final Map<String, Integer> selects = new LinkedHashMap<>();
+
+    /**
+     * Instância da requisição atual, ou null fora de uma requisição (inicialização,
+     * observadores pós-commit, jobs).
+     */
+    static RequestQueries current() {
+        var container = Arc.container();
+        if (container == null) return null;
+        ManagedContext context = container.requestContext();
+        return context.isActive() ? container.instance(RequestQueries.class).get() : null;
+    }
+
+    void statement(String sql) {
+        statements++;
+        if (sql.regionMatches(true, 0, "select", 0, 6)) selects.merge(shape(sql), 1, Integer::sum);
+    }
+
+    void executed(long nanos) {
+        jdbcNanos += nanos;
+    }
+
+    void loaded() {
+        entities++;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long jdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public int entities() {
+        return entities;
+    }
+
+    /**
+     * Formatos de SELECT repetidos ao menos {@code threshold} vezes, com a contagem.
+     */
+    public Map<String, Integer> repeated(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        selects.forEach((shape, count) -> {
+            if (count >= threshold) repeated.put(shape, count);
+        });
+        return repeated;
+    }
+
+    /**
+     * O SQL sem literais e com listas {@code in (?, ?, ...)} colapsadas, para que
+     * consultas iguais com parâmetros diferentes contem juntas.
+     */
+    static String shape(String sql) {
+        String shape = LITERAL.matcher(sql).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+        return SPACES.matcher(shape).replaceAll(" ").strip();
+    }
+}
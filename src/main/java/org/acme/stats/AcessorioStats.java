@@ -0,0 +1,234 @@
+package org.acme.stats;
+
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.Fabricante;
+import org.acme.event.EntityChanged;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.context.ManagedExecutor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Estatísticas de {@code valor} e {@code tempoInstalacaoMinutos} por grupo. Contagem,
+ * soma, mínimo, máximo e média saem de um GROUP BY no banco. Os percentis vêm de um
+ * {@link QuantileSketch} por grupo: as linhas são lidas com um cursor somente-leitura em
+ * blocos de {@code api.stats.chunk-size}, cada bloco vira sketches no {@link ManagedExecutor}
+ * enquanto o próximo é lido, e no fim os sketches são combinados. No máximo
+ * {@code api.stats.max-in-flight} blocos ficam pendentes; passando disso, a leitura espera,
+ * o que limita a memória e a fatia do executor que um único cálculo ocupa.
+ * <p>
+ * O resultado fica em cache até a próxima escrita confirmada em acessórios, carros ou
+ * fabricantes.
+ */
+@ApplicationScoped
+public class AcessorioStats {
+
+    private static final String AGGREGATES =
+            "count(a), sum(a.valor), min(a.valor), max(a.valor), avg(a.valor), " +
+            "sum(a.tempoInstalacaoMinutos), min(a.tempoInstalacaoMinutos), max(a.tempoInstalacaoMinutos), avg(a.tempoInstalacaoMinutos)";
+    private static final Set<Class<?>> DEPENDS_ON = Set.of(Acessorio.class, Carro.class, Fabricante.class);
+
+    public enum GroupBy {
+        NONE(null, null, "Acessorio a"),
+        CARRO("c.id", "c.modelo", "Acessorio a left join a.carro c"),
+        FABRICANTE("f.id", "f.nome", "Acessorio a join a.fabricantes f"),
+        ANO_AQUISICAO("a.anoAquisicao", null, "Acessorio a");
+
+        final String key;
+        final String label;
+        final String from;
+
+        GroupBy(String key, String label, String from) {
+            this.key = key;
+            this.label = label;
+            this.from = from;
+        }
+
+        public static GroupBy parse(String value) {
+            if (value == null || value.isBlank()) return NONE;
+            return switch (value) {
+                case "carro" -> CARRO;
+                case "fabricante" -> FABRICANTE;
+                case "anoAquisicao" -> ANO_AQUISICAO;
+                default -> throw new IllegalArgumentException("groupBy inválido. Use carro, fabricante ou anoAquisicao.");
+            };
+        }
+    }
+
+    @ConfigProperty(name = "api.stats.chunk-size", defaultValue = "10000")
+    int chunkSize;
+
+    @ConfigProperty(name = "api.stats.max-in-flight", defaultValue = "4")
+    int maxInFlight;
+
+    @ConfigProperty(name = "api.stats.relative-accuracy", defaultValue = "0.01")
+    double relativeAccuracy;
+
+    @Inject
+    Session session;
+
+    @Inject
+    ManagedExecutor executor;
+
+    @Inject
+    @CacheName("acessorio-stats")
+    Cache cache;
+
+    /**
+     * O cálculo chama {@link #compute} por {@code this}, sem passar pelo proxy, então a
+     * transação que cobre a leitura em blocos e o GROUP BY é aberta aqui.
+     *
+     * @param version ETag da lista de acessórios; muda a cada escrita confirmada
+     */
+    public List<Group> get(GroupBy groupBy, String version) {
+        return cache.<String, List<Group>>get(version + '|' + groupBy,
+                k -> QuarkusTransaction.joiningExisting().call(() -> compute(groupBy))).await().indefinitely();
+    }
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) @Priority(EntityChanged.VERSIONS) EntityChanged change) {
+        if (DEPENDS_ON.contains(change.type())) cache.invalidateAll().await().indefinitely();
+    }
+
+    private List<Group> compute(GroupBy groupBy) {
+        Map<Object, Sketches> sketches = sketch(groupBy);
+
+        String select = groupBy.key == null ? AGGREGATES
+                : groupBy.key + ", " + (groupBy.label != null ? groupBy.label : groupBy.key) + ", " + AGGREGATES;
+        String groupClause = groupBy.key == null ? ""
+                : " group by " + groupBy.key + (groupBy.label != null ? ", " + groupBy.label : "") + " order by " + groupBy.key;
+        List<Object[]> rows = session.createSelectionQuery("select " + select + " from " + groupBy.from + groupClause, Object[].class)
+                .setReadOnly(true)
+                .getResultList();
+
+        List<Group> groups = new ArrayList<>(rows.size());
+        int offset = groupBy.key == null ? 0 : 2;
+        for (Object[] row : rows) {
+            long count = ((Number) row[offset]).longValue();
+            if (count == 0) continue;
+            Object key = groupBy.key == null ? null : row[0];
+            Sketches s = sketches.getOrDefault(key, new Sketches(relativeAccuracy));
+            Group group = new Group();
+            group.key = key;
+            group.label = groupBy.label == null ? null : (String) row[1];
+            group.count = count;
+            group.valor = new Metric(row, offset + 1, s.valor);
+            group.tempoInstalacaoMinutos = new Metric(row, offset + 5, s.tempo);
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    /**
+     * Lê só a chave do grupo e as duas colunas medidas, e monta os sketches em paralelo.
+     */
+    private Map<Object, Sketches> sketch(GroupBy groupBy) {
+        String key = groupBy.key != null ? groupBy.key : "0";
+        List<CompletableFuture<Map<Object, Sketches>>> partials = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(Math.max(1, maxInFlight));
+        try (ScrollableResults<Object[]> rows = session.createSelectionQuery(
+                        "select " + key + ", a.valor, a.tempoInstalacaoMinutos from " + groupBy.from, Object[].class)
+                .setReadOnly(true)
+                .setFetchSize(chunkSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            List<Object[]> chunk = new ArrayList<>(chunkSize);
+            while (rows.next()) {
+                chunk.add(rows.get());
+                if (chunk.size() == chunkSize) {
+                    partials.add(submit(chunk, groupBy.key == null, inFlight));
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) partials.add(submit(chunk, groupBy.key == null, inFlight));
+        }
+
+        Map<Object, Sketches> merged = new HashMap<>();
+        for (CompletableFuture<Map<Object, Sketches>> partial : partials) {
+            partial.join().forEach((k, s) -> merged.merge(k, s, Sketches::merge));
+        }
+        return merged;
+    }
+
+    /**
+     * Espera uma vaga entre os blocos pendentes; a tarefa devolve a vaga ao terminar.
+     */
+    private CompletableFuture<Map<Object, Sketches>> submit(List<Object[]> chunk, boolean single, Semaphore inFlight) {
+        inFlight.acquireUninterruptibly();
+        try {
+            return executor.supplyAsync(() -> {
+                try {
+                    Map<Object, Sketches> sketches = new LinkedHashMap<>();
+                    for (Object[] row : chunk) {
+                        Sketches s = sketches.computeIfAbsent(single ? null : row[0], k -> new Sketches(relativeAccuracy));
+                        s.valor.add(((Number) row[1]).doubleValue());
+                        s.tempo.add(((Number) row[2]).doubleValue());
+                    }
+                    return sketches;
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private record Sketches(QuantileSketch valor, QuantileSketch tempo) {
+        Sketches(double relativeAccuracy) {
+            this(new QuantileSketch(relativeAccuracy), new QuantileSketch(relativeAccuracy));
+        }
+
+        Sketches merge(Sketches other) {
+            valor.merge(other.valor);
+            tempo.merge(other.tempo);
+            return this;
+        }
+    }
+
+    public static class Group {
+        public Object key;
+        public String label;
+        public long count;
+        public Metric valor;
+        public Metric tempoInstalacaoMinutos;
+    }
+
+    public static class Metric {
+        public double sum;
+        public double min;
+        public double max;
+        public double mean;
+        public double p50;
+        public double p95;
+        public double p99;
+
+        Metric(Object[] row, int from, QuantileSketch sketch) {
+            this.sum = ((Number) row[from]).doubleValue();
+            this.min = ((Number) row[from + 1]).doubleValue();
+            this.max = ((Number) row[from + 2]).doubleValue();
+            this.mean = ((Number) row[from + 3]).doubleValue();
+            this.p50 = sketch.quantile(0.50);
+            this.p95 = sketch.quantile(0.95);
+            this.p99 = sketch.quantile(0.99);
+        }
+    }
+}
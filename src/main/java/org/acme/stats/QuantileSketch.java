@@ -0,0 +1,105 @@
+package org.acme.stats;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sketch de quantis com erro relativo limitado, no estilo do DDSketch: cada valor cai num
+ * balde logarítmico de razão {@code gamma}, então qualquer quantil devolvido está a no
+ * máximo {@code relativeAccuracy} do valor real. Dois sketches com a mesma precisão se
+ * combinam somando os baldes, o que permite montar um por bloco em paralelo.
+ * <p>
+ * Não é thread-safe; use um por thread e junte com {@link #merge}.
+ */
+public final class QuantileSketch {
+
+    private static final double MIN_INDEXABLE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final Map<Integer, Long> positive = new HashMap<>();
+    private final Map<Integer, Long> negative = new HashMap<>();
+    private long zeros;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("A precisão relativa deve estar entre 0 e 1");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(double value) {
+        if (value > MIN_INDEXABLE) positive.merge(index(value), 1L, Long::sum);
+        else if (value < -MIN_INDEXABLE) negative.merge(index(-value), 1L, Long::sum);
+        else zeros++;
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Só é possível juntar sketches com a mesma precisão");
+        }
+        other.positive.forEach((index, n) -> positive.merge(index, n, Long::sum));
+        other.negative.forEach((index, n) -> negative.merge(index, n, Long::sum));
+        zeros += other.zeros;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @param q entre 0 e 1
+     * @return NaN para um sketch vazio
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("O quantil deve estar entre 0 e 1");
+        if (count == 0) return Double.NaN;
+        long rank = (long) Math.floor(q * (count - 1));
+
+        long seen = 0;
+        int[] negatives = sortedKeys(negative);
+        for (int i = negatives.length - 1; i >= 0; i--) {
+            seen += negative.get(negatives[i]);
+            if (seen > rank) return clamp(-value(negatives[i]));
+        }
+        seen += zeros;
+        if (seen > rank) return clamp(0);
+        for (int index : sortedKeys(positive)) {
+            seen += positive.get(index);
+            if (seen > rank) return clamp(value(index));
+        }
+        return max;
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static int[] sortedKeys(Map<Integer, Long> bins) {
+        int[] keys = bins.keySet().stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(keys);
+        return keys;
+    }
+}
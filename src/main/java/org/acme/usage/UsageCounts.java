@@ -0,0 +1,213 @@
+package org.acme.usage;
+
+import io.quarkus.logging.Log;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import org.acme.Fabricante;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Contadores {@code quantidadeAcessorios} de carros e fabricantes, atualizados na mesma
+ * transação das escritas de acessórios. Com eles a checagem de exclusão é uma leitura por
+ * chave e a lista dos fabricantes mais usados sai de um índice.
+ * <p>
+ * Os ajustes são {@code quantidadeAcessorios + ?} por JDBC, em batch e em ordem de id, então
+ * escritas concorrentes não perdem incrementos nem travam em ordens diferentes. Passam ao
+ * largo do Hibernate: as entidades em cache podem ter um valor antigo, por isso os
+ * contadores só são lidos por consulta. Na inicialização, {@link #recompute()} refaz
+ * tudo a partir das tabelas em blocos de {@code api.usage.chunk-size} ids.
+ */
+@ApplicationScoped
+public class UsageCounts {
+
+    private static final String ADD_CARRO = "update Carro set quantidadeAcessorios = quantidadeAcessorios + ? where id = ?";
+    private static final String ADD_FABRICANTE = "update Fabricante set quantidadeAcessorios = quantidadeAcessorios + ? where id = ?";
+    private static final String RECOMPUTE_CARRO =
+            "update Carro set quantidadeAcessorios = (select count(*) from Acessorio a where a.carro_id = Carro.id) where id between ? and ?";
+    private static final String RECOMPUTE_FABRICANTE =
+            "update Fabricante set quantidadeAcessorios = (select count(*) from acessorio_fabricante af where af.fabricante_id = Fabricante.id) where id between ? and ?";
+
+    @ConfigProperty(name = "api.usage.recompute-on-start", defaultValue = "true")
+    boolean recomputeOnStart;
+
+    @ConfigProperty(name = "api.usage.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @Inject
+    Session session;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (recomputeOnStart) recompute();
+    }
+
+    /**
+     * Recalcula todos os contadores, cada bloco de ids na sua transação. Corrige qualquer
+     * desvio, mas não deve concorrer com escritas de acessórios.
+     */
+    public void recompute() {
+        long started = System.nanoTime();
+        int carros = recompute("Carro", RECOMPUTE_CARRO);
+        int fabricantes = recompute("Fabricante", RECOMPUTE_FABRICANTE);
+        Log.infof("Contadores de uso recalculados: %d carros e %d fabricantes em %d ms",
+                carros, fabricantes, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private int recompute(String entity, String sql) {
+        Long max = QuarkusTransaction.requiringNew().call(() ->
+                session.createSelectionQuery("select max(e.id) from " + entity + " e", Long.class).getSingleResult());
+        if (max == null) return 0;
+        int[] updated = {0};
+        for (long from = 1; from <= max; from += chunkSize) {
+            long first = from, last = from + chunkSize - 1;
+            QuarkusTransaction.requiringNew().run(() -> session.doWork(connection -> {
+                try (PreparedStatement update = connection.prepareStatement(sql)) {
+                    update.setLong(1, first);
+                    update.setLong(2, last);
+                    updated[0] += update.executeUpdate();
+                }
+            }));
+        }
+        return updated[0];
+    }
+
+    /**
+     * Um acessório passou de ({@code carroAntes}, {@code fabricantesAntes}) para
+     * ({@code carroDepois}, {@code fabricantesDepois}); null e vazio indicam que ele não
+     * existia ou deixou de existir.
+     */
+    public void moved(Long carroAntes, Collection<Long> fabricantesAntes, Long carroDepois, Collection<Long> fabricantesDepois) {
+        Deltas deltas = new Deltas();
+        deltas.add(carroAntes, fabricantesAntes, -1);
+        deltas.add(carroDepois, fabricantesDepois, 1);
+        apply(deltas);
+    }
+
+    public void added(Long carroId, Collection<Long> fabricanteIds) {
+        moved(null, Set.of(), carroId, fabricanteIds);
+    }
+
+    public void removed(Long carroId, Collection<Long> fabricanteIds) {
+        moved(carroId, fabricanteIds, null, Set.of());
+    }
+
+    /**
+     * Desconta os acessórios que casam com {@code where} (alias {@code a}), com duas
+     * consultas agregadas. Chamar antes de removê-los.
+     */
+    public void removing(String where, String param, Object value) {
+        Deltas deltas = new Deltas();
+        for (Object[] row : session.createSelectionQuery(
+                        "select a.carro.id, count(a) from Acessorio a where " + where + " and a.carro is not null group by a.carro.id", Object[].class)
+                .setParameter(param, value)
+                .getResultList()) {
+            deltas.carros.merge((Long) row[0], -(Long) row[1], Long::sum);
+        }
+        for (Object[] row : session.createSelectionQuery(
+                        "select f.id, count(a) from Acessorio a join a.fabricantes f where " + where + " group by f.id", Object[].class)
+                .setParameter(param, value)
+                .getResultList()) {
+            deltas.fabricantes.merge((Long) row[0], -(Long) row[1], Long::sum);
+        }
+        apply(deltas);
+    }
+
+    public void apply(Deltas deltas) {
+        if (deltas.isEmpty()) return;
+        session.doWork(connection -> {
+            try (PreparedStatement carros = connection.prepareStatement(ADD_CARRO);
+                 PreparedStatement fabricantes = connection.prepareStatement(ADD_FABRICANTE)) {
+                batch(carros, deltas.carros);
+                batch(fabricantes, deltas.fabricantes);
+            }
+        });
+    }
+
+    private static void batch(PreparedStatement update, Map<Long, Long> deltas) throws SQLException {
+        boolean pending = false;
+        for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+            if (delta.getValue() == 0) continue;
+            update.setLong(1, delta.getValue());
+            update.setLong(2, delta.getKey());
+            update.addBatch();
+            pending = true;
+        }
+        if (pending) update.executeBatch();
+    }
+
+    /**
+     * Lê o contador e trava a linha até o commit, como os incrementos: o valor vale até a
+     * exclusão do carro.
+     *
+     * @return null quando o carro não existe
+     */
+    public Long carro(long id) {
+        return session.createSelectionQuery("select c.quantidadeAcessorios from Carro c where c.id = :id", Long.class)
+                .setParameter("id", id)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .uniqueResult();
+    }
+
+    /**
+     * Como {@link #carro}, para o fabricante.
+     *
+     * @return null quando o fabricante não existe
+     */
+    public Long fabricante(long id) {
+        return session.createSelectionQuery("select f.quantidadeAcessorios from Fabricante f where f.id = :id", Long.class)
+                .setParameter("id", id)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .uniqueResult();
+    }
+
+    /**
+     * Fabricantes com mais acessórios, lidos do índice {@code (quantidadeAcessorios, id)}.
+     */
+    public List<Object> maisUsados(int limit) {
+        return session.createSelectionQuery(
+                        "select new map(f.id as id, f.nome as nome, f.quantidadeAcessorios as quantidadeAcessorios) " +
+                        "from Fabricante f order by f.quantidadeAcessorios desc, f.id desc", Object.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public static Set<Long> ids(Collection<Fabricante> fabricantes) {
+        Set<Long> ids = new HashSet<>();
+        if (fabricantes == null) return ids;
+        for (Fabricante f : fabricantes) {
+            if (f != null && f.id != null) ids.add(f.id);
+        }
+        return ids;
+    }
+
+    /**
+     * Ajustes por id, ordenados para que as atualizações sigam sempre a mesma ordem.
+     */
+    public static final class Deltas {
+        final Map<Long, Long> carros = new TreeMap<>();
+        final Map<Long, Long> fabricantes = new TreeMap<>();
+
+        public Deltas add(Long carroId, Collection<Long> fabricanteIds, long delta) {
+            if (carroId != null) carros.merge(carroId, delta, Long::sum);
+            for (Long id : fabricanteIds) fabricantes.merge(id, delta, Long::sum);
+            return this;
+        }
+
+        boolean isEmpty() {
+            return carros.isEmpty() && fabricantes.isEmpty();
+        }
+    }
+}
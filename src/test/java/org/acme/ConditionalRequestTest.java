@@ -0,0 +1,172 @@
+package org.acme;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import org.acme.event.EntityChanged;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static io.restassured.RestAssured.given;
+import static org.acme.Fixtures.criar;
+import static org.hamcrest.Matchers.emptyString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@QuarkusTest
+class ConditionalRequestTest {
+
+    @Inject
+    Event<EntityChanged> changes;
+
+    private static String etag(String path) {
+        return given().when().get(path)
+                .then().statusCode(200).header("ETag", notNullValue())
+                .extract().header("ETag");
+    }
+
+    /**
+     * PUT que lê a versão anterior enquanto outra transação edita o fabricante: a linha
+     * fica travada até o commit, então o PUT só chega ao flush depois dela.
+     */
+    private int putDuranteOutraEdicao(String path, long id, String detalhes, String ifMatch) {
+        CompletableFuture<Integer> put = new CompletableFuture<>();
+        QuarkusTransaction.requiringNew().run(() -> {
+            Fabricante outra = Fabricante.findById(id);
+            outra.detalhes = detalhes;
+            changes.fire(EntityChanged.updated(Fabricante.class, id, outra));
+            Fabricante.flush();
+            CompletableFuture.runAsync(() -> {
+                var request = given().contentType(ContentType.JSON)
+                        .body(Map.of("nome", "Etag Concorrente", "detalhes", "Edição perdida"));
+                if (ifMatch != null) request.header("If-Match", ifMatch);
+                put.complete(request.when().put(path).then().extract().statusCode());
+            });
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return put.join();
+    }
+
+    @Test
+    void itemInalteradoDevolve304() {
+        long id = criar("/api/v1/fabricantes", Map.of("nome", "Etag 304", "detalhes", "Original"));
+        String tag = etag("/api/v1/fabricantes/" + id);
+
+        given().header("If-None-Match", tag)
+                .when().get("/api/v1/fabricantes/" + id)
+                .then().statusCode(304)
+                .header("ETag", tag)
+                .body(emptyString());
+        given().header("If-None-Match", tag)
+                .queryParam("fields", "nome")
+                .when().get("/api/v1/fabricantes/" + id)
+                .then().statusCode(304);
+    }
+
+    @Test
+    void ifMatchDesatualizadoDevolve412() {
+        long id = criar("/api/v1/fabricantes", Map.of("nome", "Etag 412", "detalhes", "Original"));
+        String path = "/api/v1/fabricantes/" + id;
+        String original = etag(path);
+
+        String atualizado = given().contentType(ContentType.JSON)
+                .header("If-Match", original)
+                .body(Map.of("nome", "Etag 412", "detalhes", "Primeira edição"))
+                .when().put(path)
+                .then().statusCode(200)
+                .header("ETag", not(equalTo(original)))
+                .extract().header("ETag");
+        assertNotEquals(original, atualizado);
+
+        given().contentType(ContentType.JSON)
+                .header("If-Match", original)
+                .body(Map.of("nome", "Etag 412", "detalhes", "Edição perdida"))
+                .when().put(path)
+                .then().statusCode(412);
+        given().header("If-Match", original)
+                .when().delete(path)
+                .then().statusCode(412);
+
+        given().when().get(path)
+                .then().statusCode(200)
+                .header("ETag", atualizado)
+                .body("detalhes", equalTo("Primeira edição"));
+        given().header("If-None-Match", original)
+                .when().get(path)
+                .then().statusCode(200);
+    }
+
+    @Test
+    void edicaoConcorrenteDevolve412ComIfMatchE409Sem() {
+        long id = criar("/api/v1/fabricantes", Map.of("nome", "Etag Concorrente", "detalhes", "Original"));
+        String path = "/api/v1/fabricantes/" + id;
+
+        assertEquals(412, putDuranteOutraEdicao(path, id, "Edição concorrente", etag(path)));
+        assertEquals(409, putDuranteOutraEdicao(path, id, "Outra edição concorrente", null));
+
+        given().when().get(path)
+                .then().statusCode(200)
+                .body("detalhes", equalTo("Outra edição concorrente"));
+    }
+
+    @Test
+    void itemMudaQuandoUmaEntidadeEmbutidaMuda() {
+        long carro = criar("/api/v1/carros", Map.of("modelo", "Etag Embutido", "paisDeMontagem", "Brasil"));
+        long acessorio = criar("/api/v1/acessorios", Map.of(
+                "nome", "Etag Embutido",
+                "descricao", "Acessório do carro editado",
+                "anoAquisicao", 2024,
+                "valor", 10.0,
+                "tempoInstalacaoMinutos", 5,
+                "carro", Map.of("id", carro),
+                "fabricantes", List.of()));
+        String antes = etag("/api/v1/acessorios/" + acessorio);
+
+        given().contentType(ContentType.JSON)
+                .body(Map.of("modelo", "Etag Embutido 2", "paisDeMontagem", "Brasil"))
+                .when().put("/api/v1/carros/" + carro)
+                .then().statusCode(200);
+
+        given().header("If-None-Match", antes)
+                .when().get("/api/v1/acessorios/" + acessorio)
+                .then().statusCode(200)
+                .header("ETag", not(equalTo(antes)));
+    }
+
+    @Test
+    void listaMudaACadaEscritaConfirmada() {
+        String antes = etag("/api/v1/fabricantes");
+        given().header("If-None-Match", antes)
+                .when().get("/api/v1/fabricantes")
+                .then().statusCode(304);
+
+        criar("/api/v1/fabricantes", Map.of("nome", "Etag Lista", "detalhes", "Nova"));
+
+        given().header("If-None-Match", antes)
+                .when().get("/api/v1/fabricantes")
+                .then().statusCode(200)
+                .header("ETag", not(equalTo(antes)));
+    }
+
+    @Test
+    void itemInexistente() {
+        given().when().get("/api/v1/fabricantes/999999").then().statusCode(404);
+        given().contentType(ContentType.JSON)
+                .header("If-Match", "\"f999999-0\"")
+                .body(Map.of("nome", "Nada", "detalhes", "Nada"))
+                .when().put("/api/v1/fabricantes/999999")
+                .then().statusCode(404);
+    }
+}
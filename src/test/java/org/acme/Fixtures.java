@@ -0,0 +1,30 @@
+package org.acme;
+
+import io.restassured.http.ContentType;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+
+/**
+ * Dados criados pelos próprios testes, pela API e com uma chave de idempotência nova a
+ * cada chamada.
+ */
+public final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * POST do corpo em {@code path}; exige 201 e devolve o id criado.
+     */
+    public static long criar(String path, Map<String, ?> body) {
+        return given().contentType(ContentType.JSON)
+                .header("X-Idempotency-Key", UUID.randomUUID().toString())
+                .body(body)
+                .when().post(path)
+                .then().statusCode(201)
+                .extract().jsonPath().getLong("id");
+    }
+}
@@ -4,17 +4,17 @@ import io.quarkus.test.junit.QuarkusTest;
 import org.junit.jupiter.api.Test;
 
 import static io.restassured.RestAssured.given;
-import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.greaterThan;
 
 @QuarkusTest
 class GreetingResourceTest {
     @Test
-    void testHelloEndpoint() {
+    void testFabricantesEndpoint() {
         given()
-          .when().get("/hello")
+          .when().get("/api/v1/fabricantes")
           .then()
              .statusCode(200)
-             .body(is("Hello from Quarkus REST"));
+             .body("size()", greaterThan(0));
     }
 
 }
\ No newline at end of file
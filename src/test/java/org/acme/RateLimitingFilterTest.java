@@ -0,0 +1,86 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.specification.RequestSpecification;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Usa DELETE /api/v1/fabricantes/bulk, cuja rota mantém no perfil de teste o limite de
+ * application.properties (capacity 2, refill 0.2/s). O perfil de teste confia em
+ * X-Forwarded-For e conhece as chaves {@code teste-limite-a} e {@code teste-limite-b}; cada
+ * teste usa um endereço próprio para não disputar o bucket dos demais.
+ */
+@QuarkusTest
+class RateLimitingFilterTest {
+
+    private static final AtomicInteger ENDERECOS = new AtomicInteger();
+
+    private static String endereco() {
+        return "198.51.100." + ENDERECOS.incrementAndGet();
+    }
+
+    private static RequestSpecification cliente(String endereco, String apiKey) {
+        RequestSpecification spec = given().contentType(ContentType.JSON)
+                .header("X-Forwarded-For", endereco)
+                .body(List.of(999_999));
+        return apiKey != null ? spec.header("X-API-Key", apiKey) : spec;
+    }
+
+    @Test
+    void excedenteRecebe429ComRetryAfter() {
+        String endereco = endereco();
+
+        cliente(endereco, null).when().delete("/api/v1/fabricantes/bulk")
+                .then().statusCode(200)
+                .header("X-RateLimit-Limit", "2")
+                .header("X-RateLimit-Remaining", "1");
+        cliente(endereco, null).when().delete("/api/v1/fabricantes/bulk")
+                .then().statusCode(200)
+                .header("X-RateLimit-Remaining", "0");
+        cliente(endereco, null).when().delete("/api/v1/fabricantes/bulk")
+                .then().statusCode(429)
+                .header("X-RateLimit-Limit", "2")
+                .header("X-RateLimit-Remaining", "0")
+                .header("Retry-After", Integer::parseInt, greaterThanOrEqualTo(1))
+                .body(equalTo("Limite de requisições excedido. Aguarde um momento."));
+    }
+
+    @Test
+    void chaveDesconhecidaNaoGanhaBucketNovo() {
+        String endereco = endereco();
+        for (int i = 0; i < 2; i++) {
+            cliente(endereco, UUID.randomUUID().toString()).when().delete("/api/v1/fabricantes/bulk").then().statusCode(200);
+        }
+        cliente(endereco, UUID.randomUUID().toString()).when().delete("/api/v1/fabricantes/bulk").then().statusCode(429);
+    }
+
+    @Test
+    void cadaChaveConhecidaTemSeuProprioBucket() {
+        String endereco = endereco();
+        for (int i = 0; i < 2; i++) cliente(endereco, "teste-limite-a").when().delete("/api/v1/fabricantes/bulk").then().statusCode(200);
+        cliente(endereco, "teste-limite-a").when().delete("/api/v1/fabricantes/bulk").then().statusCode(429);
+
+        cliente(endereco, "teste-limite-b").when().delete("/api/v1/fabricantes/bulk")
+                .then().statusCode(200)
+                .header("X-RateLimit-Remaining", "1");
+        // O endereço não gastou nada: as chaves conhecidas não usam o bucket dele
+        cliente(endereco, null).when().delete("/api/v1/fabricantes/bulk")
+                .then().statusCode(200)
+                .header("X-RateLimit-Remaining", "1");
+    }
+
+    @Test
+    void rotasForaDaApiNaoSaoLimitadas() {
+        given().when().get("/q/metrics").then().header("X-RateLimit-Limit", nullValue());
+    }
+}
@@ -0,0 +1,192 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.restassured.RestAssured.given;
+import static org.acme.Fixtures.criar;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.emptyString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class SearchPaginationTest {
+
+    @Test
+    void cursorPercorreTudoSemRepetir() {
+        long total = given().queryParam("count", "exact").queryParam("size", 1)
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(200)
+                .extract().jsonPath().getLong("TotalFabricantes");
+
+        JsonPath page = given().queryParam("sort", "nome").queryParam("size", 2).queryParam("after", "")
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(200)
+                .body("TotalFabricantes", equalTo(-1))
+                .extract().jsonPath();
+
+        Set<Long> ids = new LinkedHashSet<>();
+        List<String> nomes = new ArrayList<>();
+        while (true) {
+            ids.addAll(page.getList("Fabricantes.id", Long.class));
+            nomes.addAll(page.getList("Fabricantes.nome", String.class));
+            if (!page.getBoolean("HasMore")) {
+                assertEquals("", page.getString("NextPage"));
+                break;
+            }
+            String next = page.getString("NextPage");
+            assertTrue(next.contains("after="), next);
+            page = given().when().get(next).then().statusCode(200).extract().jsonPath();
+        }
+
+        assertEquals(total, ids.size());
+        assertEquals(total, nomes.size());
+        List<String> ordenados = new ArrayList<>(nomes);
+        ordenados.sort(null);
+        assertEquals(ordenados, nomes);
+    }
+
+    @Test
+    void cursorDescendentePorId() {
+        JsonPath first = given().queryParam("direction", "desc").queryParam("size", 2).queryParam("after", "")
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(200).extract().jsonPath();
+        List<Long> primeira = first.getList("Fabricantes.id", Long.class);
+        assertTrue(primeira.get(0) > primeira.get(1));
+
+        List<Long> segunda = given().when().get(first.getString("NextPage"))
+                .then().statusCode(200).extract().jsonPath().getList("Fabricantes.id", Long.class);
+        assertTrue(primeira.get(1) > segunda.get(0));
+    }
+
+    @Test
+    void offsetApontaParaAProximaPagina() {
+        given().queryParam("size", 2)
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(200)
+                .body("HasMore", equalTo(true))
+                .body("NextPage", containsString("page=1"))
+                .body("NextPage", containsString("size=2"));
+    }
+
+    @Test
+    void proximaPaginaMantemOsParametrosDaPesquisa() {
+        String token = "proxlink" + System.nanoTime();
+        List<String> criados = List.of("Alfa", "Bravo", "Charlie");
+        for (String nome : criados) {
+            criar("/api/v1/fabricantes", Map.of("nome", nome + " " + token + " & Cia", "detalhes", "Link da próxima página"));
+        }
+
+        JsonPath first = given().queryParam("q", token + " & cia").queryParam("sort", "nome").queryParam("direction", "desc")
+                .queryParam("fields", "id,nome").queryParam("count", "none").queryParam("size", 2)
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(200)
+                .body("HasMore", equalTo(true))
+                .extract().jsonPath();
+        String next = first.getString("NextPage");
+        assertTrue(next.contains("sort=nome") && next.contains("direction=desc") && next.contains("fields=id") && next.contains("count=none"), next);
+
+        List<String> nomes = new ArrayList<>(first.getList("Fabricantes.nome", String.class));
+        // O link já vem codificado
+        nomes.addAll(given().urlEncodingEnabled(false).when().get(next)
+                .then().statusCode(200)
+                .body("TotalFabricantes", equalTo(-1))
+                .body("Fabricantes[0].detalhes", nullValue())
+                .extract().jsonPath().getList("Fabricantes.nome", String.class));
+        assertEquals(criados.reversed().stream().map(nome -> nome + " " + token + " & Cia").toList(), nomes);
+    }
+
+    @Test
+    void ultimaPaginaNaoTemProxima() {
+        given().queryParam("size", 1000)
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(200)
+                .body("HasMore", equalTo(false))
+                .body("NextPage", emptyString());
+    }
+
+    @Test
+    void cursorInvalidoDevolve400() {
+        given().queryParam("sort", "nome").queryParam("after", "bm9tZQ")
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(400);
+        given().queryParam("sort", "detalhes").queryParam("after", org.acme.search.Keyset.encode("nome", "BOSCH", 1))
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(400);
+        // Também nos modos em memória e nas outras entidades, validado antes do cache
+        given().queryParam("q", "bosch").queryParam("after", "bm9tZQ")
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(400);
+        given().queryParam("after", "bm9tZQ")
+                .when().get("/api/v1/carros/search")
+                .then().statusCode(400);
+        given().queryParam("q", "farol").queryParam("sort", "valor").queryParam("after", "bm9tZQ")
+                .when().get("/api/v1/acessorios/search")
+                .then().statusCode(400);
+    }
+
+    @Test
+    void paginaOuTamanhoInvalidoDevolve400EmTodosOsModos() {
+        for (String q : new String[]{null, "bosch"}) {
+            for (String sort : new String[]{null, "nome"}) {
+                given().queryParam("q", q).queryParam("sort", sort).queryParam("page", -1)
+                        .when().get("/api/v1/fabricantes/search")
+                        .then().statusCode(400);
+                given().queryParam("q", q).queryParam("sort", sort).queryParam("size", 0)
+                        .when().get("/api/v1/fabricantes/search")
+                        .then().statusCode(400);
+            }
+        }
+        given().queryParam("q", "estados").queryParam("page", -1)
+                .when().get("/api/v1/carros/search")
+                .then().statusCode(400);
+        given().queryParam("page", Integer.MAX_VALUE).queryParam("size", 2)
+                .when().get("/api/v1/acessorios/search")
+                .then().statusCode(400);
+    }
+
+    @Test
+    void textoComOrdenacaoPaginaEmMemoria() {
+        // O perfil de teste lê os ids do índice em blocos de 2: os 5 resultados usam 3 consultas
+        String token = "blocoordem" + System.nanoTime();
+        List<String> criados = List.of("Echo", "Alfa", "Delta", "Bravo", "Charlie");
+        for (String nome : criados) {
+            criar("/api/v1/fabricantes", Map.of("nome", nome + " " + token, "detalhes", "Ordenação em memória"));
+        }
+        List<String> ordenados = criados.stream().map(nome -> nome + " " + token).sorted().toList();
+
+        List<String> desc = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            JsonPath result = given().queryParam("q", token).queryParam("sort", "nome").queryParam("direction", "desc")
+                    .queryParam("page", page).queryParam("size", 2)
+                    .when().get("/api/v1/fabricantes/search")
+                    .then().statusCode(200)
+                    .body("TotalFabricantes", equalTo(5))
+                    .body("HasMore", equalTo(page < 2))
+                    .extract().jsonPath();
+            desc.addAll(result.getList("Fabricantes.nome", String.class));
+        }
+        assertEquals(ordenados.reversed(), desc);
+
+        List<String> asc = new ArrayList<>();
+        JsonPath page = given().queryParam("q", token).queryParam("sort", "nome").queryParam("size", 2).queryParam("after", "")
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(200).extract().jsonPath();
+        while (true) {
+            asc.addAll(page.getList("Fabricantes.nome", String.class));
+            if (!page.getBoolean("HasMore")) break;
+            page = given().when().get(page.getString("NextPage")).then().statusCode(200).extract().jsonPath();
+        }
+        assertEquals(ordenados, asc);
+    }
+}
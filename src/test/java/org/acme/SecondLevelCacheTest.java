@@ -0,0 +1,82 @@
+package org.acme;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.acme.Fixtures.criar;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fabricantes e carros lidos de novo, em outra sessão, saem do cache de segundo nível
+ * sem voltar ao banco.
+ */
+@QuarkusTest
+class SecondLevelCacheTest {
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    SessionFactory sessionFactory;
+
+    private void assertSegundaLeituraSemBanco(Class<?> type, long id) {
+        sessionFactory.getCache().evictEntityData(type, id);
+        EntityStatistics stats = sessionFactory.getStatistics().getEntityStatistics(type.getName());
+
+        QuarkusTransaction.requiringNew().run(() -> assertNotNull(em.find(type, id)));
+        long loads = stats.getLoadCount();
+        long hits = stats.getCacheHitCount();
+
+        QuarkusTransaction.requiringNew().run(() -> assertNotNull(em.find(type, id)));
+        assertEquals(loads, stats.getLoadCount(), type.getSimpleName() + " recarregado do banco");
+        assertEquals(hits + 1, stats.getCacheHitCount(), type.getSimpleName() + " sem acerto no cache");
+    }
+
+    @Test
+    void fabricanteRelidoSaiDoCache() {
+        assertSegundaLeituraSemBanco(Fabricante.class, 1L);
+    }
+
+    @Test
+    void carroRelidoSaiDoCache() {
+        assertSegundaLeituraSemBanco(Carro.class, 2L);
+    }
+
+    @Test
+    void estatisticasMostramOsAcertos() {
+        assertSegundaLeituraSemBanco(Fabricante.class, 1L);
+
+        given()
+                .when().get("/api/v1/cache/entidades")
+                .then()
+                .statusCode(200)
+                .body("'org.acme.Fabricante'.hits", greaterThan(0));
+    }
+
+    @Test
+    void exclusaoDeUmCarroSoTiraEleDoCache() {
+        long carro = criar("/api/v1/carros", Map.of("modelo", "Cache Excluido", "paisDeMontagem", "Brasil"));
+        QuarkusTransaction.requiringNew().run(() -> {
+            assertNotNull(em.find(Carro.class, carro));
+            assertNotNull(em.find(Carro.class, 2L));
+        });
+        assertTrue(sessionFactory.getCache().containsEntity(Carro.class, carro));
+
+        given().when().delete("/api/v1/carros/" + carro).then().statusCode(204);
+
+        assertFalse(sessionFactory.getCache().containsEntity(Carro.class, carro));
+        assertTrue(sessionFactory.getCache().containsEntity(Carro.class, 2L), "a exclusão esvaziou a região de carros");
+    }
+}
@@ -0,0 +1,63 @@
+package org.acme;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class SparseFieldsTest {
+
+    @Test
+    void itemTrazSoOsCamposPedidosMaisOId() {
+        Map<String, Object> fabricante = given().queryParam("fields", "nome")
+                .when().get("/api/v1/fabricantes/1")
+                .then().statusCode(200)
+                .extract().jsonPath().getMap("$");
+        assertEquals(Map.of("id", 1, "nome", "BOSCH"), fabricante);
+    }
+
+    @Test
+    void listaEPesquisaUsamAMesmaProjecao() {
+        List<Map<String, Object>> carros = given().queryParam("fields", "modelo,paisDeMontagem")
+                .when().get("/api/v1/carros")
+                .then().statusCode(200)
+                .extract().jsonPath().getList("$");
+        for (Map<String, Object> carro : carros) assertEquals(Set.of("id", "modelo", "paisDeMontagem"), carro.keySet());
+
+        List<Map<String, Object>> acessorios = given().queryParam("fields", "nome,valor").queryParam("size", 3)
+                .when().get("/api/v1/acessorios/search")
+                .then().statusCode(200)
+                .extract().jsonPath().getList("Acessorios");
+        assertEquals(3, acessorios.size());
+        for (Map<String, Object> acessorio : acessorios) assertEquals(Set.of("id", "nome", "valor"), acessorio.keySet());
+    }
+
+    @Test
+    void cursorComProjecaoOrdenaPorCampoNaoPedido() {
+        List<Map<String, Object>> page = given().queryParam("fields", "nome").queryParam("sort", "detalhes")
+                .queryParam("after", "").queryParam("size", 2)
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(200)
+                .body("NextPage", containsString("after="))
+                .extract().jsonPath().getList("Fabricantes");
+        assertEquals(2, page.size());
+    }
+
+    @Test
+    void campoDesconhecidoDevolve400() {
+        given().queryParam("fields", "nome,senha")
+                .when().get("/api/v1/fabricantes/1")
+                .then().statusCode(400)
+                .body(containsString("senha"));
+        given().queryParam("fields", "acessorios")
+                .when().get("/api/v1/carros/search")
+                .then().statusCode(400);
+    }
+}
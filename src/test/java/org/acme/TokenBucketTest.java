@@ -0,0 +1,64 @@
+package org.acme;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenBucketTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void rajadaAteACapacidade() {
+        TokenBucket bucket = new TokenBucket(3, 10, 0);
+        assertEquals(2, bucket.tryAcquire(0));
+        assertEquals(1, bucket.tryAcquire(0));
+        assertEquals(0, bucket.tryAcquire(0));
+        assertEquals(-100 * MS, bucket.tryAcquire(0));
+    }
+
+    @Test
+    void recusaInformaQuantoFaltaParaOProximoToken() {
+        TokenBucket bucket = new TokenBucket(1, 10, 0);
+        bucket.tryAcquire(0);
+        assertEquals(-60 * MS, bucket.tryAcquire(40 * MS));
+        assertEquals(0, bucket.tryAcquire(100 * MS));
+    }
+
+    @Test
+    void reabasteceNoRitmoConfigurado() {
+        TokenBucket bucket = new TokenBucket(3, 10, 0);
+        for (int i = 0; i < 3; i++) bucket.tryAcquire(0);
+
+        assertEquals(0, bucket.tryAcquire(100 * MS));
+        assertEquals(1, bucket.tryAcquire(300 * MS));
+    }
+
+    @Test
+    void ociosidadeNaoAcumulaAlemDaCapacidade() {
+        TokenBucket bucket = new TokenBucket(3, 10, 0);
+        assertEquals(2, bucket.tryAcquire(60_000 * MS));
+        assertEquals(1, bucket.tryAcquire(60_000 * MS));
+        assertEquals(0, bucket.tryAcquire(60_000 * MS));
+        assertEquals(-100 * MS, bucket.tryAcquire(60_000 * MS));
+    }
+
+    @Test
+    void recusasNaoConsomemTokens() {
+        TokenBucket bucket = new TokenBucket(1, 1, 0);
+        bucket.tryAcquire(0);
+        for (int i = 0; i < 100; i++) bucket.tryAcquire(0);
+        assertEquals(0, bucket.tryAcquire(1_000 * MS));
+    }
+
+    @Test
+    void limiteInvalidoERecusadoNaCriacao() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(3, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(3, -1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(3, Double.NaN, 0));
+        // Um token a cada ~3 anos com capacidade máxima: a rajada estouraria o long
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(Integer.MAX_VALUE, 1e-8, 0));
+    }
+}
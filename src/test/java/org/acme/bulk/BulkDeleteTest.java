@@ -0,0 +1,116 @@
+package org.acme.bulk;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+import jakarta.inject.Inject;
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.event.EntityChanged;
+import org.acme.event.EntityChangedRecorder;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.restassured.RestAssured.given;
+import static org.acme.Fixtures.criar;
+import static org.acme.bulk.BulkInsertTest.acessorio;
+import static org.acme.bulk.BulkInsertTest.bulk;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cada teste exclui só o que criou: outros testes contam com os dados do import.sql.
+ */
+@QuarkusTest
+class BulkDeleteTest {
+
+    @Inject
+    EntityChangedRecorder recorder;
+
+    private static List<Long> inserir(List<Map<String, Object>> acessorios) {
+        return bulk().body(acessorios)
+                .when().post("/api/v1/acessorios/bulk")
+                .then().statusCode(200)
+                .extract().jsonPath().getList("id", Long.class);
+    }
+
+    /**
+     * Um evento por id, sem repetição.
+     */
+    private static Set<Long> ids(List<EntityChanged> changes) {
+        Set<Long> ids = Set.copyOf(changes.stream().map(EntityChanged::id).toList());
+        assertEquals(changes.size(), ids.size());
+        return ids;
+    }
+
+    @Test
+    void acessoriosDoCarroSaoExcluidosComUmEventoCada() {
+        long carro = criar("/api/v1/carros", Map.of("modelo", "Exclusão Lote", "paisDeMontagem", "Brasil"));
+        long fabricante = criar("/api/v1/fabricantes", Map.of("nome", "Exclusão Lote", "detalhes", "Vinculado aos acessórios"));
+        List<Long> criados = inserir(List.of(
+                acessorio("Exclusão Lote 1", carro, List.of(fabricante)),
+                acessorio("Exclusão Lote 2", carro, List.of(fabricante, 1L)),
+                acessorio("Exclusão Lote 3", carro, List.of())));
+        int mark = recorder.mark();
+
+        JsonPath result = bulk().queryParam("carroId", carro).body(List.of())
+                .when().delete("/api/v1/acessorios/bulk")
+                .then().statusCode(200)
+                .extract().jsonPath();
+
+        assertEquals(Set.copyOf(criados), Set.copyOf(result.getList("deleted", Long.class)));
+        assertTrue(result.getList("notFound").isEmpty());
+        assertEquals(Set.copyOf(criados), ids(recorder.since(mark, Acessorio.class, EntityChanged.Kind.DELETED)));
+        for (Long id : criados) given().when().get("/api/v1/acessorios/" + id).then().statusCode(404);
+
+        // Os contadores de uso foram descontados: carro e fabricante ficam livres
+        given().when().delete("/api/v1/carros/" + carro).then().statusCode(204);
+        given().when().delete("/api/v1/fabricantes/" + fabricante).then().statusCode(204);
+    }
+
+    @Test
+    void porIdsSeparaOsInexistentes() {
+        List<Long> criados = inserir(List.of(
+                acessorio("Exclusão Ids 1", 5L, List.of()),
+                acessorio("Exclusão Ids 2", null, List.of(2L))));
+        int mark = recorder.mark();
+
+        JsonPath result = bulk().body(List.of(criados.get(0), 999_999L, criados.get(1)))
+                .when().delete("/api/v1/acessorios/bulk")
+                .then().statusCode(200)
+                .extract().jsonPath();
+
+        assertEquals(Set.copyOf(criados), Set.copyOf(result.getList("deleted", Long.class)));
+        assertEquals(List.of(999_999L), result.getList("notFound", Long.class));
+        assertEquals(Set.copyOf(criados), ids(recorder.since(mark, Acessorio.class, EntityChanged.Kind.DELETED)));
+    }
+
+    @Test
+    void carroComAcessoriosFicaBloqueado() {
+        long carro = criar("/api/v1/carros", Map.of("modelo", "Exclusão Bloqueada", "paisDeMontagem", "Brasil"));
+        long livre = criar("/api/v1/carros", Map.of("modelo", "Exclusão Livre", "paisDeMontagem", "Brasil"));
+        List<Long> acessorios = inserir(List.of(acessorio("Exclusão Bloqueada", carro, List.of())));
+        int mark = recorder.mark();
+
+        JsonPath result = bulk().body(List.of(carro, livre))
+                .when().delete("/api/v1/carros/bulk")
+                .then().statusCode(200)
+                .extract().jsonPath();
+
+        assertEquals(List.of(livre), result.getList("deleted", Long.class));
+        assertEquals(Map.of(String.valueOf(carro), 1), result.getMap("blocked"));
+        assertEquals(Set.of(livre), ids(recorder.since(mark, Carro.class, EntityChanged.Kind.DELETED)));
+
+        bulk().body(acessorios).when().delete("/api/v1/acessorios/bulk").then().statusCode(200);
+        given().when().delete("/api/v1/carros/" + carro).then().statusCode(204);
+    }
+
+    @Test
+    void semIdsNemCarroDevolve400() {
+        bulk().body(List.of())
+                .when().delete("/api/v1/acessorios/bulk")
+                .then().statusCode(400);
+    }
+}
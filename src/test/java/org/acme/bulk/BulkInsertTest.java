@@ -0,0 +1,118 @@
+package org.acme.bulk;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.specification.RequestSpecification;
+import jakarta.inject.Inject;
+import org.acme.Acessorio;
+import org.acme.Fabricante;
+import org.acme.event.EntityChanged;
+import org.acme.event.EntityChangedRecorder;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@QuarkusTest
+class BulkInsertTest {
+
+    @Inject
+    EntityChangedRecorder recorder;
+
+    static RequestSpecification bulk() {
+        return given().contentType(ContentType.JSON)
+                .header("X-Idempotency-Key", UUID.randomUUID().toString());
+    }
+
+    @Test
+    void fabricantesCriadosPublicamUmEventoCadaEInvalidosNao() {
+        long antes = total("/api/v1/fabricantes/search");
+        int mark = recorder.mark();
+
+        List<Map<String, Object>> results = bulk()
+                .body(List.of(
+                        Map.of("nome", "Pirelli Lote", "detalhes", "Pneus"),
+                        Map.of("nome", "X"),
+                        Map.of("nome", "Bosch Lote", "detalhes", "Freios")))
+                .when().post("/api/v1/fabricantes/bulk")
+                .then().statusCode(200)
+                .body("status", equalTo(List.of(201, 400, 201)))
+                .extract().jsonPath().getList("$");
+
+        List<EntityChanged> created = recorder.since(mark, Fabricante.class, EntityChanged.Kind.CREATED);
+        // Os eventos pós-commit não chegam necessariamente na ordem em que foram disparados
+        long pirelli = ((Number) results.get(0).get("id")).longValue();
+        long bosch = ((Number) results.get(2).get("id")).longValue();
+        assertEquals(Set.of(pirelli, bosch), created.stream().map(EntityChanged::id).collect(Collectors.toSet()));
+        assertEquals(2, created.size());
+        assertNull(results.get(1).get("id"));
+
+        // Os observadores já viram as linhas: índice de texto, contadores e documentos
+        assertEquals(antes + 2, total("/api/v1/fabricantes/search"));
+        given().queryParam("q", "lote")
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(200)
+                .body("Fabricantes.nome", hasItems("Pirelli Lote", "Bosch Lote"));
+        given().when().get("/api/v1/fabricantes/" + pirelli)
+                .then().statusCode(200)
+                .body("nome", equalTo("Pirelli Lote"));
+    }
+
+    @Test
+    void acessoriosComReferenciaInexistenteSaoRecusados() {
+        int mark = recorder.mark();
+
+        bulk().body(List.of(
+                        acessorio("Tapete Lote", 1L, List.of(1L, 2L)),
+                        acessorio("Capa Lote", 999_999L, List.of()),
+                        acessorio("Buzina Lote", null, List.of(999_999L))))
+                .when().post("/api/v1/acessorios/bulk")
+                .then().statusCode(200)
+                .body("status", equalTo(List.of(201, 400, 400)))
+                .body("errors[1]", equalTo(List.of("Carro não existe")))
+                .body("errors[2]", equalTo(List.of("Fabricante não existe")));
+
+        List<EntityChanged> created = recorder.since(mark, Acessorio.class, EntityChanged.Kind.CREATED);
+        assertEquals(1, created.size());
+        given().when().get("/api/v1/acessorios/" + created.get(0).id())
+                .then().statusCode(200)
+                .body("nome", equalTo("Tapete Lote"));
+    }
+
+    @Test
+    void listaVaziaDevolve400() {
+        bulk().body(List.of())
+                .when().post("/api/v1/carros/bulk")
+                .then().statusCode(400);
+    }
+
+    static Map<String, Object> acessorio(String nome, Long carroId, List<Long> fabricanteIds) {
+        Map<String, Object> body = new HashMap<>(Map.of(
+                "nome", nome,
+                "descricao", "Criado pelos testes",
+                "anoAquisicao", 2024,
+                "valor", 100.0,
+                "tempoInstalacaoMinutos", 10,
+                "fabricantes", fabricanteIds.stream().map(id -> Map.of("id", id)).toList()));
+        if (carroId != null) body.put("carro", Map.of("id", carroId));
+        return body;
+    }
+
+    static long total(String path) {
+        return given().queryParam("count", "exact").queryParam("size", 1)
+                .when().get(path)
+                .then().statusCode(200)
+                .extract().jsonPath().getLong(path.contains("fabricantes") ? "TotalFabricantes"
+                        : path.contains("carros") ? "TotalCarros" : "TotalAcessorios");
+    }
+}
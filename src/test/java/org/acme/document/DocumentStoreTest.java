@@ -0,0 +1,154 @@
+package org.acme.document;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.core.EntityTag;
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.Fabricante;
+import org.acme.etag.EntityTags;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.acme.Fixtures.criar;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@QuarkusTest
+class DocumentStoreTest {
+
+    @Inject
+    DocumentStore store;
+
+    @Inject
+    EntityTags tags;
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    ObjectMapper mapper;
+
+    private static Map<String, Object> acessorio(String nome, long carroId, List<Long> fabricanteIds) {
+        return Map.of(
+                "nome", nome,
+                "descricao", "Criado pelos testes do modelo de leitura",
+                "anoAquisicao", 2024,
+                "valor", 100.0,
+                "tempoInstalacaoMinutos", 10,
+                "carro", Map.of("id", carroId),
+                "fabricantes", fabricanteIds.stream().map(id -> Map.of("id", id)).toList());
+    }
+
+    /**
+     * O JSON de cada documento é o mesmo da resposta sem o modelo, com as associações só
+     * com o id.
+     */
+    private void assertShapeMatches(Class<?> type, long id) {
+        QuarkusTransaction.requiringNew().run(() -> {
+            try {
+                assertEquals(mapper.writeValueAsString(em.find(type, id)),
+                        new String(store.get(type, id).bytes(), StandardCharsets.UTF_8), type.getSimpleName() + " " + id);
+            } catch (JsonProcessingException e) {
+                throw new AssertionError(e);
+            }
+        });
+    }
+
+    /**
+     * O ETag guardado em cada documento, calculado do grafo carregado, é o mesmo das projeções.
+     */
+    private void assertTagsMatch() {
+        QuarkusTransaction.requiringNew().run(() -> {
+            for (Long id : em.createQuery("select a.id from Acessorio a", Long.class).getResultList()) {
+                assertEquals(tags.acessorio(id), store.get(Acessorio.class, id).tag(), "acessório " + id);
+            }
+            for (Long id : em.createQuery("select c.id from Carro c", Long.class).getResultList()) {
+                assertEquals(tags.carro(id), store.get(Carro.class, id).tag(), "carro " + id);
+            }
+            for (Long id : em.createQuery("select f.id from Fabricante f", Long.class).getResultList()) {
+                assertEquals(tags.fabricante(id), store.get(Fabricante.class, id).tag(), "fabricante " + id);
+            }
+        });
+    }
+
+    @Test
+    void loteEDependentesSaoRenderizadosDeNovo() {
+        long fabricante = criar("/api/v1/fabricantes", Map.of("nome", "Documento Original", "detalhes", "Modelo de leitura"));
+
+        // Uma transação com vários eventos vira um só lote
+        List<Long> ids = given().contentType(ContentType.JSON)
+                .header("X-Idempotency-Key", UUID.randomUUID().toString())
+                .body(List.of(
+                        acessorio("Documento Lote 1", 3L, List.of(fabricante, 4L)),
+                        acessorio("Documento Lote 2", 3L, List.of(fabricante)),
+                        acessorio("Documento Lote 3", 4L, List.of(4L))))
+                .when().post("/api/v1/acessorios/bulk")
+                .then().statusCode(200)
+                .body("status", equalTo(List.of(201, 201, 201)))
+                .extract().jsonPath().getList("id", Long.class);
+        for (Long id : ids) {
+            assertNotNull(store.get(Acessorio.class, id), "acessório " + id);
+            assertShapeMatches(Acessorio.class, id);
+        }
+        assertTagsMatch();
+
+        // O ETag dos acessórios inclui a versão do fabricante: eles são renderizados de novo
+        String antes = store.get(Acessorio.class, ids.get(0)).tag().getValue();
+        given().contentType(ContentType.JSON)
+                .body(Map.of("nome", "Documento Renomeado", "detalhes", "Modelo de leitura"))
+                .when().put("/api/v1/fabricantes/" + fabricante)
+                .then().statusCode(200);
+        assertNotEquals(antes, store.get(Acessorio.class, ids.get(0)).tag().getValue());
+        assertTagsMatch();
+
+        given().when().delete("/api/v1/acessorios/" + ids.get(2)).then().statusCode(204);
+        assertNull(store.get(Acessorio.class, ids.get(2)));
+        assertTagsMatch();
+    }
+
+    @Test
+    void respostaPadraoNaoTrazAssociacoes() {
+        given().when().get("/api/v1/acessorios/1")
+                .then().statusCode(200)
+                .body("carro.id", equalTo(2))
+                .body("carro.modelo", nullValue())
+                .body("fabricantes", nullValue());
+        given().queryParam("size", 5)
+                .when().get("/api/v1/acessorios/search")
+                .then().statusCode(200)
+                .body("Acessorios.fabricantes", everyItem(nullValue()))
+                .body("Acessorios.carro.modelo", everyItem(nullValue()));
+        assertShapeMatches(Acessorio.class, 1);
+        assertShapeMatches(Carro.class, 1);
+        assertShapeMatches(Fabricante.class, 1);
+    }
+
+    @Test
+    void documentoMaisVelhoNaoSubstituiONovo() {
+        Document atual = store.get(Fabricante.class, 1);
+        store.keep(Fabricante.class, new Document(1, "{\"id\":1,\"nome\":\"Antigo\"}", new EntityTag("antigo"), null, atual.versao - 1, Long.MAX_VALUE));
+        store.keep(Fabricante.class, new Document(1, "{\"id\":1,\"nome\":\"Antigo\"}", new EntityTag("antigo"), null, atual.versao, 0));
+        assertSame(atual, store.get(Fabricante.class, 1));
+
+        Document novo = new Document(1, new String(atual.bytes(), StandardCharsets.UTF_8), atual.tag(), null, atual.versao, atual.read + 1);
+        store.keep(Fabricante.class, novo);
+        assertSame(novo, store.get(Fabricante.class, 1));
+    }
+}
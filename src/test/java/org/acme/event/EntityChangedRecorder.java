@@ -0,0 +1,34 @@
+package org.acme.event;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Guarda os {@link EntityChanged} confirmados para os testes conferirem o que as escritas
+ * publicaram. Use {@link #mark()} antes da requisição e {@link #since(int)} depois.
+ */
+@ApplicationScoped
+public class EntityChangedRecorder {
+
+    private final List<EntityChanged> changes = new CopyOnWriteArrayList<>();
+
+    void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) EntityChanged change) {
+        changes.add(change);
+    }
+
+    public int mark() {
+        return changes.size();
+    }
+
+    public List<EntityChanged> since(int mark) {
+        return List.copyOf(changes.subList(mark, changes.size()));
+    }
+
+    public List<EntityChanged> since(int mark, Class<?> type, EntityChanged.Kind kind) {
+        return since(mark).stream().filter(c -> c.is(type) && c.kind() == kind).toList();
+    }
+}
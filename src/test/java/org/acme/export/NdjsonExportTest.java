@@ -0,0 +1,77 @@
+package org.acme.export;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+import org.acme.Acessorio;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class NdjsonExportTest {
+
+    @ConfigProperty(name = "api.export.chunk-size")
+    int chunkSize;
+
+    @Test
+    void exportacaoDeVariosBlocosTrazTodasAsLinhas() {
+        String body = given().accept(NdjsonExporter.APPLICATION_NDJSON)
+                .when().get("/api/v1/acessorios/export")
+                .then().statusCode(200)
+                .extract().asString();
+
+        long linhas = body.lines().count();
+        assertTrue(linhas > chunkSize, "uma exportação de um bloco só não testa a troca de bloco");
+        assertEquals(Acessorio.count(), linhas);
+    }
+
+    @Test
+    void acessoriosSaemComCarroEFabricantes() {
+        String body = given().accept(NdjsonExporter.APPLICATION_NDJSON)
+                .when().get("/api/v1/acessorios/export")
+                .then().statusCode(200)
+                .extract().asString();
+
+        String[] lines = body.split("\n");
+        assertTrue(lines.length >= 5);
+        long anterior = 0;
+        for (String line : lines) {
+            JsonPath acessorio = JsonPath.from(line);
+            long id = acessorio.getLong("id");
+            assertTrue(id > anterior, "fora de ordem: " + id);
+            anterior = id;
+            assertNotNull(acessorio.getList("fabricantes"), "fabricantes nulos no acessório " + id);
+        }
+
+        JsonPath primeiro = JsonPath.from(lines[0]);
+        assertEquals(1, primeiro.getLong("id"));
+        assertEquals(List.of(2, 6), primeiro.getList("fabricantes.id", Integer.class).stream().sorted().toList());
+        assertEquals("Golf R", primeiro.getString("carro.modelo"));
+    }
+
+    @Test
+    void carrosSaemLinhaALinhaEmOrdem() {
+        String body = given().accept(NdjsonExporter.APPLICATION_NDJSON)
+                .when().get("/api/v1/carros/export")
+                .then().statusCode(200)
+                .extract().asString();
+
+        String[] lines = body.split("\n");
+        assertTrue(lines.length >= 5);
+        long anterior = 0;
+        for (String line : lines) {
+            long id = JsonPath.from(line).getLong("id");
+            assertTrue(id > anterior, "fora de ordem: " + id);
+            anterior = id;
+        }
+        JsonPath primeiro = JsonPath.from(lines[0]);
+        assertEquals("Mustang GT", primeiro.getString("modelo"));
+        assertEquals(1, primeiro.getLong("fichaTecnica.id"));
+    }
+}
@@ -0,0 +1,114 @@
+package org.acme.idempotency;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.response.Response;
+import jakarta.inject.Inject;
+import org.acme.Fabricante;
+import org.acme.event.EntityChanged;
+import org.acme.event.EntityChangedRecorder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class IdempotencyFilterTest {
+
+    @Inject
+    EntityChangedRecorder recorder;
+
+    private static Response criar(String key, String nome) {
+        return given().contentType(ContentType.JSON)
+                .header("X-Idempotency-Key", key)
+                .body(Map.of("nome", nome, "detalhes", "Criado pelos testes de idempotência"))
+                .when().post("/api/v1/fabricantes");
+    }
+
+    @Test
+    void repeticaoDevolveARespostaGuardada() {
+        String key = UUID.randomUUID().toString();
+        int mark = recorder.mark();
+
+        Response primeira = criar(key, "Idempotente");
+        primeira.then().statusCode(201).header("X-Idempotent-Replay", nullValue());
+
+        Response repetida = criar(key, "Idempotente");
+        repetida.then().statusCode(201).header("X-Idempotent-Replay", "true");
+
+        assertEquals(primeira.jsonPath().getLong("id"), repetida.jsonPath().getLong("id"));
+        assertEquals(primeira.getHeader("Location"), repetida.getHeader("Location"));
+        assertEquals(1, recorder.since(mark, Fabricante.class, EntityChanged.Kind.CREATED).size());
+    }
+
+    @Test
+    void duplicatasConcorrentesEsperamAPrimeira() throws Exception {
+        String key = UUID.randomUUID().toString();
+        int mark = recorder.mark();
+        int clients = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Response>> responses = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                responses.add(pool.submit(() -> {
+                    start.await();
+                    return criar(key, "Concorrente");
+                }));
+            }
+            start.countDown();
+
+            Long id = null;
+            for (Future<Response> future : responses) {
+                Response response = future.get();
+                assertEquals(201, response.statusCode());
+                if (id == null) id = response.jsonPath().getLong("id");
+                assertEquals(id, response.jsonPath().getLong("id"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, recorder.since(mark, Fabricante.class, EntityChanged.Kind.CREATED).size());
+    }
+
+    @Test
+    void errosDeValidacaoTambemSaoRepetidos() {
+        String key = UUID.randomUUID().toString();
+        criar(key, "X").then().statusCode(400).header("X-Idempotent-Replay", nullValue());
+        criar(key, "Agora válido").then().statusCode(400).header("X-Idempotent-Replay", "true");
+    }
+
+    @Test
+    void semChaveDevolve400() {
+        given().contentType(ContentType.JSON)
+                .body(Map.of("nome", "Sem chave"))
+                .when().post("/api/v1/fabricantes")
+                .then().statusCode(400);
+    }
+
+    @Test
+    void aMesmaChaveEmOutraRotaEOutraOperacao() {
+        String key = UUID.randomUUID().toString();
+        long fabricante = criar(key, "Mesma chave").then().statusCode(201).extract().jsonPath().getLong("id");
+
+        long carro = given().contentType(ContentType.JSON)
+                .header("X-Idempotency-Key", key)
+                .body(Map.of("modelo", "Mesma chave", "paisDeMontagem", "Brasil"))
+                .when().post("/api/v1/carros")
+                .then().statusCode(201).header("X-Idempotent-Replay", nullValue())
+                .extract().jsonPath().getLong("id");
+
+        given().when().get("/api/v1/fabricantes/" + fabricante).then().statusCode(200);
+        given().when().get("/api/v1/carros/" + carro).then().statusCode(200);
+    }
+}
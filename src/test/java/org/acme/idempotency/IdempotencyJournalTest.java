@@ -0,0 +1,221 @@
+package org.acme.idempotency;
+
+import org.acme.idempotency.IdempotencyFilter.IdempotencyRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyJournalTest {
+
+    private static final Duration TTL = Duration.ofHours(1);
+    private static final int FIRST_RECORD = 8;
+
+    @TempDir
+    Path dir;
+
+    private final List<IdempotencyJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() {
+        opened.forEach(IdempotencyJournal::close);
+    }
+
+    private Path file() {
+        return dir.resolve("idempotency.journal");
+    }
+
+    private IdempotencyJournal open(long initialSize, long maxSize) {
+        IdempotencyJournal journal = new IdempotencyJournal();
+        journal.enabled = true;
+        journal.path = file();
+        journal.initialSize = initialSize;
+        journal.maxSize = maxSize;
+        journal.fsyncInterval = Duration.ofHours(1);
+        journal.compactionInterval = Duration.ofHours(1);
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+
+    private IdempotencyJournal reopen(IdempotencyJournal journal) {
+        journal.close();
+        return open(journal.initialSize, journal.maxSize);
+    }
+
+    private static IdempotencyRecord record(String body) {
+        return new IdempotencyRecord(201, body.getBytes(StandardCharsets.UTF_8), "application/json", "/api/v1/fabricantes/1");
+    }
+
+    private static String body(IdempotencyRecord record) {
+        return new String(record.body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Posição do n-ésimo registro (a partir de 0), seguindo os tamanhos gravados.
+     */
+    private ByteBuffer contents() throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(file())).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    private int offsetOf(ByteBuffer contents, int n) {
+        int position = FIRST_RECORD;
+        for (int i = 0; i < n; i++) position += 8 + contents.getInt(position);
+        return position;
+    }
+
+    @Test
+    void registrosSobrevivemAoReinicio() {
+        IdempotencyJournal journal = open(4096, 65536);
+        journal.append("POST:/a:1", record("{\"id\":1}"), TTL);
+        journal.append("POST:/a:2", record("{\"id\":2}"), TTL);
+
+        journal = reopen(journal);
+
+        IdempotencyRecord found = journal.find("POST:/a:1");
+        assertNotNull(found);
+        assertEquals(201, found.status);
+        assertEquals("{\"id\":1}", body(found));
+        assertEquals("application/json", found.contentType);
+        assertEquals("/api/v1/fabricantes/1", found.location);
+        assertEquals("{\"id\":2}", body(journal.find("POST:/a:2")));
+        assertNull(journal.find("POST:/a:3"));
+    }
+
+    @Test
+    void prazoGravadoNaoRecomecaNoReinicio() throws InterruptedException {
+        IdempotencyJournal journal = open(4096, 65536);
+        long before = System.currentTimeMillis();
+        journal.append("POST:/a:1", record("{\"id\":1}"), TTL);
+        long after = System.currentTimeMillis();
+        long expiresAt = journal.find("POST:/a:1").expiresAt;
+        assertTrue(expiresAt >= before + TTL.toMillis() && expiresAt <= after + TTL.toMillis());
+
+        Thread.sleep(20);
+        journal = reopen(journal);
+
+        IdempotencyRecord found = journal.find("POST:/a:1");
+        assertEquals(expiresAt, found.expiresAt);
+        long now = System.currentTimeMillis();
+        assertEquals(Duration.ofMillis(expiresAt - now), found.remaining(now));
+        assertTrue(found.remaining(now).compareTo(TTL) < 0);
+        assertEquals(Duration.ZERO, found.remaining(expiresAt + 1));
+    }
+
+    @Test
+    void registroCortadoNoFimEDescartadoESobrescrito() throws IOException {
+        IdempotencyJournal journal = open(4096, 65536);
+        journal.append("a", record("primeiro"), TTL);
+        journal.append("b", record("segundo registro, que será cortado"), TTL);
+        journal.close();
+
+        // O tamanho chegou ao disco, mas o fim do corpo não
+        ByteBuffer contents = contents();
+        int b = offsetOf(contents, 1);
+        int length = contents.getInt(b);
+        for (int i = b + 8 + length / 2; i < b + 8 + length; i++) contents.put(i, (byte) 0);
+        Files.write(file(), contents.array());
+
+        journal = open(4096, 65536);
+        assertEquals("primeiro", body(journal.find("a")));
+        assertNull(journal.find("b"));
+
+        journal.append("c", record("terceiro"), TTL);
+        journal = reopen(journal);
+        assertEquals("primeiro", body(journal.find("a")));
+        assertEquals("terceiro", body(journal.find("c")));
+        assertNull(journal.find("b"));
+    }
+
+    @Test
+    void crcInvalidoEncerraALeitura() throws IOException {
+        IdempotencyJournal journal = open(4096, 65536);
+        journal.append("a", record("primeiro"), TTL);
+        journal.append("b", record("segundo"), TTL);
+        journal.append("c", record("terceiro"), TTL);
+        journal.close();
+
+        ByteBuffer contents = contents();
+        int b = offsetOf(contents, 1);
+        int corrupted = b + 8 + contents.getInt(b) - 1;
+        contents.put(corrupted, (byte) (contents.get(corrupted) ^ 0x5a));
+        Files.write(file(), contents.array());
+
+        journal = open(4096, 65536);
+        assertEquals("primeiro", body(journal.find("a")));
+        assertNull(journal.find("b"));
+        assertNull(journal.find("c"));
+    }
+
+    @Test
+    void compactacaoDescartaExpiradosESubstituidos() throws IOException {
+        IdempotencyJournal journal = open(4096, 65536);
+        journal.append("expirada", record("resposta-expirada"), Duration.ofSeconds(-1));
+        journal.append("x", record("resposta-antiga"), TTL);
+        journal.append("x", record("resposta-nova"), TTL);
+        journal.append("y", record("resposta-y"), TTL);
+        assertNull(journal.find("expirada"));
+
+        journal.compact();
+
+        assertEquals("resposta-nova", body(journal.find("x")));
+        assertEquals("resposta-y", body(journal.find("y")));
+        String raw = new String(contents().array(), StandardCharsets.ISO_8859_1);
+        assertFalse(raw.contains("resposta-expirada"));
+        assertFalse(raw.contains("resposta-antiga"));
+
+        journal.append("z", record("resposta-z"), TTL);
+        journal = reopen(journal);
+        assertEquals("resposta-nova", body(journal.find("x")));
+        assertEquals("resposta-y", body(journal.find("y")));
+        assertEquals("resposta-z", body(journal.find("z")));
+        assertNull(journal.find("expirada"));
+    }
+
+    @Test
+    void cresceNaThreadDoJournalSemPassarDoLimite() throws Exception {
+        long max = 16384;
+        IdempotencyJournal journal = open(4096, max);
+        String payload = "x".repeat(1000);
+
+        // Quem grava não espera: um registro que não cabe ainda é tentado de novo até o
+        // arquivo crescer ou chegar ao limite
+        int kept = 0;
+        for (int i = 0; i < 40; i++) {
+            String key = "k" + i;
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (journal.find(key) == null && Files.size(file()) < max && System.nanoTime() < deadline) {
+                journal.append(key, record(payload), TTL);
+                if (journal.find(key) == null) Thread.sleep(5);
+            }
+            if (journal.find(key) != null) kept++;
+        }
+
+        assertEquals(max, Files.size(file()));
+        assertTrue(kept > 4 && kept < 16, "registros gravados: " + kept);
+        assertNotNull(journal.find("k0"));
+
+        // Maior que o limite: fica só em memória, sem exceção
+        journal.append("grande", record("y".repeat((int) max)), TTL);
+        assertNull(journal.find("grande"));
+
+        journal = reopen(journal);
+        assertArrayEquals(payload.getBytes(StandardCharsets.UTF_8), journal.find("k0").body);
+    }
+}
@@ -0,0 +1,53 @@
+package org.acme.metrics;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * O scrape do Prometheus traz as séries que os painéis usam: latência por rota com os
+ * buckets de {@code api.metrics.slo}, fault tolerance, caches e Hibernate.
+ */
+@QuarkusTest
+class MetricsTest {
+
+    private static List<String> scrape() {
+        return given()
+                .when().get("/q/metrics")
+                .then().statusCode(200)
+                .extract().asString().lines().toList();
+    }
+
+    private static void assertSerie(List<String> lines, String name, String... labels) {
+        boolean found = lines.stream().anyMatch(line -> line.startsWith(name + "{")
+                && List.of(labels).stream().allMatch(line::contains));
+        assertTrue(found, "sem a série " + name + " " + List.of(labels));
+    }
+
+    @Test
+    void scrapeTrazAsSeriesDosPaineis() {
+        given().when().get("/api/v1/carros").then().statusCode(200);
+        given().when().get("/api/v1/carros/1").then().statusCode(200);
+        given().when().get("/api/v1/carros/search").then().statusCode(200);
+
+        List<String> lines = scrape();
+
+        assertSerie(lines, "http_server_requests_seconds_bucket", "uri=\"/api/v1/carros\"", "le=\"0.025\"");
+        assertSerie(lines, "http_server_requests_seconds_bucket", "uri=\"/api/v1/carros/{id}\"", "le=\"1.0\"");
+
+        assertSerie(lines, "ft_invocations_total", "method=\"org.acme.CarroResource.getAll\"");
+        assertSerie(lines, "ft_invocations_total", "method=\"org.acme.CarroResource.getById\"");
+        assertSerie(lines, "ft_circuitbreaker_calls_total", "method=\"org.acme.CarroResource.getAll\"");
+
+        assertSerie(lines, "cache_gets_total", "cache=\"rate-limit-buckets\"");
+        assertSerie(lines, "cache_gets_total", "cache=\"idempotency\"");
+        assertSerie(lines, "cache_gets_total", "cache=\"search-carros\"");
+
+        assertSerie(lines, "hibernate_sessions_open_total");
+        assertSerie(lines, "hibernate_query_executions_total");
+    }
+}
@@ -0,0 +1,122 @@
+package org.acme.search;
+
+import org.acme.Acessorio;
+import org.acme.Carro;
+import org.acme.event.EntityChanged;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AcessorioColumnsTest {
+
+    private final AcessorioColumns columns = columns();
+
+    private static AcessorioColumns columns() {
+        AcessorioColumns columns = new AcessorioColumns();
+        columns.enabled = true;
+        return columns;
+    }
+
+    private void put(long id, double valor, int ano, int tempo, Long carroId) {
+        Acessorio a = new Acessorio();
+        a.id = id;
+        a.valor = valor;
+        a.anoAquisicao = ano;
+        a.tempoInstalacaoMinutos = tempo;
+        if (carroId != null) {
+            a.carro = new Carro();
+            a.carro.id = carroId;
+        }
+        columns.onChange(EntityChanged.created(Acessorio.class, id, a));
+    }
+
+    private static AcessorioFilter valor(Double min, Double max) {
+        AcessorioFilter filter = new AcessorioFilter();
+        filter.valorMin = min;
+        filter.valorMax = max;
+        return filter;
+    }
+
+    @Test
+    void bordasDaFaixaDeValorSaoConferidasNoArray() {
+        // Todos caem nos baldes 10 e 12; só os extremos de cada balde decidem
+        put(1, 10.00, 2020, 10, null);
+        put(2, 10.49, 2020, 10, null);
+        put(3, 10.50, 2020, 10, null);
+        put(4, 11.00, 2020, 10, null);
+        put(5, 12.00, 2020, 10, null);
+        put(6, 12.25, 2020, 10, null);
+        put(7, 12.26, 2020, 10, null);
+
+        assertArrayEquals(new long[]{3, 4, 5, 6}, columns.filter(valor(10.50, 12.25)));
+        assertArrayEquals(new long[]{1, 2, 3, 4, 5, 6, 7}, columns.filter(valor(10.0, 12.26)));
+        assertArrayEquals(new long[]{6, 7}, columns.filter(valor(12.25, null)));
+        assertArrayEquals(new long[]{1, 2}, columns.filter(valor(null, 10.49)));
+        assertEquals(4, columns.count(valor(10.50, 12.25)));
+    }
+
+    @Test
+    void faixaDentroDeUmSoBalde() {
+        put(1, 20.10, 2020, 10, null);
+        put(2, 20.50, 2020, 10, null);
+        put(3, 20.90, 2020, 10, null);
+
+        assertArrayEquals(new long[]{2}, columns.filter(valor(20.20, 20.80)));
+        assertArrayEquals(new long[0], columns.filter(valor(20.91, 20.99)));
+        assertArrayEquals(new long[0], columns.filter(valor(21.0, 20.0)));
+    }
+
+    @Test
+    void faixasInteirasSaoInclusivas() {
+        put(1, 1, 2019, 5, 1L);
+        put(2, 1, 2020, 10, 1L);
+        put(3, 1, 2021, 15, 2L);
+        put(4, 1, 2022, 20, null);
+
+        AcessorioFilter filter = new AcessorioFilter();
+        filter.anoMin = 2020;
+        filter.anoMax = 2021;
+        assertArrayEquals(new long[]{2, 3}, columns.filter(filter));
+
+        filter = new AcessorioFilter();
+        filter.tempoMin = 15;
+        assertArrayEquals(new long[]{3, 4}, columns.filter(filter));
+
+        filter = new AcessorioFilter();
+        filter.carroIds = List.of(1L, 2L);
+        filter.tempoMax = 10;
+        assertArrayEquals(new long[]{1, 2}, columns.filter(filter));
+    }
+
+    @Test
+    void atualizacaoTrocaDeBaldeEExclusaoSai() {
+        put(1, 10.75, 2020, 10, 1L);
+        put(2, 30.00, 2020, 10, 1L);
+
+        put(1, 29.99, 2020, 10, 2L);
+        assertArrayEquals(new long[]{1, 2}, columns.filter(valor(29.5, 30.0)));
+        assertArrayEquals(new long[0], columns.filter(valor(10.0, 11.0)));
+
+        AcessorioFilter carro1 = new AcessorioFilter();
+        carro1.carroIds = List.of(1L);
+        assertArrayEquals(new long[]{2}, columns.filter(carro1));
+
+        columns.onChange(EntityChanged.deleted(Acessorio.class, 2L));
+        assertArrayEquals(new long[]{1}, columns.filter(valor(29.5, 30.0)));
+        assertEquals(0, columns.count(carro1));
+    }
+
+    @Test
+    void restringeMantendoAOrdemDaPesquisa() {
+        put(1, 5, 2020, 10, null);
+        put(2, 50, 2020, 10, null);
+        put(3, 500, 2020, 10, null);
+
+        List<TextIndex.Hit> hits = List.of(new TextIndex.Hit(3, 2.0), new TextIndex.Hit(1, 1.5), new TextIndex.Hit(2, 1.0));
+        assertEquals(List.of(3L, 2L), Paging.ids(columns.restrict(hits, valor(10.0, null))));
+        assertEquals(List.of(2L, 3L), Paging.ids(columns.restrict(null, valor(10.0, null))));
+    }
+}
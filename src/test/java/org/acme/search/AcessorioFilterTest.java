@@ -0,0 +1,71 @@
+package org.acme.search;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.acme.Fixtures.criar;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Os filtros de faixa dão o mesmo resultado pelo motor colunar (ordem de id e relevância) e
+ * pelo SQL (qualquer outra ordem), e o total vem dos bitmaps nos dois casos.
+ */
+@QuarkusTest
+class AcessorioFilterTest {
+
+    private static long criarAcessorio(String nome, double valor) {
+        return criar("/api/v1/acessorios", Map.of(
+                "nome", nome,
+                "descricao", "Criado pelos testes de filtro",
+                "anoAquisicao", 2024,
+                "valor", valor,
+                "tempoInstalacaoMinutos", 10,
+                "carro", Map.of("id", 1),
+                "fabricantes", List.of()));
+    }
+
+    private static JsonPath search(double min, double max, String count, Object... params) {
+        var request = given().queryParam("valorMin", min).queryParam("valorMax", max).queryParam("count", count);
+        for (int i = 0; i < params.length; i += 2) request.queryParam((String) params[i], params[i + 1]);
+        return request.when().get("/api/v1/acessorios/search").then().statusCode(200).extract().jsonPath();
+    }
+
+    @Test
+    void mesmaFaixaEmQualquerOrdem() {
+        criarAcessorio("Filtro Borda Abaixo", 7331.49);
+        long b = criarAcessorio("Filtro Borda C", 7331.50);
+        long c = criarAcessorio("Filtro Borda B", 7332.00);
+
+        JsonPath byId = search(7331.5, 7332, "exact");
+        assertEquals(List.of(b, c), byId.getList("Acessorios.id", Long.class));
+        assertEquals(2, byId.getLong("TotalAcessorios"));
+
+        JsonPath byNome = search(7331.5, 7332, "estimate", "sort", "nome");
+        assertEquals(List.of(c, b), byNome.getList("Acessorios.id", Long.class));
+        assertEquals(2, byNome.getLong("TotalAcessorios"));
+
+        JsonPath byValor = search(7331.5, 7332, "exact", "sort", "valor", "direction", "desc", "size", 1);
+        assertEquals(List.of(c), byValor.getList("Acessorios.id", Long.class));
+        assertEquals(2, byValor.getLong("TotalAcessorios"));
+        assertEquals(2, byValor.getInt("TotalPages"));
+    }
+
+    @Test
+    void textoComFiltroPorRelevanciaOuOutroCampo() {
+        long b = criarAcessorio("Filtro Texto Ordenado", 8441.75);
+        criarAcessorio("Filtro Texto Ordenado", 9000);
+
+        JsonPath ranked = search(8441, 8442, "exact", "q", "ordenado");
+        assertEquals(List.of(b), ranked.getList("Acessorios.id", Long.class));
+        assertEquals(1, ranked.getLong("TotalAcessorios"));
+
+        JsonPath byValor = search(8441, 8442, "exact", "q", "ordenado", "sort", "valor");
+        assertEquals(List.of(b), byValor.getList("Acessorios.id", Long.class));
+        assertEquals(1, byValor.getLong("TotalAcessorios"));
+    }
+}
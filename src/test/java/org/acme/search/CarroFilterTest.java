@@ -0,0 +1,100 @@
+package org.acme.search;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.acme.Fixtures.criar;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Os filtros de país e data de fabricação da pesquisa de carros, sozinhos, combinados e
+ * com texto, e os índices que os atendem.
+ */
+@QuarkusTest
+class CarroFilterTest {
+
+    private static final String PAIS = "Filtrolândia";
+
+    @Inject
+    EntityManager em;
+
+    private static long criarCarro(String modelo, String pais, String fabricacao) {
+        return criar("/api/v1/carros", Map.of("modelo", modelo, "paisDeMontagem", pais, "dataDeFabricacao", fabricacao));
+    }
+
+    private static JsonPath search(Object... params) {
+        var request = given().queryParam("size", 50);
+        for (int i = 0; i < params.length; i += 2) request.queryParam((String) params[i], params[i + 1]);
+        return request.when().get("/api/v1/carros/search").then().statusCode(200).extract().jsonPath();
+    }
+
+    private static List<Long> ids(JsonPath result) {
+        return result.getList("Carros.id", Long.class);
+    }
+
+    @Test
+    void filtraPorPaisEDataDeFabricacao() {
+        long antigo = criarCarro("Filtro Antigo", PAIS, "2015-03-10");
+        long medio = criarCarro("Filtro Médio", PAIS, "2018-07-01");
+        long novo = criarCarro("Filtro Novo", PAIS, "2021-11-20");
+        criarCarro("Filtro Estrangeiro", "Outrolândia", "2018-07-01");
+
+        JsonPath porPais = search("paisDeMontagem", PAIS);
+        assertEquals(List.of(antigo, medio, novo), ids(porPais));
+        assertEquals(3, porPais.getLong("TotalCarros"));
+
+        assertEquals(List.of(medio, novo), ids(search("paisDeMontagem", PAIS, "fabricadoApos", "2018-07-01")));
+        assertEquals(List.of(antigo, medio), ids(search("paisDeMontagem", PAIS, "fabricadoAntes", "2018-07-01")));
+
+        JsonPath faixa = search("paisDeMontagem", " " + PAIS + " ",
+                "fabricadoApos", "2016-01-01", "fabricadoAntes", "2020-12-31", "sort", "modelo");
+        assertEquals(List.of(medio), ids(faixa));
+        assertEquals(1, faixa.getLong("TotalCarros"));
+    }
+
+    @Test
+    void filtroRestringeAPesquisaTextual() {
+        long dentro = criarCarro("Filtrotexto Dentro", "Textolândia", "2019-05-05");
+        criarCarro("Filtrotexto Fora", "Textolândia", "2010-05-05");
+        criarCarro("Filtrotexto Longe", "Outrolândia", "2019-05-05");
+
+        JsonPath result = search("q", "filtrotexto", "paisDeMontagem", "Textolândia", "fabricadoApos", "2015-01-01");
+        assertEquals(List.of(dentro), ids(result));
+        assertEquals(1, result.getLong("TotalCarros"));
+    }
+
+    private List<String> columns(String index) {
+        return QuarkusTransaction.requiringNew().call(() -> em.createNativeQuery(
+                        "select lower(column_name) from information_schema.index_columns"
+                                + " where index_name = ?1 order by ordinal_position", String.class)
+                .setParameter(1, index.toUpperCase(Locale.ROOT))
+                .getResultList());
+    }
+
+    @Test
+    void indicesDosFiltrosExistem() {
+        assertEquals(List.of("paisdemontagem", "id"), columns("idx_carro_pais_id"));
+        assertEquals(List.of("datadefabricacao", "id"), columns("idx_carro_fabricacao_id"));
+        assertEquals(List.of("carro_id", "id"), columns("idx_acessorio_carro_id"));
+        assertEquals(List.of("fabricante_id", "acessorio_id"), columns("idx_acessorio_fabricante_fabricante"));
+    }
+
+    @Test
+    void planoDoFiltroDePaisUsaOIndice() {
+        String plan = QuarkusTransaction.requiringNew().call(() -> (String) em.createNativeQuery(
+                        "explain select id from carro where paisDeMontagem = 'Brasil'")
+                .getSingleResult());
+        assertThat(plan.toUpperCase(Locale.ROOT), containsString("IDX_CARRO_PAIS_ID"));
+    }
+}
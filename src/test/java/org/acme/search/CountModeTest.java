@@ -0,0 +1,86 @@
+package org.acme.search;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.path.json.JsonPath;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.restassured.RestAssured.given;
+import static org.acme.Fixtures.criar;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class CountModeTest {
+
+    private static JsonPath search(String path, String count, Object... params) {
+        var request = given().queryParam("count", count).queryParam("size", 2);
+        for (int i = 0; i < params.length; i += 2) request.queryParam((String) params[i], params[i + 1]);
+        return request.when().get(path).then().statusCode(200).extract().jsonPath();
+    }
+
+    @Test
+    void semFiltroEstimativaUsaOContadorExato() {
+        int linhas = given().when().get("/api/v1/fabricantes").then().statusCode(200).extract().jsonPath().getList("$").size();
+
+        JsonPath exact = search("/api/v1/fabricantes/search", "exact");
+        JsonPath estimate = search("/api/v1/fabricantes/search", "estimate");
+        assertEquals(linhas, exact.getLong("TotalFabricantes"));
+        assertEquals(linhas, estimate.getLong("TotalFabricantes"));
+        assertEquals((linhas + 1) / 2, exact.getInt("TotalPages"));
+    }
+
+    @Test
+    void noneNaoCalculaMasMantemHasMore() {
+        JsonPath none = search("/api/v1/fabricantes/search", "none");
+        assertEquals(-1, none.getLong("TotalFabricantes"));
+        assertEquals(-1, none.getInt("TotalPages"));
+        assertTrue(none.getBoolean("HasMore"));
+        assertEquals(2, none.getList("Fabricantes").size());
+    }
+
+    @Test
+    void comFiltroSqlSoExactConta() {
+        JsonPath exact = search("/api/v1/acessorios/search", "exact", "q", "2024");
+        JsonPath estimate = search("/api/v1/acessorios/search", "estimate", "q", "2024");
+        assertTrue(exact.getLong("TotalAcessorios") > 0);
+        assertEquals(-1, estimate.getLong("TotalAcessorios"));
+        assertEquals(-1, estimate.getInt("TotalPages"));
+    }
+
+    @Test
+    void comTextoEstimativaEONumeroDeResultadosDoIndice() {
+        JsonPath exact = search("/api/v1/carros/search", "exact", "q", "estados");
+        JsonPath estimate = search("/api/v1/carros/search", "estimate", "q", "estados");
+        assertEquals(exact.getLong("TotalCarros"), estimate.getLong("TotalCarros"));
+    }
+
+    @Test
+    void cursorNaoTemTotal() {
+        assertEquals(-1, search("/api/v1/fabricantes/search", "exact", "after", "").getLong("TotalFabricantes"));
+    }
+
+    @Test
+    void modoInvalidoDevolve400() {
+        given().queryParam("count", "aproximado")
+                .when().get("/api/v1/fabricantes/search")
+                .then().statusCode(400)
+                .body(containsString("count"));
+        assertEquals(Paging.Count.EXACT, Paging.Count.parse("EXACT"));
+        assertThrows(IllegalArgumentException.class, () -> Paging.Count.parse(null));
+    }
+
+    @Test
+    void inclusaoAtualizaOContador() {
+        long antes = search("/api/v1/carros/search", "estimate").getLong("TotalCarros");
+        criar("/api/v1/carros", Map.of("modelo", "Contador", "paisDeMontagem", "Brasil"));
+        given().queryParam("count", "estimate").queryParam("size", 2)
+                .when().get("/api/v1/carros/search")
+                .then().statusCode(200)
+                .body("TotalCarros", equalTo((int) antes + 1));
+    }
+}
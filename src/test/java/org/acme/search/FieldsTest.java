@@ -0,0 +1,46 @@
+package org.acme.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FieldsTest {
+
+    private static final Set<String> ALLOWED = Set.of("id", "nome", "detalhes");
+
+    @Test
+    void vazioEAEntidadeCompleta() {
+        assertNull(Fields.parse(null, "Fabricante", ALLOWED));
+        assertNull(Fields.parse(" ", "Fabricante", ALLOWED));
+        assertEquals("id = ?1", Fields.select(null, "id = ?1"));
+    }
+
+    @Test
+    void idEntraSempreESemRepeticao() {
+        Fields fields = Fields.parse(" nome ,nome,,id", "Fabricante", ALLOWED);
+        assertEquals("id,nome", fields.toString());
+        assertEquals("select new map(id as id, nome as nome) from Fabricante where id = ?1", fields.query("id = ?1"));
+        assertEquals("select new map(id as id, nome as nome) from Fabricante", fields.query(""));
+    }
+
+    @Test
+    void cursorAcrescentaOCampoDeOrdenacao() {
+        Fields fields = Fields.parse("nome", "Fabricante", ALLOWED);
+        assertSame(fields, fields.with("nome"));
+        assertEquals("id,nome,detalhes", fields.with("detalhes").toString());
+    }
+
+    @Test
+    void campoForaDaListaERecusado() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Fields.parse("nome,acessorios", "Fabricante", ALLOWED));
+        assertTrue(e.getMessage().contains("'acessorios'"));
+        assertTrue(e.getMessage().endsWith("detalhes, id, nome"));
+    }
+}
@@ -0,0 +1,63 @@
+package org.acme.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeysetTest {
+
+    @Test
+    void cursorVoltaComValorETipo() {
+        Keyset.Cursor nome = Keyset.decode(Keyset.encode("nome", "Golf\nR", 7), "nome", String.class);
+        assertEquals("Golf\nR", nome.value());
+        assertEquals(7, nome.id());
+
+        Keyset.Cursor data = Keyset.decode(Keyset.encode("dataDeFabricacao", LocalDate.of(2023, 5, 18), 4), "dataDeFabricacao", LocalDate.class);
+        assertEquals(LocalDate.of(2023, 5, 18), data.value());
+
+        Keyset.Cursor valor = Keyset.decode(Keyset.encode("valor", 1500.0, 1), "valor", Double.class);
+        assertEquals(1500.0, valor.value());
+    }
+
+    @Test
+    void valorNuloNaoViraTexto() {
+        Keyset.Cursor cursor = Keyset.decode(Keyset.encode("detalhes", null, 3), "detalhes", String.class);
+        assertNull(cursor.value());
+        assertEquals(3, cursor.id());
+    }
+
+    @Test
+    void cursorVazioEPrimeiraPagina() {
+        assertNull(Keyset.decode(null, "id", Long.class));
+        assertNull(Keyset.decode("", "id", Long.class));
+    }
+
+    @Test
+    void cursorDeOutraOrdenacaoERecusado() {
+        String token = Keyset.encode("nome", "BOSCH", 1);
+        assertThrows(IllegalArgumentException.class, () -> Keyset.decode(token, "detalhes", String.class));
+        assertThrows(IllegalArgumentException.class, () -> Keyset.decode("nao-e-base64!", "nome", String.class));
+        assertThrows(IllegalArgumentException.class, () -> Keyset.decode(Keyset.encode("ano", "x", 1), "ano", Integer.class));
+    }
+
+    @Test
+    void restricaoSegueADirecao() {
+        Criteria asc = new Criteria();
+        Keyset.restrict(asc, "nome", false, new Keyset.Cursor("BOSCH", 1));
+        assertEquals("(nome > :keysetValue or (nome = :keysetValue and id > :keysetId))", asc.query());
+        assertEquals("BOSCH", asc.params().get("keysetValue"));
+
+        Criteria desc = new Criteria();
+        Keyset.restrict(desc, "nome", true, new Keyset.Cursor("BOSCH", 1));
+        assertTrue(desc.query().endsWith("or nome is null)"));
+
+        Criteria porId = new Criteria();
+        Keyset.restrict(porId, "id", true, new Keyset.Cursor(9L, 9));
+        assertEquals("(id < :keysetId)", porId.query());
+    }
+}
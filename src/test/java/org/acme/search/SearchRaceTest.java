@@ -0,0 +1,87 @@
+package org.acme.search;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.restassured.RestAssured.given;
+import static org.acme.Fixtures.criar;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pesquisas concorrentes com inclusões: uma resposta com o ETag de uma geração nunca pode
+ * deixar de fora o que foi confirmado até ela, nem mesmo vinda do cache.
+ */
+@QuarkusTest
+class SearchRaceTest {
+
+    private static final int WRITES = 30;
+
+    private record Observed(long generation, long total) {}
+
+    /**
+     * O ETag da lista é {@code "l<época>.<geração>"}.
+     */
+    private static long generation(Response response) {
+        String tag = response.getHeader("ETag").replace("\"", "");
+        return Long.parseLong(tag.substring(tag.lastIndexOf('.') + 1));
+    }
+
+    private static Response search(String token) {
+        return given().queryParam("q", token).queryParam("count", "exact").queryParam("size", 100)
+                .when().get("/api/v1/fabricantes/search");
+    }
+
+    @Test
+    void pesquisaNaoFicaAtrasDoETag() throws Exception {
+        String token = "corrida" + System.nanoTime();
+        Response first = search(token);
+        assertEquals(0, first.jsonPath().getLong("TotalFabricantes"));
+        long start = generation(first);
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<Observed> observed = new ConcurrentLinkedQueue<>();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                readers.add(pool.submit(() -> {
+                    while (writing.get()) {
+                        Response response = search(token);
+                        assertEquals(200, response.statusCode());
+                        observed.add(new Observed(generation(response), response.jsonPath().getLong("TotalFabricantes")));
+                    }
+                }));
+            }
+
+            for (int i = 0; i < WRITES; i++) {
+                criar("/api/v1/fabricantes", Map.of("nome", token + " " + i, "detalhes", "Escrita concorrente"));
+            }
+            writing.set(false);
+            for (Future<?> reader : readers) reader.get();
+        } finally {
+            writing.set(false);
+            pool.shutdownNow();
+        }
+
+        assertTrue(!observed.isEmpty(), "nenhuma pesquisa concorrente");
+        for (Observed o : observed) {
+            assertTrue(o.total() >= o.generation() - start,
+                    "geração " + o.generation() + " com só " + o.total() + " de " + (o.generation() - start) + " inclusões");
+        }
+
+        Response last = search(token);
+        assertEquals(start + WRITES, generation(last));
+        assertEquals(WRITES, last.jsonPath().getLong("TotalFabricantes"));
+    }
+}
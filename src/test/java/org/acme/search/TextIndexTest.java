@@ -0,0 +1,86 @@
+package org.acme.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextIndexTest {
+
+    private static List<Long> ids(List<TextIndex.Hit> hits) {
+        return Paging.ids(hits);
+    }
+
+    @Test
+    void campoComMaiorPesoVemPrimeiro() {
+        TextIndex index = new TextIndex(2.0, 1.0);
+        index.put(1, "Golf R", "Alemanha");
+        index.put(2, "Alemanha", "Golf");
+        index.put(3, "Jetta", "México");
+
+        List<TextIndex.Hit> hits = index.search("alemanha");
+        assertEquals(List.of(2L, 1L), ids(hits));
+        assertEquals(2.0, hits.get(0).score());
+        assertEquals(1.0, hits.get(1).score());
+    }
+
+    @Test
+    void termoExatoVenceOPrefixo() {
+        TextIndex index = new TextIndex(1.0);
+        index.put(1, "Freio esportivo");
+        index.put(2, "Freios de cerâmica");
+
+        List<TextIndex.Hit> hits = index.search("freio");
+        assertEquals(List.of(1L, 2L), ids(hits));
+        assertEquals(1.0, hits.get(0).score());
+        assertEquals(0.5, hits.get(1).score());
+    }
+
+    @Test
+    void todosOsTermosSaoExigidosEOsPesosSomam() {
+        TextIndex index = new TextIndex(2.0, 1.0);
+        index.put(1, "Mustang", "Estados Unidos");
+        index.put(2, "Model 3", "Estados Unidos");
+        index.put(3, "Mustang", "México");
+
+        List<TextIndex.Hit> hits = index.search("mustang estados");
+        assertEquals(List.of(1L), ids(hits));
+        assertEquals(3.0, hits.get(0).score());
+        assertTrue(index.search("mustang japao").isEmpty());
+    }
+
+    @Test
+    void empateOrdenaPorId() {
+        TextIndex index = new TextIndex(1.0);
+        index.put(9, "Spoiler");
+        index.put(4, "Spoiler");
+        index.put(7, "Spoiler");
+
+        assertEquals(List.of(4L, 7L, 9L), ids(index.search("spoiler")));
+    }
+
+    @Test
+    void acentosEMaiusculasSaoIgnorados() {
+        TextIndex index = new TextIndex(1.0);
+        index.put(1, "Câmera de Ré");
+
+        assertEquals(List.of(1L), ids(index.search("CAMERA re")));
+        assertEquals(List.of(1L), ids(index.search("câm")));
+    }
+
+    @Test
+    void atualizacaoERemocaoTrocamOsTermos() {
+        TextIndex index = new TextIndex(1.0);
+        index.put(1, "Volante");
+        index.put(1, "Banco");
+
+        assertTrue(index.search("volante").isEmpty());
+        assertEquals(List.of(1L), ids(index.search("banco")));
+
+        index.remove(1);
+        assertTrue(index.search("banco").isEmpty());
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,80 @@
+package org.acme.sql;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Respostas da API trazem {@code X-Query-Count} e o {@code Server-Timing} do banco,
+ * coerentes entre si.
+ */
+@QuarkusTest
+class QueryStatsFilterTest {
+
+    private static final Pattern DB = Pattern.compile("db;dur=\\d+\\.\\d{2};desc=\"(\\d+) consultas, (\\d+) entidades hidratadas\"");
+
+    @Test
+    void respostaDaApiTrazOCustoEmSql() {
+        // País inédito, para a resposta não sair do cache de pesquisas
+        Response response = given()
+                .queryParam("paisDeMontagem", "Sem país " + UUID.randomUUID())
+                .queryParam("fabricadoAntes", LocalDate.now().minusDays(1).toString())
+                .when().get("/api/v1/carros/search")
+                .then().statusCode(200)
+                .extract().response();
+
+        int statements = Integer.parseInt(response.header("X-Query-Count"));
+        assertTrue(statements > 0, "pesquisa sem SQL");
+
+        Matcher timing = DB.matcher(response.header("Server-Timing"));
+        assertTrue(timing.matches(), response.header("Server-Timing"));
+        assertEquals(statements, Integer.parseInt(timing.group(1)));
+        assertEquals(0, Integer.parseInt(timing.group(2)));
+    }
+
+    private static Matcher alemanha(String param, String value) {
+        // Data inédita, para a resposta não sair do cache de pesquisas
+        Response response = given()
+                .queryParam("paisDeMontagem", "Alemanha")
+                .queryParam("fabricadoAntes", LocalDate.now().minusDays(1 + ThreadLocalRandom.current().nextInt(1000)).toString())
+                .queryParam(param, value)
+                .when().get("/api/v1/carros/search")
+                .then().statusCode(200)
+                .body("Carros.size()", greaterThan(0))
+                .extract().response();
+
+        Matcher timing = DB.matcher(response.header("Server-Timing"));
+        assertTrue(timing.matches(), response.header("Server-Timing"));
+        return timing;
+    }
+
+    @Test
+    void entidadesHidratadasEntramNaConta() {
+        assertTrue(Integer.parseInt(alemanha("expand", "fichaTecnica").group(2)) > 0, "nenhuma entidade hidratada");
+    }
+
+    @Test
+    void projecoesNaoContamEntidades() {
+        assertEquals(0, Integer.parseInt(alemanha("fields", "id,modelo").group(2)));
+    }
+
+    @Test
+    void rotaForaDaApiNaoTrazOsCabecalhos() {
+        given()
+                .when().get("/q/openapi")
+                .then().statusCode(200)
+                .header("X-Query-Count", nullValue());
+    }
+}
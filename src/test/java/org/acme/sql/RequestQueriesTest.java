@@ -0,0 +1,44 @@
+package org.acme.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestQueriesTest {
+
+    @Test
+    void listasInColapsam() {
+        String one = RequestQueries.shape("select c1_0.id from Carro c1_0 where c1_0.id in (?)");
+        String many = RequestQueries.shape("select c1_0.id from Carro c1_0 where c1_0.id in (?, ?,?  , ?)");
+        assertEquals("select c1_0.id from Carro c1_0 where c1_0.id in (?)", one);
+        assertEquals(one, many);
+    }
+
+    @Test
+    void literaisEEspacosSaem() {
+        assertEquals("select a1_0.id from Acessorio a1_0 where a1_0.nome = ? and a1_0.anoAquisicao > ?",
+                RequestQueries.shape("select a1_0.id\n  from Acessorio a1_0\twhere a1_0.nome = 'O''Brien' and a1_0.anoAquisicao > 2020 "));
+    }
+
+    @Test
+    void literaisDentroDoInColapsam() {
+        assertEquals(RequestQueries.shape("select f1_0.id from Fabricante f1_0 where f1_0.id in (1, 2, 3)"),
+                RequestQueries.shape("select f1_0.id from Fabricante f1_0 where f1_0.id in (?)"));
+    }
+
+    @Test
+    void repetidosContamSoSelects() {
+        RequestQueries queries = new RequestQueries();
+        for (int i = 1; i <= 5; i++) {
+            queries.statement("select c1_0.id from Carro c1_0 where c1_0.id in (" + "?,".repeat(i) + "?)");
+            queries.statement("update Carro set versao = ? where id = ?");
+        }
+        queries.statement("SELECT f1_0.id FROM Fabricante f1_0");
+
+        assertEquals(11, queries.statements());
+        assertEquals(Map.of("select c1_0.id from Carro c1_0 where c1_0.id in (?)", 5), queries.repeated(5));
+        assertEquals(Map.of(), queries.repeated(6));
+    }
+}
@@ -0,0 +1,114 @@
+package org.acme.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    private static final double ACCURACY = 0.01;
+    private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 1};
+
+    /**
+     * O quantil exato com a mesma definição de posto do sketch: {@code floor(q * (n - 1))}.
+     */
+    private static double exact(double[] sorted, double q) {
+        return sorted[(int) Math.floor(q * (sorted.length - 1))];
+    }
+
+    private static QuantileSketch sketch(double[] values) {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (double value : values) sketch.add(value);
+        return sketch;
+    }
+
+    private static void assertWithinAccuracy(double[] values, QuantileSketch sketch) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double expected = exact(sorted, q);
+            double actual = sketch.quantile(q);
+            assertTrue(Math.abs(actual - expected) <= ACCURACY * Math.abs(expected) + 1e-12,
+                    "q=" + q + ": esperado " + expected + ", obtido " + actual);
+        }
+    }
+
+    @Test
+    void erroRelativoDentroDoLimite() {
+        Random random = new Random(42);
+        double[] values = new double[20_000];
+        for (int i = 0; i < values.length; i++) values[i] = Math.exp(random.nextGaussian() * 2 + 5);
+
+        QuantileSketch sketch = sketch(values);
+        assertEquals(values.length, sketch.count());
+        assertWithinAccuracy(values, sketch);
+    }
+
+    @Test
+    void negativosEZerosNaOrdemCerta() {
+        Random random = new Random(7);
+        double[] values = new double[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = switch (i % 4) {
+                case 0 -> 0;
+                case 1 -> -1 - random.nextDouble() * 1000;
+                default -> random.nextDouble() * 500;
+            };
+        }
+
+        QuantileSketch sketch = sketch(values);
+        assertWithinAccuracy(values, sketch);
+        assertTrue(sketch.quantile(0.1) < 0);
+        assertTrue(sketch.quantile(0.9) > 0);
+    }
+
+    @Test
+    void soZerosDevolveZero() {
+        QuantileSketch sketch = sketch(new double[]{0, 0, 0});
+        assertEquals(0, sketch.quantile(0.5));
+        assertEquals(0, sketch.quantile(0.99));
+    }
+
+    @Test
+    void juntarBlocosEquivaleAUmSoSketch() {
+        Random random = new Random(3);
+        double[] values = new double[9_000];
+        for (int i = 0; i < values.length; i++) values[i] = random.nextDouble() * 2000 - 100;
+
+        QuantileSketch merged = new QuantileSketch(ACCURACY);
+        for (int from = 0; from < values.length; from += 1000) {
+            merged.merge(sketch(Arrays.copyOfRange(values, from, from + 1000)));
+        }
+
+        QuantileSketch single = sketch(values);
+        assertEquals(single.count(), merged.count());
+        for (double q : QUANTILES) assertEquals(single.quantile(q), merged.quantile(q), "q=" + q);
+    }
+
+    @Test
+    void juntarComVazioNaoMudaNada() {
+        double[] values = {3.7, 120.5, 19.99};
+        QuantileSketch sketch = sketch(values);
+        sketch.merge(new QuantileSketch(ACCURACY));
+        assertEquals(3, sketch.count());
+        assertWithinAccuracy(values, sketch);
+    }
+
+    @Test
+    void vazioDevolveNaN() {
+        assertTrue(Double.isNaN(new QuantileSketch(ACCURACY).quantile(0.5)));
+    }
+
+    @Test
+    void argumentosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(0));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(1));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(ACCURACY).quantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(ACCURACY).merge(new QuantileSketch(0.05)));
+    }
+}
@@ -0,0 +1,156 @@
+package org.acme.usage;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.specification.RequestSpecification;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.acme.Fixtures.criar;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Os contadores {@code quantidadeAcessorios} de carros e fabricantes acompanham cada
+ * forma de escrita de acessórios.
+ */
+@QuarkusTest
+class UsageCountsTest {
+
+    @Inject
+    UsageCounts usage;
+
+    private static Map<String, Object> acessorio(String nome, Long carroId, List<Long> fabricanteIds) {
+        Map<String, Object> body = new HashMap<>(Map.of(
+                "nome", nome,
+                "descricao", "Criado pelos testes de contadores",
+                "anoAquisicao", 2024,
+                "valor", 50.0,
+                "tempoInstalacaoMinutos", 10,
+                "fabricantes", fabricanteIds.stream().map(id -> Map.of("id", id)).toList()));
+        if (carroId != null) body.put("carro", Map.of("id", carroId));
+        return body;
+    }
+
+    private static RequestSpecification bulk() {
+        return given().contentType(ContentType.JSON)
+                .header("X-Idempotency-Key", UUID.randomUUID().toString());
+    }
+
+    private long carro(long id) {
+        return QuarkusTransaction.requiringNew().call(() -> usage.carro(id));
+    }
+
+    private long fabricante(long id) {
+        return QuarkusTransaction.requiringNew().call(() -> usage.fabricante(id));
+    }
+
+    private void assertCounts(long carroA, long carroB, long fabricanteA, long fabricanteB, long... esperado) {
+        assertEquals(esperado[0], carro(carroA), "carro A");
+        assertEquals(esperado[1], carro(carroB), "carro B");
+        assertEquals(esperado[2], fabricante(fabricanteA), "fabricante A");
+        assertEquals(esperado[3], fabricante(fabricanteB), "fabricante B");
+    }
+
+    @Test
+    void contadoresAcompanhamCadaEscrita() {
+        long carroA = criar("/api/v1/carros", Map.of("modelo", "Contador A", "paisDeMontagem", "Brasil"));
+        long carroB = criar("/api/v1/carros", Map.of("modelo", "Contador B", "paisDeMontagem", "Brasil"));
+        long fabA = criar("/api/v1/fabricantes", Map.of("nome", "Contador A", "detalhes", "Testes"));
+        long fabB = criar("/api/v1/fabricantes", Map.of("nome", "Contador B", "detalhes", "Testes"));
+        assertCounts(carroA, carroB, fabA, fabB, 0, 0, 0, 0);
+
+        // POST
+        long id = criar("/api/v1/acessorios", acessorio("Contador Único", carroA, List.of(fabA, fabB)));
+        assertCounts(carroA, carroB, fabA, fabB, 1, 0, 1, 1);
+
+        // PUT trocando carro e fabricantes
+        given().contentType(ContentType.JSON)
+                .body(acessorio("Contador Único", carroB, List.of(fabB)))
+                .when().put("/api/v1/acessorios/" + id)
+                .then().statusCode(200);
+        assertCounts(carroA, carroB, fabA, fabB, 0, 1, 0, 1);
+
+        // Inserção em lote, com uma linha recusada
+        List<Long> lote = bulk().body(List.of(
+                        acessorio("Contador Lote 1", carroA, List.of(fabA)),
+                        acessorio("Contador Lote 2", carroA, List.of(fabA, fabB)),
+                        acessorio("Contador Lote 3", 999_999L, List.of(fabA))))
+                .when().post("/api/v1/acessorios/bulk")
+                .then().statusCode(200)
+                .extract().jsonPath().getList("id", Long.class);
+        assertCounts(carroA, carroB, fabA, fabB, 2, 1, 2, 2);
+
+        // Exclusão em lote por ids e pelo carro
+        bulk().body(List.of(lote.get(0)))
+                .when().delete("/api/v1/acessorios/bulk")
+                .then().statusCode(200);
+        assertCounts(carroA, carroB, fabA, fabB, 1, 1, 1, 2);
+        bulk().queryParam("carroId", carroA).body(List.of())
+                .when().delete("/api/v1/acessorios/bulk")
+                .then().statusCode(200);
+        assertCounts(carroA, carroB, fabA, fabB, 0, 1, 0, 1);
+
+        // DELETE
+        given().when().delete("/api/v1/acessorios/" + id).then().statusCode(204);
+        assertCounts(carroA, carroB, fabA, fabB, 0, 0, 0, 0);
+
+        for (long carro : List.of(carroA, carroB)) given().when().delete("/api/v1/carros/" + carro).then().statusCode(204);
+        for (long fab : List.of(fabA, fabB)) given().when().delete("/api/v1/fabricantes/" + fab).then().statusCode(204);
+    }
+
+    @Test
+    void exclusaoIndividualEEmLoteBloqueiamPeloMesmoContador() {
+        long carro = criar("/api/v1/carros", Map.of("modelo", "Contador Bloqueado", "paisDeMontagem", "Brasil"));
+        long acessorio = criar("/api/v1/acessorios", acessorio("Contador Bloqueado", carro, List.of()));
+
+        given().when().delete("/api/v1/carros/" + carro)
+                .then().statusCode(409)
+                .body(equalTo("Não é possível deletar. Existem 1 acessório(s) vinculado(s)."));
+        bulk().body(List.of(carro))
+                .when().delete("/api/v1/carros/bulk")
+                .then().statusCode(200)
+                .body("blocked." + carro, equalTo(1));
+        given().when().get("/api/v1/acessorios/" + acessorio).then().statusCode(200);
+
+        given().when().delete("/api/v1/acessorios/" + acessorio).then().statusCode(204);
+        given().when().delete("/api/v1/carros/" + carro).then().statusCode(204);
+        given().when().get("/api/v1/carros/" + carro).then().statusCode(404);
+    }
+
+    @Test
+    void contadorDesatualizadoDevolve409EmVezDe500() {
+        long carro = criar("/api/v1/carros", Map.of("modelo", "Contador Zerado", "paisDeMontagem", "Brasil"));
+        long fabricante = criar("/api/v1/fabricantes", Map.of("nome", "Contador Zerado", "detalhes", "Vínculo sem contador"));
+        long acessorio = criar("/api/v1/acessorios", acessorio("Contador Zerado", carro, List.of(fabricante)));
+        // Simula um vínculo que o contador ainda não viu: a chave estrangeira barra a exclusão
+        QuarkusTransaction.requiringNew().run(() -> usage.apply(new UsageCounts.Deltas().add(carro, List.of(fabricante), -1)));
+
+        given().when().delete("/api/v1/carros/" + carro).then().statusCode(409);
+        given().when().delete("/api/v1/fabricantes/" + fabricante).then().statusCode(409);
+        bulk().body(List.of(fabricante))
+                .when().delete("/api/v1/fabricantes/bulk")
+                .then().statusCode(409);
+        given().when().get("/api/v1/acessorios/" + acessorio).then().statusCode(200);
+
+        QuarkusTransaction.requiringNew().run(() -> usage.apply(new UsageCounts.Deltas().add(carro, List.of(fabricante), 1)));
+        given().when().delete("/api/v1/acessorios/" + acessorio).then().statusCode(204);
+        given().when().delete("/api/v1/carros/" + carro).then().statusCode(204);
+        given().when().delete("/api/v1/fabricantes/" + fabricante).then().statusCode(204);
+    }
+
+    @Test
+    void exclusaoDeInexistenteDevolve404() {
+        given().when().delete("/api/v1/carros/999999").then().statusCode(404);
+        given().when().delete("/api/v1/fabricantes/999999").then().statusCode(404);
+        assertNull(QuarkusTransaction.requiringNew().call(() -> usage.carro(999_999)));
+    }
+}